@@ -0,0 +1,88 @@
+package io.jtrace.cli;
+
+import io.jtrace.core.baseline.Baseline;
+import io.jtrace.core.baseline.BaselineBuilder;
+import io.jtrace.core.config.JTraceConfig;
+import io.jtrace.core.config.JTraceConfigLoader;
+import io.jtrace.core.engine.RuleEngine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command to record the current violations as a baseline, or to prune fixed ones from it.
+ */
+@Command(
+    name = "baseline",
+    description = "Record current violations in a baseline so that only new ones are reported"
+)
+public class BaselineCommand implements Runnable {
+
+    @Option(names = {"--config", "-c"}, description = "Configuration file path", defaultValue = "jtrace.yml")
+    private Path configFile;
+
+    @Option(names = {"--src", "-s"}, description = "Source directory path; may be repeated", defaultValue = "src/main/java")
+    private List<Path> sourceDirs;
+
+    @Option(names = {"--parallelism", "-j"}, description = "Number of parser workers (0 = one per CPU); overrides analysis.parallelism")
+    private Integer parallelism;
+
+    @Option(names = {"--cache-dir"}, description = "Parse cache directory; overrides cache.directory and enables caching")
+    private Path cacheDir;
+
+    @Option(names = {"--file", "-f"}, description = "Baseline file; overrides baseline.file")
+    private Path baselineFile;
+
+    @Option(names = {"--update"}, description = "Only remove entries for violations that have been fixed; never add new ones")
+    private boolean update;
+
+    @Override
+    public void run() {
+        try {
+            // Load configuration
+            JTraceConfigLoader loader = new JTraceConfigLoader();
+            JTraceConfig config = loader.loadFromFile(configFile);
+            if (parallelism != null) {
+                config = config.toBuilder().parallelism(parallelism).build();
+            }
+            if (cacheDir != null) {
+                config = config.toBuilder().cacheDirectory(cacheDir).build();
+            }
+            Path file = baselineFile != null ? baselineFile
+                : config.getBaselineFile() != null ? config.getBaselineFile() : JTraceConfig.DEFAULT_BASELINE_FILE;
+
+            // Every current violation: no baseline, cap or early stop
+            config = config.toBuilder()
+                .baselineFile(null)
+                .maxViolationsPerRule(0)
+                .failFast(false)
+                .timeBudgetMs(0)
+                .build();
+
+            // Run analysis
+            BaselineBuilder current = new BaselineBuilder();
+            RuleEngine engine = new RuleEngine();
+            try {
+                engine.run(config, sourceDirs, current);
+            } finally {
+                engine.shutdown();
+            }
+
+            Baseline baseline = current.build();
+            if (update) {
+                Baseline existing = Baseline.load(file);
+                baseline = existing.retainAll(baseline);
+                System.out.printf("🧹 Pruned %d fixed violations from the baseline%n", existing.size() - baseline.size());
+            }
+            baseline.write(file);
+            System.out.printf("✅ Baseline of %d violations written to %s%n", baseline.size(), file);
+
+        } catch (Exception e) {
+            System.err.println("Error writing baseline: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+}
@@ -4,11 +4,13 @@ import io.jtrace.core.config.JTraceConfig;
 import io.jtrace.core.config.JTraceConfigLoader;
 import io.jtrace.core.engine.RuleEngine;
 import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,9 +28,21 @@ public class EnforceCommand implements Runnable {
     @Option(names = {"--src", "-s"}, description = "Source directory", defaultValue = "src/main/java")
     private Path sourceDir;
 
+    @Option(names = {"--parallelism", "-j"}, description = "Number of parser workers (0 = one per CPU); overrides analysis.parallelism")
+    private Integer parallelism;
+
+    @Option(names = {"--cache-dir"}, description = "Parse cache directory; overrides cache.directory and enables caching")
+    private Path cacheDir;
+
     @Option(names = {"--fail-on"}, description = "Fail on violations at or above this severity", defaultValue = "error")
     private String failOn;
 
+    @Option(names = {"--fail-fast"}, description = "Stop at the first violation at or above the fail threshold; overrides analysis.failFast")
+    private Boolean failFast;
+
+    @Option(names = {"--time-budget"}, description = "Stop analysis after this many milliseconds (0 = no limit); overrides analysis.timeBudgetMs")
+    private Long timeBudgetMs;
+
     @Override
     public void run() {
         try {
@@ -37,10 +51,43 @@ public class EnforceCommand implements Runnable {
             // Load configuration
             JTraceConfigLoader loader = new JTraceConfigLoader();
             JTraceConfig config = loader.loadFromFile(configFile);
+            if (parallelism != null) {
+                config = config.toBuilder().parallelism(parallelism).build();
+            }
+            if (cacheDir != null) {
+                config = config.toBuilder().cacheDirectory(cacheDir).build();
+            }
+            if (failFast != null) {
+                config = config.toBuilder().failFast(failFast).build();
+            }
+            if (timeBudgetMs != null) {
+                config = config.toBuilder().timeBudgetMs(timeBudgetMs).build();
+            }
+            config = config.toBuilder().failOn(failOn).build();
 
             // Run analysis
+            List<Violation> violations = new ArrayList<>();
+            String[] incomplete = new String[1];
             RuleEngine engine = new RuleEngine();
-            List<Violation> violations = engine.run(config, List.of(sourceDir));
+            try {
+                engine.run(config, List.of(sourceDir), new ViolationSink() {
+                    @Override
+                    public void accept(Violation violation) {
+                        violations.add(violation);
+                    }
+
+                    @Override
+                    public void incomplete(String reason) {
+                        incomplete[0] = reason;
+                    }
+                });
+            } finally {
+                engine.shutdown();
+            }
+
+            if (incomplete[0] != null) {
+                System.out.println("⚠️  Analysis incomplete: " + incomplete[0]);
+            }
 
             // Report results
             if (violations.isEmpty()) {
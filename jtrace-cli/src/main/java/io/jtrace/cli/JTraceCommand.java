@@ -15,7 +15,8 @@ import picocli.CommandLine.Command;
         InitCommand.class,
         ScanCommand.class,
         EnforceCommand.class,
-        ReportCommand.class
+        ReportCommand.class,
+        BaselineCommand.class
     }
 )
 public class JTraceCommand implements Runnable {
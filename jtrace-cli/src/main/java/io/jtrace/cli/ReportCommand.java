@@ -3,11 +3,14 @@ package io.jtrace.cli;
 import io.jtrace.core.config.JTraceConfig;
 import io.jtrace.core.config.JTraceConfigLoader;
 import io.jtrace.core.engine.RuleEngine;
-import io.jtrace.core.model.Violation;
+import io.jtrace.core.report.HtmlReportWriter;
+import io.jtrace.core.report.JsonReportWriter;
+import io.jtrace.core.report.SarifReportWriter;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -26,12 +29,21 @@ public class ReportCommand implements Runnable {
     @Option(names = {"--src", "-s"}, description = "Source directory", defaultValue = "src/main/java")
     private Path sourceDir;
 
+    @Option(names = {"--parallelism", "-j"}, description = "Number of parser workers (0 = one per CPU); overrides analysis.parallelism")
+    private Integer parallelism;
+
+    @Option(names = {"--cache-dir"}, description = "Parse cache directory; overrides cache.directory and enables caching")
+    private Path cacheDir;
+
     @Option(names = {"--format", "-f"}, description = "Output format", defaultValue = "html")
     private String format;
 
     @Option(names = {"--out", "-o"}, description = "Output directory", defaultValue = "build/jtrace")
     private Path outputDir;
 
+    @Option(names = {"--gzip"}, description = "Gzip-compress JSON and SARIF reports")
+    private boolean gzip;
+
     @Override
     public void run() {
         try {
@@ -40,25 +52,32 @@ public class ReportCommand implements Runnable {
             // Load configuration
             JTraceConfigLoader loader = new JTraceConfigLoader();
             JTraceConfig config = loader.loadFromFile(configFile);
+            if (parallelism != null) {
+                config = config.toBuilder().parallelism(parallelism).build();
+            }
+            if (cacheDir != null) {
+                config = config.toBuilder().cacheDirectory(cacheDir).build();
+            }
 
-            // Run analysis
+            // Run analysis and generate report
             RuleEngine engine = new RuleEngine();
-            List<Violation> violations = engine.run(config, List.of(sourceDir));
-
-            // Generate report
-            switch (format.toLowerCase()) {
-                case "html":
-                    generateHtmlReport(violations);
-                    break;
-                case "json":
-                    generateJsonReport(violations);
-                    break;
-                case "sarif":
-                    generateSarifReport(violations);
-                    break;
-                default:
-                    System.err.println("Unsupported format: " + format);
-                    System.exit(1);
+            try {
+                switch (format.toLowerCase()) {
+                    case "html":
+                        generateHtmlReport(engine, config);
+                        break;
+                    case "json":
+                        generateJsonReport(engine, config);
+                        break;
+                    case "sarif":
+                        generateSarifReport(engine, config);
+                        break;
+                    default:
+                        System.err.println("Unsupported format: " + format);
+                        System.exit(1);
+                }
+            } finally {
+                engine.shutdown();
             }
 
             System.out.println("✅ Report generated successfully in " + outputDir.toAbsolutePath());
@@ -70,24 +89,29 @@ public class ReportCommand implements Runnable {
         }
     }
 
-    private void generateHtmlReport(List<Violation> violations) {
-        // TODO: Implement HTML report generation
+    private void generateHtmlReport(RuleEngine engine, JTraceConfig config) throws IOException {
         System.out.println("📄 Generating HTML report...");
-        System.out.println("   - Total violations: " + violations.size());
-        System.out.println("   - Output directory: " + outputDir);
+        try (HtmlReportWriter writer = new HtmlReportWriter(outputDir, config.getRules())) {
+            engine.run(config, List.of(sourceDir), writer);
+        }
+        System.out.println("   - Report file: " + outputDir.resolve("index.html"));
     }
 
-    private void generateJsonReport(List<Violation> violations) {
-        // TODO: Implement JSON report generation
+    private void generateJsonReport(RuleEngine engine, JTraceConfig config) throws IOException {
         System.out.println("📄 Generating JSON report...");
-        System.out.println("   - Total violations: " + violations.size());
-        System.out.println("   - Output directory: " + outputDir);
+        Path file = outputDir.resolve(gzip ? "jtrace-report.json.gz" : "jtrace-report.json");
+        try (JsonReportWriter writer = new JsonReportWriter(file, gzip)) {
+            engine.run(config, List.of(sourceDir), writer);
+        }
+        System.out.println("   - Report file: " + file);
     }
 
-    private void generateSarifReport(List<Violation> violations) {
-        // TODO: Implement SARIF report generation
+    private void generateSarifReport(RuleEngine engine, JTraceConfig config) throws IOException {
         System.out.println("📄 Generating SARIF report...");
-        System.out.println("   - Total violations: " + violations.size());
-        System.out.println("   - Output directory: " + outputDir);
+        Path file = outputDir.resolve(gzip ? "jtrace-report.sarif.gz" : "jtrace-report.sarif");
+        try (SarifReportWriter writer = new SarifReportWriter(file, config.getRules(), gzip)) {
+            engine.run(config, List.of(sourceDir), writer);
+        }
+        System.out.println("   - Report file: " + file);
     }
 }
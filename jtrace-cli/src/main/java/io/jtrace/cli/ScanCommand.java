@@ -3,13 +3,12 @@ package io.jtrace.cli;
 import io.jtrace.core.config.JTraceConfig;
 import io.jtrace.core.config.JTraceConfigLoader;
 import io.jtrace.core.engine.RuleEngine;
-import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.Severity;
 import io.jtrace.core.report.ConsoleReporter;
 import picocli.CommandLine;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,36 +29,60 @@ public class ScanCommand implements Runnable {
     
     @CommandLine.Option(
         names = {"--src", "-s"},
-        description = "Source directory path",
+        description = "Source directory path; may be repeated",
         defaultValue = "src/main/java"
     )
-    private String sourceDir;
+    private List<Path> sourceDirs;
+    
+    @CommandLine.Option(
+        names = {"--parallelism", "-j"},
+        description = "Number of parser workers (0 = one per CPU); overrides analysis.parallelism"
+    )
+    private Integer parallelism;
+    
+    @CommandLine.Option(
+        names = {"--cache-dir"},
+        description = "Parse cache directory; overrides cache.directory and enables caching"
+    )
+    private Path cacheDir;
     
     @Override
     public void run() {
         try {
             // Load configuration
             JTraceConfigLoader loader = new JTraceConfigLoader();
-            JTraceConfig config = loader.loadFromFile(configFile);
+            JTraceConfig config = loader.loadFromFile(Path.of(configFile));
+            if (parallelism != null) {
+                config = config.toBuilder().parallelism(parallelism).build();
+            }
+            if (cacheDir != null) {
+                config = config.toBuilder().cacheDirectory(cacheDir).build();
+            }
 
-            // Find source files
-            List<Path> sourcePaths = findSourceFiles(sourceDir);
-            if (sourcePaths.isEmpty()) {
-                System.err.println("No Java source files found in " + sourceDir);
-                System.exit(1);
+            for (Path sourceDir : sourceDirs) {
+                if (!Files.exists(sourceDir)) {
+                    System.err.println("Source directory not found: " + sourceDir);
+                    System.exit(1);
+                }
             }
 
-            // Run analysis
+            // Run analysis, streaming violations into the reporter
             RuleEngine engine = new RuleEngine();
-            List<Violation> violations = engine.run(config, sourcePaths);
+            ConsoleReporter reporter = new ConsoleReporter();
+            try {
+                engine.run(config, sourceDirs, reporter);
+            } finally {
+                engine.shutdown();
+            }
 
             // Report results
-            ConsoleReporter reporter = new ConsoleReporter();
-            reporter.report(violations);
+            reporter.finish();
 
             // Exit with error code if violations exceed failOn threshold
-            if (config.getFailOn().shouldFail(violations)) {
-                System.exit(1);
+            for (Severity severity : Severity.values()) {
+                if (reporter.getViolationCount(severity) > 0 && config.getFailOn().shouldFail(severity)) {
+                    System.exit(1);
+                }
             }
         } catch (Exception e) {
             System.err.println("Error during analysis: " + e.getMessage());
@@ -67,14 +90,4 @@ public class ScanCommand implements Runnable {
             System.exit(1);
         }
     }
-
-    private List<Path> findSourceFiles(String sourceDir) throws Exception {
-        List<Path> sourceFiles = new ArrayList<>();
-        if (Files.exists(Path.of(sourceDir))) {
-            Files.walk(Path.of(sourceDir))
-                .filter(path -> path.toString().endsWith(".java"))
-                .forEach(sourceFiles::add);
-        }
-        return sourceFiles;
-    }
 }
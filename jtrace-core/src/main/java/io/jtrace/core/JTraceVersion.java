@@ -0,0 +1,32 @@
+package io.jtrace.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Exposes the version of the JTrace build on the classpath.
+ */
+public final class JTraceVersion {
+    private static final String VERSION = loadVersion();
+
+    private JTraceVersion() {
+    }
+
+    public static String get() {
+        return VERSION;
+    }
+
+    private static String loadVersion() {
+        try (InputStream input = JTraceVersion.class.getResourceAsStream("version.properties")) {
+            if (input != null) {
+                Properties properties = new Properties();
+                properties.load(input);
+                return properties.getProperty("version", "unknown");
+            }
+        } catch (IOException e) {
+            // Fall through to the default
+        }
+        return "unknown";
+    }
+}
@@ -1,15 +1,17 @@
 package io.jtrace.core.analysis;
 
+import io.jtrace.core.importer.AnnotationIndex;
 import io.jtrace.core.importer.ProjectModel;
 import io.jtrace.core.model.RequireAnnotationRule;
 import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
 import io.jtrace.core.model.Location;
 import io.jtrace.core.match.PatternMatcher;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Analyzes classes, methods, and fields for required annotations.
@@ -23,72 +25,111 @@ public class AnnotationAnalyzer {
     }
     
     public List<Violation> analyze(RequireAnnotationRule rule, ProjectModel projectModel) {
+        return analyze(rule, projectModel, new RuleMembership(List.of(rule), patternMatcher, projectModel));
+    }
+    
+    /**
+     * Like {@link #analyze(RequireAnnotationRule, ProjectModel)}, taking the classes matching the
+     * rule's package pattern from a membership table that includes the rule and the annotated
+     * elements from the model's annotation index.
+     */
+    public List<Violation> analyze(RequireAnnotationRule rule, ProjectModel projectModel,
+                                   RuleMembership membership) {
         List<Violation> violations = new ArrayList<>();
+        analyze(rule, projectModel, membership, violations::add);
+        return violations;
+    }
+    
+    /**
+     * Like {@link #analyze(RequireAnnotationRule, ProjectModel, RuleMembership)}, delivering each
+     * violation to the sink as it is found.
+     */
+    public void analyze(RequireAnnotationRule rule, ProjectModel projectModel, RuleMembership membership,
+                        ViolationSink sink) {
+        AnnotationIndex index = projectModel.getAnnotationIndex();
+        BitSet matchingClasses = membership.getSelectedClasses(rule);
         
-        // Find all classes matching the package pattern
-        List<ProjectModel.ClassInfo> matchingClasses = findClassesMatchingPattern(
-            rule.getPackagePattern(), projectModel);
-        
-        for (ProjectModel.ClassInfo classInfo : matchingClasses) {
-            switch (rule.getTarget()) {
-                case CLASS:
-                    checkClassAnnotations(rule, classInfo, violations);
-                    break;
-                case METHOD:
-                    checkMethodAnnotations(rule, classInfo, violations);
-                    break;
-                case FIELD:
-                    checkFieldAnnotations(rule, classInfo, violations);
-                    break;
+        if (rule.getTarget() == RequireAnnotationRule.Target.CLASS) {
+            // Matching classes minus annotated classes
+            BitSet missing = (BitSet) matchingClasses.clone();
+            missing.andNot(index.getClasses(rule.getAnnotation()));
+            for (int id = missing.nextSetBit(0); id >= 0; id = missing.nextSetBit(id + 1)) {
+                sink.accept(createViolation(rule, projectModel.getClassById(id), null, null));
             }
+            return;
         }
         
-        return violations;
-    }
-    
-    private List<ProjectModel.ClassInfo> findClassesMatchingPattern(String pattern, ProjectModel projectModel) {
-        return projectModel.getAllClasses().stream()
-            .filter(classInfo -> patternMatcher.matches(pattern, classInfo.getFullName()))
-            .collect(Collectors.toList());
-    }
-    
-    private void checkClassAnnotations(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, 
-                                     List<Violation> violations) {
-        if (!hasAnnotation(new ArrayList<>(classInfo.getAnnotations()), rule.getAnnotation())) {
-            violations.add(createViolation(rule, classInfo, null, null));
+        for (int id = matchingClasses.nextSetBit(0); id >= 0; id = matchingClasses.nextSetBit(id + 1)) {
+            checkClass(rule, projectModel.getClassById(id), index, sink);
         }
     }
     
-    private void checkMethodAnnotations(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, 
-                                      List<Violation> violations) {
-        for (ProjectModel.MethodInfo method : classInfo.getMethods()) {
-            if (!hasAnnotation(new ArrayList<>(method.getAnnotations()), rule.getAnnotation())) {
-                violations.add(createViolation(rule, classInfo, method, null));
-            }
+    /**
+     * Checks a single class, for evaluating the rule while classes are still being imported.
+     */
+    public void analyzeClass(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, ViolationSink sink) {
+        if (patternMatcher.compile(rule.getPackagePattern()).matches(classInfo.getFullName())) {
+            checkClass(rule, classInfo, null, sink);
         }
     }
     
-    private void checkFieldAnnotations(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, 
-                                     List<Violation> violations) {
-        for (ProjectModel.FieldInfo field : classInfo.getFields()) {
-            if (!hasAnnotation(new ArrayList<>(field.getAnnotations()), rule.getAnnotation())) {
-                violations.add(createViolation(rule, classInfo, null, field));
-            }
+    /**
+     * Checks a class already known to match the rule's package pattern, looking up annotated
+     * elements in the model's annotation index, or comparing names when the index is null.
+     */
+    public void checkClass(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, AnnotationIndex index,
+                           ViolationSink sink) {
+        String annotation = rule.getAnnotation();
+        switch (rule.getTarget()) {
+            case CLASS:
+                boolean annotated = index != null
+                    ? index.getClasses(annotation).get(classInfo.getId())
+                    : hasAnnotation(classInfo.getAnnotations(), annotation);
+                if (!annotated) {
+                    sink.accept(createViolation(rule, classInfo, null, null));
+                }
+                break;
+            case METHOD:
+                BitSet annotatedMethods = index != null ? index.getMethods(annotation) : null;
+                for (ProjectModel.MethodInfo method : classInfo.getMethods()) {
+                    if (annotatedMethods != null
+                            ? !annotatedMethods.get(method.getId())
+                            : !hasAnnotation(method.getAnnotations(), annotation)) {
+                        sink.accept(createViolation(rule, classInfo, method, null));
+                    }
+                }
+                break;
+            case FIELD:
+                BitSet annotatedFields = index != null ? index.getFields(annotation) : null;
+                for (ProjectModel.FieldInfo field : classInfo.getFields()) {
+                    if (annotatedFields != null
+                            ? !annotatedFields.get(field.getId())
+                            : !hasAnnotation(field.getAnnotations(), annotation)) {
+                        sink.accept(createViolation(rule, classInfo, null, field));
+                    }
+                }
+                break;
         }
     }
     
-    private boolean hasAnnotation(List<String> annotations, String requiredAnnotation) {
+    /**
+     * Matches annotation names one by one, for classes that are not yet indexed. Agrees with
+     * {@link AnnotationIndex}.
+     */
+    private boolean hasAnnotation(Collection<String> annotations, String requiredAnnotation) {
         if (annotations == null || annotations.isEmpty()) {
             return false;
         }
         
         // Check for exact match or simple class name match
-        return annotations.stream().anyMatch(annotation -> 
-            annotation.equals(requiredAnnotation) || 
-            annotation.endsWith("." + requiredAnnotation) ||
-            annotation.equals("@" + requiredAnnotation) ||
-            annotation.endsWith("." + requiredAnnotation)
-        );
+        for (String annotation : annotations) {
+            if (annotation.equals(requiredAnnotation)
+                    || annotation.endsWith("." + requiredAnnotation)
+                    || annotation.equals("@" + requiredAnnotation)) {
+                return true;
+            }
+        }
+        return false;
     }
     
     private Violation createViolation(RequireAnnotationRule rule, ProjectModel.ClassInfo classInfo, 
@@ -96,7 +137,8 @@ public class AnnotationAnalyzer {
         Location location = new Location(
             java.nio.file.Path.of(classInfo.getSourceFile()),
             1, // Default line number
-            formatElementName(classInfo, method, field)
+            formatElementName(classInfo, method, field),
+            classInfo.getPackageName()
         );
         
         String elementName = formatElementName(classInfo, method, field);
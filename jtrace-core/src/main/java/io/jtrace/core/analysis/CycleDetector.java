@@ -1,138 +1,466 @@
 package io.jtrace.core.analysis;
 
 import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.importer.DependencyGraph;
+import io.jtrace.core.model.CycleRule;
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+import io.jtrace.core.match.PatternMatcher;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 /**
  * Detects dependency cycles in the project using Tarjan's algorithm.
+ *
+ * <p>The search runs iteratively over the class dependency graph, with all per-node state held in
+ * int arrays indexed by class ID, so neither deep dependency chains nor large graphs can overflow
+ * the thread stack.
+ *
+ * <p>At package level the class graph is condensed into a package graph first, and the shortest
+ * elementary cycles of each group of packages that depend on each other are enumerated with
+ * {@link ElementaryCycles}, one task per group on the caller's executor, or on the common pool
+ * when none is given.
  */
 public class CycleDetector {
-    
-    private static class Node {
-        final String className;
-        final Set<String> dependencies;
-        int index = -1;
-        int lowLink = -1;
-        boolean onStack = false;
-        
-        Node(String className, Set<String> dependencies) {
-            this.className = className;
-            this.dependencies = dependencies;
-        }
-    }
-    
-    public List<String> detectCycles(ProjectModel projectModel) {
-        List<String> cycles = new ArrayList<>();
-        Map<String, Node> nodes = buildDependencyGraph(projectModel);
-        
-        if (nodes.isEmpty()) {
-            return cycles;
-        }
-        
-        int index = 0;
-        Stack<Node> stack = new Stack<>();
-        
-        for (Node node : nodes.values()) {
-            if (node.index == -1) {
-                index = strongConnect(node, nodes, index, stack, cycles);
+
+    private final PatternMatcher patternMatcher;
+
+    public CycleDetector(PatternMatcher patternMatcher) {
+        this.patternMatcher = patternMatcher;
+    }
+
+    /**
+     * At class level, reports one violation per group of classes that depend on each other in a
+     * cycle, showing one of the shortest cycles through the group's first class. At package
+     * level, reports each elementary package cycle found.
+     */
+    public List<Violation> analyze(CycleRule rule, ProjectModel projectModel) {
+        return analyze(rule, projectModel, new RuleMembership(List.of(rule), patternMatcher, projectModel));
+    }
+
+    /**
+     * Like {@link #analyze(CycleRule, ProjectModel)}, taking the classes in scope from a membership
+     * table that includes the rule.
+     */
+    public List<Violation> analyze(CycleRule rule, ProjectModel projectModel, RuleMembership membership) {
+        return analyze(rule, projectModel, membership, ForkJoinPool.commonPool(), () -> false);
+    }
+
+    /**
+     * Like {@link #analyze(CycleRule, ProjectModel, RuleMembership)}, enumerating package cycles
+     * on the given executor. Once {@code stop} holds, groups of classes or packages not yet
+     * searched are skipped and not reported.
+     */
+    public List<Violation> analyze(CycleRule rule, ProjectModel projectModel, RuleMembership membership,
+                                   Executor executor, BooleanSupplier stop) {
+        BitSet scope = membership.getSelectedClasses(rule);
+        if (rule.getLevel() == CycleRule.Level.PACKAGE) {
+            return analyzePackages(rule, projectModel, scope, executor, stop);
+        }
+        return analyzeClasses(rule, projectModel, scope, stop);
+    }
+
+    /**
+     * Like {@link #analyze(CycleRule, ProjectModel, RuleMembership)}, delivering the violations to
+     * the sink.
+     */
+    public void analyze(CycleRule rule, ProjectModel projectModel, RuleMembership membership,
+                        ViolationSink sink) {
+        analyze(rule, projectModel, membership).forEach(sink::accept);
+    }
+
+    /**
+     * Like {@link #analyze(CycleRule, ProjectModel, RuleMembership, Executor, BooleanSupplier)},
+     * delivering the violations to the sink. Components are searched in parallel, so violations
+     * are delivered once all are found.
+     */
+    public void analyze(CycleRule rule, ProjectModel projectModel, RuleMembership membership,
+                        Executor executor, BooleanSupplier stop, ViolationSink sink) {
+        analyze(rule, projectModel, membership, executor, stop).forEach(sink::accept);
+    }
+
+    private List<Violation> analyzeClasses(CycleRule rule, ProjectModel projectModel, BitSet scope,
+                                           BooleanSupplier stop) {
+        List<Violation> violations = new ArrayList<>();
+        DependencyGraph graph = projectModel.getDependencyGraph();
+
+        List<int[]> components = findComponents(graph, scope);
+        if (components.isEmpty()) {
+            return violations;
+        }
+
+        int[] componentOf = new int[graph.nodeCount()];
+        Arrays.fill(componentOf, -1);
+        for (int c = 0; c < components.size(); c++) {
+            for (int node : components.get(c)) {
+                componentOf[node] = c;
             }
         }
-        
-        return cycles;
+
+        int[] parent = new int[graph.nodeCount()];
+        Arrays.fill(parent, -1);
+        for (int c = 0; c < components.size() && !stop.getAsBoolean(); c++) {
+            int[] component = components.get(c);
+            int[] cycle = shortestCycle(graph, component, componentOf, c, parent);
+            violations.add(createCycleViolation(rule, projectModel, graph, component, cycle));
+        }
+
+        return violations;
     }
-    
-    private Map<String, Node> buildDependencyGraph(ProjectModel projectModel) {
-        Map<String, Node> nodes = new HashMap<>();
-        
-        // Create nodes for all classes
+
+    private List<Violation> analyzePackages(CycleRule rule, ProjectModel projectModel, BitSet scope,
+                                            Executor executor, BooleanSupplier stop) {
+        List<Violation> violations = new ArrayList<>();
+        DependencyGraph graph = projectModel.getDependencyGraph();
+
+        // Dense package index per class; classes out of scope stay in group -1
+        Map<String, Integer> packageIndex = new HashMap<>();
+        List<String> packageNames = new ArrayList<>();
+        int[] packageOf = new int[graph.nodeCount()];
+        Arrays.fill(packageOf, -1);
         for (ProjectModel.ClassInfo classInfo : projectModel.getAllClasses()) {
-            Set<String> dependencies = new HashSet<>();
-            
-            // Add dependencies from imports
-            ProjectModel.PackageInfo packageInfo = projectModel.getPackage(classInfo.getPackageName());
-            if (packageInfo != null) {
-                dependencies.addAll(packageInfo.getImports());
+            if (!scope.get(classInfo.getId())) continue;
+
+            String packageName = classInfo.getPackageName() != null ? classInfo.getPackageName() : "";
+            packageOf[classInfo.getId()] = packageIndex.computeIfAbsent(packageName, name -> {
+                packageNames.add(name);
+                return packageNames.size() - 1;
+            });
+        }
+
+        DependencyGraph packageGraph = graph.condense(packageOf, packageNames.size());
+        BitSet allPackages = new BitSet(packageNames.size());
+        allPackages.set(0, packageNames.size());
+        List<int[]> components = findComponents(packageGraph, allPackages);
+        if (components.isEmpty()) {
+            return violations;
+        }
+
+        // One shared deadline; results are kept in component order whatever the completion order
+        long deadline = rule.getTimeBudgetMs() > 0
+            ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rule.getTimeBudgetMs())
+            : Long.MAX_VALUE;
+        List<CompletableFuture<ElementaryCycles.Result>> results = new ArrayList<>(components.size());
+        for (int[] component : components) {
+            results.add(CompletableFuture.supplyAsync(() -> stop.getAsBoolean() ? null
+                : ElementaryCycles.enumerate(packageGraph, component, rule.getMaxCycleLength(),
+                                             rule.getMaxCycles(), deadline), executor));
+        }
+
+        int[] classesByPackage = groupByPackage(packageOf, packageNames.size());
+        for (int c = 0; c < components.size(); c++) {
+            int[] component = components.get(c);
+            ElementaryCycles.Result result = results.get(c).join();
+            if (result == null) {
+                continue; // skipped once the run stopped
             }
-            
-            // Add dependencies from field types
-            for (ProjectModel.FieldInfo field : classInfo.getFields()) {
-                dependencies.add(field.getType());
+            if (result.cycles.isEmpty()) {
+                violations.add(createPackageTangleViolation(rule, projectModel, graph, packageNames, component,
+                                                            packageOf, classesByPackage, result.timedOut));
+                continue;
             }
-            
-            // Add dependencies from method return types and parameters
-            for (ProjectModel.MethodInfo method : classInfo.getMethods()) {
-                dependencies.add(method.getReturnType());
-                for (ProjectModel.ParameterInfo param : method.getParameters()) {
-                    dependencies.add(param.getType());
+            for (int[] cycle : result.cycles) {
+                violations.add(createPackageCycleViolation(rule, projectModel, graph, packageNames, component,
+                                                           cycle, packageOf, classesByPackage, result.timedOut));
+            }
+        }
+
+        return violations;
+    }
+
+    /**
+     * Lists class IDs grouped by package: the classes of package {@code p} are at indices
+     * {@code [offsets[p], offsets[p + 1])} of the returned array, past the {@code packageCount + 1}
+     * offsets at its start.
+     */
+    private static int[] groupByPackage(int[] packageOf, int packageCount) {
+        int classCount = 0;
+        int[] grouped = new int[packageCount + 1 + packageOf.length];
+        for (int p : packageOf) {
+            if (p >= 0) {
+                grouped[p + 1]++;
+                classCount++;
+            }
+        }
+        grouped[0] = packageCount + 1;
+        for (int p = 0; p < packageCount; p++) {
+            grouped[p + 1] += grouped[p];
+        }
+        int[] next = Arrays.copyOf(grouped, packageCount);
+        for (int node = 0; node < packageOf.length; node++) {
+            if (packageOf[node] >= 0) {
+                grouped[next[packageOf[node]]++] = node;
+            }
+        }
+        return Arrays.copyOf(grouped, packageCount + 1 + classCount);
+    }
+
+    /**
+     * Returns the class edge with the most references from package {@code from} to package
+     * {@code to}, as {@code {fromClass, edge}}.
+     */
+    private static int[] heaviestClassEdge(DependencyGraph graph, int[] packageOf, int[] classesByPackage,
+                                           int from, int to) {
+        int[] heaviest = {-1, -1};
+        for (int i = classesByPackage[from]; i < classesByPackage[from + 1]; i++) {
+            int node = classesByPackage[i];
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                if (packageOf[graph.target(edge)] == to
+                        && (heaviest[1] < 0 || graph.weight(edge) > graph.weight(heaviest[1]))) {
+                    heaviest[0] = node;
+                    heaviest[1] = edge;
                 }
             }
-            
-            // Filter to only include dependencies that are classes in our project
-            Set<String> filteredDeps = new HashSet<>();
-            for (String dep : dependencies) {
-                if (isProjectClass(dep, projectModel)) {
-                    filteredDeps.add(dep);
+        }
+        return heaviest;
+    }
+
+    public List<String> detectCycles(ProjectModel projectModel) {
+        projectModel.seal();
+        List<String> cycles = new ArrayList<>();
+        DependencyGraph graph = projectModel.getDependencyGraph();
+
+        BitSet all = new BitSet(graph.nodeCount());
+        all.set(0, graph.nodeCount());
+        for (int[] component : findComponents(graph, all)) {
+            cycles.add(formatCycle(projectModel, component));
+        }
+
+        return cycles;
+    }
+
+    /**
+     * Returns the strongly connected components with more than one node of the subgraph induced
+     * by {@code scope}, each sorted by node, in the order Tarjan's algorithm completes them.
+     */
+    static List<int[]> findComponents(DependencyGraph graph, BitSet scope) {
+        List<int[]> components = new ArrayList<>();
+        int nodeCount = graph.nodeCount();
+        int[] index = new int[nodeCount];
+        int[] lowLink = new int[nodeCount];
+        int[] cursor = new int[nodeCount];
+        boolean[] onStack = new boolean[nodeCount];
+        int[] stack = new int[nodeCount];
+        int[] callStack = new int[nodeCount];
+        Arrays.fill(index, -1);
+        int counter = 0;
+        int stackSize = 0;
+
+        for (int root = scope.nextSetBit(0); root >= 0 && root < nodeCount; root = scope.nextSetBit(root + 1)) {
+            if (index[root] >= 0) continue;
+
+            int depth = 0;
+            callStack[depth++] = root;
+            index[root] = lowLink[root] = counter++;
+            cursor[root] = graph.outStart(root);
+            stack[stackSize++] = root;
+            onStack[root] = true;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (cursor[node] < graph.outEnd(node)) {
+                    int dep = graph.target(cursor[node]++);
+                    if (!scope.get(dep)) continue;
+
+                    if (index[dep] < 0) {
+                        // Descend into the dependency
+                        callStack[depth++] = dep;
+                        index[dep] = lowLink[dep] = counter++;
+                        cursor[dep] = graph.outStart(dep);
+                        stack[stackSize++] = dep;
+                        onStack[dep] = true;
+                    } else if (onStack[dep]) {
+                        lowLink[node] = Math.min(lowLink[node], index[dep]);
+                    }
+                    continue;
+                }
+
+                // All dependencies visited: close the component rooted here, then return
+                depth--;
+                if (lowLink[node] == index[node]) {
+                    int start = stackSize;
+                    do {
+                        start--;
+                        onStack[stack[start]] = false;
+                    } while (stack[start] != node);
+
+                    if (stackSize - start > 1) {
+                        int[] component = Arrays.copyOfRange(stack, start, stackSize);
+                        Arrays.sort(component);
+                        components.add(component);
+                    }
+                    stackSize = start;
+                }
+                if (depth > 0) {
+                    int caller = callStack[depth - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
                 }
             }
-            
-            nodes.put(classInfo.getFullName(), new Node(classInfo.getFullName(), filteredDeps));
-        }
-        
-        return nodes;
-    }
-    
-    private boolean isProjectClass(String className, ProjectModel projectModel) {
-        // Check if this is a class we're analyzing
-        return projectModel.getAllClasses().stream()
-            .anyMatch(c -> c.getFullName().equals(className) || 
-                          className.startsWith(c.getFullName() + "."));
-    }
-    
-    private int strongConnect(Node node, Map<String, Node> nodes, int index, 
-                            Stack<Node> stack, List<String> cycles) {
-        node.index = index;
-        node.lowLink = index;
-        index++;
-        stack.push(node);
-        node.onStack = true;
-        
-        for (String depName : node.dependencies) {
-            Node depNode = nodes.get(depName);
-            if (depNode != null) {
-                if (depNode.index == -1) {
-                    index = strongConnect(depNode, nodes, index, stack, cycles);
-                    node.lowLink = Math.min(node.lowLink, depNode.lowLink);
-                } else if (depNode.onStack) {
-                    node.lowLink = Math.min(node.lowLink, depNode.index);
+        }
+
+        return components;
+    }
+
+    /**
+     * Finds a shortest cycle through the component's first node by breadth-first search inside
+     * the component. {@code parent} must be all -1 and is restored before returning. The cycle
+     * starts and ends with the first node.
+     */
+    private static int[] shortestCycle(DependencyGraph graph, int[] component, int[] componentOf,
+                                       int componentId, int[] parent) {
+        int root = component[0];
+        int[] queue = new int[component.length];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        int last = -1;
+
+        search:
+        while (head < tail) {
+            int node = queue[head++];
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                int dep = graph.target(edge);
+                if (dep == root) {
+                    last = node;
+                    break search;
+                }
+                if (componentOf[dep] == componentId && parent[dep] < 0) {
+                    parent[dep] = node;
+                    queue[tail++] = dep;
                 }
             }
         }
-        
-        if (node.lowLink == node.index) {
-            List<Node> scc = new ArrayList<>();
-            Node w;
-            do {
-                w = stack.pop();
-                w.onStack = false;
-                scc.add(w);
-            } while (w != node);
-            
-            // If SCC has more than one node, it's a cycle
-            if (scc.size() > 1) {
-                cycles.add(formatCycle(scc));
+
+        // Every node of a strongly connected component lies on a cycle through the root
+        int length = 1;
+        for (int node = last; node != root; node = parent[node]) {
+            length++;
+        }
+        int[] cycle = new int[length + 1];
+        cycle[0] = root;
+        cycle[length] = root;
+        for (int node = last, i = length - 1; node != root; node = parent[node], i--) {
+            cycle[i] = node;
+        }
+
+        for (int i = 1; i < tail; i++) {
+            parent[queue[i]] = -1;
+        }
+        return cycle;
+    }
+
+    private Violation createCycleViolation(CycleRule rule, ProjectModel projectModel, DependencyGraph graph,
+                                           int[] component, int[] cycle) {
+        ProjectModel.ClassInfo first = projectModel.getClassById(cycle[0]);
+        Location location = new Location(
+            java.nio.file.Path.of(first.getSourceFile()),
+            Math.max(graph.line(graph.findEdge(cycle[0], cycle[1])), 1), // Line of the first reference, if known
+            first.getFullName(),
+            first.getPackageName()
+        );
+
+        StringJoiner path = new StringJoiner(" -> ");
+        for (int node : cycle) {
+            path.add(projectModel.getClassById(node).getFullName());
+        }
+        String message = String.format("Dependency cycle among %d classes: %s. %s",
+                                     component.length, path, rule.getMessage());
+
+        return new Violation(
+            rule.getId(),
+            message,
+            rule.getSeverity(),
+            location
+        );
+    }
+
+    private Violation createPackageCycleViolation(CycleRule rule, ProjectModel projectModel, DependencyGraph graph,
+                                                  List<String> packageNames, int[] component, int[] cycle,
+                                                  int[] packageOf, int[] classesByPackage, boolean timedOut) {
+        StringJoiner path = new StringJoiner(" -> ");
+        StringJoiner via = new StringJoiner("; ");
+        int[] first = null;
+        for (int i = 0; i < cycle.length; i++) {
+            int from = cycle[i];
+            int to = cycle[(i + 1) % cycle.length];
+            int[] heaviest = heaviestClassEdge(graph, packageOf, classesByPackage, from, to);
+            if (first == null) {
+                first = heaviest;
             }
+            path.add(packageNames.get(from));
+            via.add(projectModel.getClassById(heaviest[0]).getFullName() + " -> "
+                    + projectModel.getClassById(graph.target(heaviest[1])).getFullName());
         }
-        
-        return index;
+        path.add(packageNames.get(cycle[0]));
+
+        ProjectModel.ClassInfo fromClass = projectModel.getClassById(first[0]);
+        Location location = new Location(
+            java.nio.file.Path.of(fromClass.getSourceFile()),
+            Math.max(graph.line(first[1]), 1), // Line of the first reference, if known
+            fromClass.getFullName(),
+            fromClass.getPackageName()
+        );
+
+        String message = String.format("Package cycle in a group of %d packages: %s (via %s).%s %s",
+                                     component.length, path, via,
+                                     timedOut ? " Cycle enumeration stopped at the time budget." : "",
+                                     rule.getMessage());
+
+        return new Violation(
+            rule.getId(),
+            message,
+            rule.getSeverity(),
+            location
+        );
     }
-    
-    private String formatCycle(List<Node> cycle) {
+
+    private Violation createPackageTangleViolation(CycleRule rule, ProjectModel projectModel, DependencyGraph graph,
+                                                   List<String> packageNames, int[] component, int[] packageOf,
+                                                   int[] classesByPackage, boolean timedOut) {
+        StringJoiner packages = new StringJoiner(", ");
+        for (int p : component) {
+            packages.add(packageNames.get(p));
+        }
+
+        // Report at some class edge inside the group
+        int[] edge = null;
+        for (int i = 1; edge == null || edge[1] < 0; i++) {
+            edge = heaviestClassEdge(graph, packageOf, classesByPackage, component[0], component[i]);
+        }
+        ProjectModel.ClassInfo fromClass = projectModel.getClassById(edge[0]);
+        Location location = new Location(
+            java.nio.file.Path.of(fromClass.getSourceFile()),
+            Math.max(graph.line(edge[1]), 1),
+            fromClass.getFullName(),
+            fromClass.getPackageName()
+        );
+
+        String reason = timedOut
+            ? "cycle enumeration stopped at the time budget"
+            : String.format("no cycle of at most %d packages", rule.getMaxCycleLength());
+        String message = String.format("Package cycle among %d packages (%s): %s. %s",
+                                     component.length, reason, packages, rule.getMessage());
+
+        return new Violation(
+            rule.getId(),
+            message,
+            rule.getSeverity(),
+            location
+        );
+    }
+
+    private String formatCycle(ProjectModel projectModel, int[] component) {
         StringBuilder sb = new StringBuilder("Dependency cycle detected: ");
-        for (int i = 0; i < cycle.size(); i++) {
+        for (int i = 0; i < component.length; i++) {
             if (i > 0) sb.append(" -> ");
-            sb.append(cycle.get(i).className);
+            sb.append(projectModel.getClassById(component[i]).getFullName());
         }
-        sb.append(" -> ").append(cycle.get(0).className);
+        sb.append(" -> ").append(projectModel.getClassById(component[0]).getFullName());
         return sb.toString();
     }
 }
@@ -1,15 +1,17 @@
 package io.jtrace.core.analysis;
 
+import io.jtrace.core.importer.DependencyGraph;
 import io.jtrace.core.importer.ProjectModel;
 import io.jtrace.core.model.ForbiddenDependencyRule;
 import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
 import io.jtrace.core.model.Location;
 import io.jtrace.core.match.PatternMatcher;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Analyzes dependencies to detect forbidden relationships.
@@ -22,87 +24,76 @@ public class DependencyAnalyzer {
         this.patternMatcher = patternMatcher;
     }
     
+    /**
+     * Reports every dependency edge from a class matching the rule's {@code from} pattern to a
+     * class matching its {@code to} pattern. Each matching class's outgoing edges are walked once,
+     * so the cost grows with the number of edges rather than with the product of the two class
+     * sets.
+     */
     public List<Violation> analyze(ForbiddenDependencyRule rule, ProjectModel projectModel) {
-        List<Violation> violations = new ArrayList<>();
-        
-        // Find all classes matching the 'from' pattern
-        List<ProjectModel.ClassInfo> fromClasses = findClassesMatchingPattern(
-            rule.getFromPattern(), projectModel);
-        
-        // Find all classes matching the 'to' pattern
-        List<ProjectModel.ClassInfo> toClasses = findClassesMatchingPattern(
-            rule.getToPattern(), projectModel);
-        
-        // Check for dependencies between them
-        for (ProjectModel.ClassInfo fromClass : fromClasses) {
-            for (ProjectModel.ClassInfo toClass : toClasses) {
-                if (hasDependency(fromClass, toClass, projectModel)) {
-                    violations.add(createViolation(rule, fromClass, toClass));
-                }
-            }
-        }
-        
-        return violations;
+        return analyze(rule, projectModel, new RuleMembership(List.of(rule), patternMatcher, projectModel));
     }
     
-    private List<ProjectModel.ClassInfo> findClassesMatchingPattern(String pattern, ProjectModel projectModel) {
-        return projectModel.getAllClasses().stream()
-            .filter(classInfo -> patternMatcher.matches(pattern, classInfo.getFullName()))
-            .collect(Collectors.toList());
+    /**
+     * Like {@link #analyze(ForbiddenDependencyRule, ProjectModel)}, taking the classes matching
+     * the rule's patterns from a membership table that includes the rule.
+     */
+    public List<Violation> analyze(ForbiddenDependencyRule rule, ProjectModel projectModel,
+                                   RuleMembership membership) {
+        List<Violation> violations = new ArrayList<>();
+        analyze(rule, projectModel, membership, violations::add);
+        return violations;
     }
     
-    private boolean hasDependency(ProjectModel.ClassInfo fromClass, ProjectModel.ClassInfo toClass, 
-                                 ProjectModel projectModel) {
-        // Check if fromClass imports toClass
-        ProjectModel.PackageInfo fromPackage = projectModel.getPackage(fromClass.getPackageName());
-        if (fromPackage != null) {
-            // Check if the simple class name is imported
-            String simpleClassName = toClass.getName();
-            if (fromPackage.getImports().contains(simpleClassName)) {
-                return true;
-            }
-            
-            // Check if the full class name is imported
-            if (fromPackage.getImports().contains(toClass.getFullName())) {
-                return true;
-            }
+    /**
+     * Like {@link #analyze(ForbiddenDependencyRule, ProjectModel, RuleMembership)}, delivering
+     * each violation to the sink as it is found.
+     */
+    public void analyze(ForbiddenDependencyRule rule, ProjectModel projectModel, RuleMembership membership,
+                        ViolationSink sink) {
+        BitSet fromClasses = membership.getFromClasses(rule);
+        if (membership.getToClasses(rule).isEmpty()) {
+            return;
         }
         
-        // Check if fromClass uses toClass in field types
-        for (ProjectModel.FieldInfo field : fromClass.getFields()) {
-            if (field.getType().equals(toClass.getFullName()) || 
-                field.getType().startsWith(toClass.getFullName() + ".") ||
-                field.getType().equals(toClass.getName())) {
-                return true;
-            }
+        // Check the dependencies of all classes matching the 'from' pattern
+        for (int from = fromClasses.nextSetBit(0); from >= 0; from = fromClasses.nextSetBit(from + 1)) {
+            analyzeClass(rule, projectModel, membership, from, sink);
         }
-        
-        // Check if fromClass uses toClass in method return types or parameters
-        for (ProjectModel.MethodInfo method : fromClass.getMethods()) {
-            if (method.getReturnType().equals(toClass.getFullName()) || 
-                method.getReturnType().startsWith(toClass.getFullName() + ".") ||
-                method.getReturnType().equals(toClass.getName())) {
-                return true;
-            }
-            
-            for (ProjectModel.ParameterInfo param : method.getParameters()) {
-                if (param.getType().equals(toClass.getFullName()) || 
-                    param.getType().startsWith(toClass.getFullName() + ".") ||
-                    param.getType().equals(toClass.getName())) {
-                    return true;
-                }
-            }
+    }
+    
+    /**
+     * Checks the dependencies of one class matching the rule's {@code from} pattern.
+     */
+    public void analyzeClass(ForbiddenDependencyRule rule, ProjectModel projectModel, RuleMembership membership,
+                             int from, ViolationSink sink) {
+        DependencyGraph graph = projectModel.getDependencyGraph();
+        for (int edge = graph.outStart(from); edge < graph.outEnd(from); edge++) {
+            analyzeEdge(rule, projectModel, membership, from, edge, sink);
+        }
+    }
+    
+    /**
+     * Checks one dependency edge of a class matching the rule's {@code from} pattern, for
+     * evaluating many rules in a single pass over the model.
+     */
+    public void analyzeEdge(ForbiddenDependencyRule rule, ProjectModel projectModel, RuleMembership membership,
+                            int from, int edge, ViolationSink sink) {
+        DependencyGraph graph = projectModel.getDependencyGraph();
+        if (membership.getToClasses(rule).get(graph.target(edge))) {
+            ProjectModel.ClassInfo fromClass = projectModel.getClassById(from);
+            ProjectModel.ClassInfo toClass = projectModel.getClassById(graph.target(edge));
+            sink.accept(createViolation(rule, fromClass, toClass, graph.line(edge)));
         }
-        
-        return false;
     }
     
     private Violation createViolation(ForbiddenDependencyRule rule, ProjectModel.ClassInfo fromClass, 
-                                     ProjectModel.ClassInfo toClass) {
+                                     ProjectModel.ClassInfo toClass, int line) {
         Location location = new Location(
             java.nio.file.Path.of(fromClass.getSourceFile()),
-            1, // Default line number
-            fromClass.getFullName()
+            Math.max(line, 1), // Line of the first reference, if known
+            fromClass.getFullName(),
+            fromClass.getPackageName()
         );
         
         return new Violation(
@@ -0,0 +1,182 @@
+package io.jtrace.core.analysis;
+
+import io.jtrace.core.importer.DependencyGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Enumerates the elementary cycles of one strongly connected component, shortest first, within
+ * caps on cycle count and length and a deadline.
+ *
+ * <p>Cycles are rooted as in Johnson's algorithm: each cycle is found exactly once, from its lowest
+ * node, by a search restricted to higher nodes. Johnson's blocking sets are not sound once the
+ * cycle length is bounded, so the search is pruned instead by each node's distance back to the
+ * root. Lengths are searched in increasing order, so the caps keep the shortest cycles.
+ */
+final class ElementaryCycles {
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+    private static final int MAX_CACHED_COMPONENT = 1024;
+
+    private final int[] nodes;
+    private final int[][] successors;
+    private final int[][] predecessors;
+    private final int[][] distances;
+    private final int maxCycles;
+    private final long deadline;
+    private final List<int[]> cycles = new ArrayList<>();
+    private final int[] path;
+    private final boolean[] onPath;
+    private int steps;
+    private boolean timedOut;
+
+    private ElementaryCycles(DependencyGraph graph, int[] component, int maxLength, int maxCycles,
+                             long deadline) {
+        this.nodes = component;
+        this.maxCycles = maxCycles;
+        this.deadline = deadline;
+        this.path = new int[maxLength];
+        this.onPath = new boolean[component.length];
+        this.distances = component.length <= MAX_CACHED_COMPONENT ? new int[component.length][] : null;
+
+        // Adjacency inside the component, on local indices in component order
+        int size = component.length;
+        List<List<Integer>> reverse = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            reverse.add(new ArrayList<>());
+        }
+        successors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            int node = component[i];
+            int[] local = new int[graph.outDegree(node)];
+            int count = 0;
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                int j = Arrays.binarySearch(component, graph.target(edge));
+                if (j >= 0) {
+                    local[count++] = j;
+                    reverse.get(j).add(i);
+                }
+            }
+            successors[i] = Arrays.copyOf(local, count);
+        }
+        predecessors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            predecessors[i] = reverse.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Enumerates up to {@code maxCycles} elementary cycles of at most {@code maxLength} nodes of
+     * the given component, whose nodes must be sorted. The search stops early once
+     * {@link System#nanoTime()} passes {@code deadline}.
+     */
+    static Result enumerate(DependencyGraph graph, int[] component, int maxLength, int maxCycles,
+                            long deadline) {
+        ElementaryCycles search = new ElementaryCycles(graph, component, maxLength, maxCycles, deadline);
+        search.run(maxLength);
+        return new Result(search.cycles, search.timedOut);
+    }
+
+    private void run(int maxLength) {
+        for (int length = 2; length <= maxLength; length++) {
+            for (int root = 0; root + length <= nodes.length; root++) {
+                int[] distance = distancesTo(root);
+                path[0] = root;
+                onPath[root] = true;
+                boolean done = extend(root, root, 1, length, distance);
+                onPath[root] = false;
+                if (done) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Extends the path ending at {@code node} towards a cycle of exactly {@code length} nodes.
+     * Returns true once enumeration must stop.
+     */
+    private boolean extend(int root, int node, int depth, int length, int[] distance) {
+        if (++steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+            timedOut = true;
+            return true;
+        }
+
+        for (int next : successors[node]) {
+            if (next == root) {
+                if (depth == length) {
+                    int[] cycle = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        cycle[i] = nodes[path[i]];
+                    }
+                    cycles.add(cycle);
+                    if (cycles.size() == maxCycles) {
+                        return true;
+                    }
+                }
+                continue;
+            }
+            if (next < root || onPath[next] || depth == length
+                    || distance[next] == UNREACHABLE || depth + distance[next] > length) {
+                continue;
+            }
+
+            path[depth] = next;
+            onPath[next] = true;
+            boolean done = extend(root, next, depth + 1, length, distance);
+            onPath[next] = false;
+            if (done) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns, for every local node, the number of edges on a shortest path back to
+     * {@code root} through nodes not lower than the root. Distances are cached per root unless
+     * the component is too large to keep them all.
+     */
+    private int[] distancesTo(int root) {
+        if (distances != null && distances[root] != null) {
+            return distances[root];
+        }
+
+        int[] distance = new int[nodes.length];
+        Arrays.fill(distance, UNREACHABLE);
+        int[] queue = new int[nodes.length];
+        int head = 0;
+        int tail = 0;
+        distance[root] = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int previous : predecessors[node]) {
+                if (previous > root && distance[previous] == UNREACHABLE) {
+                    distance[previous] = distance[node] + 1;
+                    queue[tail++] = previous;
+                }
+            }
+        }
+
+        if (distances != null) {
+            distances[root] = distance;
+        }
+        return distance;
+    }
+
+    /**
+     * The cycles found, each listing its nodes once starting with its lowest node, and whether
+     * the deadline cut the enumeration short.
+     */
+    static final class Result {
+        final List<int[]> cycles;
+        final boolean timedOut;
+
+        Result(List<int[]> cycles, boolean timedOut) {
+            this.cycles = cycles;
+            this.timedOut = timedOut;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package io.jtrace.core.analysis;
 
+import io.jtrace.core.importer.DependencyGraph;
 import io.jtrace.core.importer.ProjectModel;
 import io.jtrace.core.model.LayeringRule;
 import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
 import io.jtrace.core.model.Location;
 import io.jtrace.core.match.PatternMatcher;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Analyzes architectural layering constraints.
@@ -21,118 +22,65 @@ public class LayeringAnalyzer {
     }
     
     public List<Violation> analyze(LayeringRule rule, ProjectModel projectModel) {
-        List<Violation> violations = new ArrayList<>();
-        
-        // Map packages to layers
-        Map<String, String> packageToLayer = buildPackageToLayerMap(rule);
-        
-        // Check allowed dependencies between layers
-        violations.addAll(checkLayerDependencies(rule, projectModel, packageToLayer));
-        
-        // Check for cycles if forbidden
-        if (rule.isForbidCycles()) {
-            violations.addAll(checkForCycles(rule, projectModel, packageToLayer));
-        }
-        
-        return violations;
+        return analyze(rule, projectModel, new RuleMembership(List.of(rule), patternMatcher, projectModel));
     }
     
-    private Map<String, String> buildPackageToLayerMap(LayeringRule rule) {
-        Map<String, String> packageToLayer = new HashMap<>();
-        
-        for (LayeringRule.Layer layer : rule.getLayers()) {
-            for (String packagePattern : layer.getPackages()) {
-                // For now, we'll use the pattern as the key
-                // In a more sophisticated implementation, we'd resolve all matching packages
-                packageToLayer.put(packagePattern, layer.getName());
-            }
-        }
-        
-        return packageToLayer;
-    }
-    
-    private List<Violation> checkLayerDependencies(LayeringRule rule, ProjectModel projectModel, 
-                                                  Map<String, String> packageToLayer) {
+    /**
+     * Like {@link #analyze(LayeringRule, ProjectModel)}, taking each class's layer from a
+     * membership table that includes the rule.
+     */
+    public List<Violation> analyze(LayeringRule rule, ProjectModel projectModel, RuleMembership membership) {
         List<Violation> violations = new ArrayList<>();
-        
-        // Build allowed dependency matrix
-        Set<String> allowedDeps = rule.getAllowedDependencies().stream()
-            .map(dep -> dep.getFrom() + "->" + dep.getTo())
-            .collect(Collectors.toSet());
-        
-        // Check all class dependencies
-        for (ProjectModel.ClassInfo fromClass : projectModel.getAllClasses()) {
-            String fromLayer = findLayerForClass(fromClass, packageToLayer);
-            if (fromLayer == null) continue;
-            
-            // Check dependencies from this class
-            for (ProjectModel.ClassInfo toClass : projectModel.getAllClasses()) {
-                if (fromClass.equals(toClass)) continue;
-                
-                if (hasDependency(fromClass, toClass, projectModel)) {
-                    String toLayer = findLayerForClass(toClass, packageToLayer);
-                    if (toLayer == null) continue;
-                    
-                    // Check if this dependency is allowed
-                    String dependencyKey = fromLayer + "->" + toLayer;
-                    if (!allowedDeps.contains(dependencyKey)) {
-                        violations.add(createLayeringViolation(rule, fromClass, toClass, fromLayer, toLayer));
-                    }
-                }
-            }
-        }
-        
+        analyze(rule, projectModel, membership, violations::add);
         return violations;
     }
     
-    private String findLayerForClass(ProjectModel.ClassInfo classInfo, Map<String, String> packageToLayer) {
-        String packageName = classInfo.getPackageName();
-        
-        for (Map.Entry<String, String> entry : packageToLayer.entrySet()) {
-            if (patternMatcher.matches(entry.getKey(), packageName)) {
-                return entry.getValue();
-            }
+    /**
+     * Like {@link #analyze(LayeringRule, ProjectModel, RuleMembership)}, delivering each violation
+     * to the sink as it is found.
+     */
+    public void analyze(LayeringRule rule, ProjectModel projectModel, RuleMembership membership,
+                        ViolationSink sink) {
+        LayerCheck check = start(rule, projectModel, membership);
+        for (int from = 0; from < projectModel.getClassCount(); from++) {
+            check.analyzeClass(from, sink);
         }
-        
-        return null;
+        check.finish(sink);
     }
     
-    private boolean hasDependency(ProjectModel.ClassInfo fromClass, ProjectModel.ClassInfo toClass, 
-                                 ProjectModel projectModel) {
-        // Check if fromClass imports toClass
-        ProjectModel.PackageInfo fromPackage = projectModel.getPackage(fromClass.getPackageName());
-        if (fromPackage != null && fromPackage.getImports().contains(toClass.getFullName())) {
-            return true;
-        }
-        
-        // Check if fromClass uses toClass in field types
-        for (ProjectModel.FieldInfo field : fromClass.getFields()) {
-            if (field.getType().equals(toClass.getFullName()) || 
-                field.getType().startsWith(toClass.getFullName() + ".")) {
-                return true;
-            }
+    /**
+     * Starts an incremental check of the rule, for evaluating many rules in a single pass over
+     * the model. The caller visits every class once with {@link LayerCheck#analyzeClass}, in
+     * class ID order, and then calls {@link LayerCheck#finish}.
+     */
+    public LayerCheck start(LayeringRule rule, ProjectModel projectModel, RuleMembership membership) {
+        return new LayerCheck(rule, projectModel, membership.getClassLayers(rule));
+    }
+    
+    /**
+     * Builds the layer-by-layer matrix of allowed dependencies. Allowed dependencies naming an
+     * unknown layer are ignored.
+     */
+    private boolean[][] buildAllowedMatrix(LayeringRule rule) {
+        List<LayeringRule.Layer> layers = rule.getLayers();
+        Map<String, Integer> layerIndex = new HashMap<>();
+        for (int layer = 0; layer < layers.size(); layer++) {
+            layerIndex.putIfAbsent(layers.get(layer).getName(), layer);
         }
         
-        // Check if fromClass uses toClass in method return types or parameters
-        for (ProjectModel.MethodInfo method : fromClass.getMethods()) {
-            if (method.getReturnType().equals(toClass.getFullName()) || 
-                method.getReturnType().startsWith(toClass.getFullName() + ".")) {
-                return true;
-            }
-            
-            for (ProjectModel.ParameterInfo param : method.getParameters()) {
-                if (param.getType().equals(toClass.getFullName()) || 
-                    param.getType().startsWith(toClass.getFullName() + ".")) {
-                    return true;
-                }
+        boolean[][] allowed = new boolean[layers.size()][layers.size()];
+        for (LayeringRule.AllowedDependency dep : rule.getAllowedDependencies()) {
+            Integer from = layerIndex.get(dep.getFrom());
+            Integer to = layerIndex.get(dep.getTo());
+            if (from != null && to != null) {
+                allowed[from][to] = true;
             }
         }
         
-        return false;
+        return allowed;
     }
     
-    private List<Violation> checkForCycles(LayeringRule rule, ProjectModel projectModel, 
-                                          Map<String, String> packageToLayer) {
+    private List<Violation> checkForCycles(LayeringRule rule) {
         List<Violation> violations = new ArrayList<>();
         
         // Build dependency graph for layers
@@ -158,6 +106,65 @@ public class LayeringAnalyzer {
         return violations;
     }
     
+    /**
+     * Returns the strongly connected components of the layer graph, each sorted by layer index,
+     * in the order Tarjan's algorithm completes them.
+     */
+    private List<int[]> layerComponents(long[] references, int layerCount) {
+        List<int[]> components = new ArrayList<>();
+        int[] index = new int[layerCount];
+        int[] lowLink = new int[layerCount];
+        boolean[] onStack = new boolean[layerCount];
+        Deque<Integer> stack = new ArrayDeque<>();
+        Arrays.fill(index, -1);
+        int[] counter = {0};
+        
+        for (int layer = 0; layer < layerCount; layer++) {
+            if (index[layer] < 0) {
+                strongConnect(layer, references, layerCount, index, lowLink, onStack, stack, counter,
+                              components);
+            }
+        }
+        
+        return components;
+    }
+    
+    private void strongConnect(int layer, long[] references, int layerCount, int[] index, int[] lowLink,
+                               boolean[] onStack, Deque<Integer> stack, int[] counter,
+                               List<int[]> components) {
+        index[layer] = counter[0];
+        lowLink[layer] = counter[0];
+        counter[0]++;
+        stack.push(layer);
+        onStack[layer] = true;
+        
+        // The layer count is the recursion bound, and layers are few
+        for (int dep = 0; dep < layerCount; dep++) {
+            if (references[layer * layerCount + dep] == 0) continue;
+            
+            if (index[dep] < 0) {
+                strongConnect(dep, references, layerCount, index, lowLink, onStack, stack, counter,
+                              components);
+                lowLink[layer] = Math.min(lowLink[layer], lowLink[dep]);
+            } else if (onStack[dep]) {
+                lowLink[layer] = Math.min(lowLink[layer], index[dep]);
+            }
+        }
+        
+        if (lowLink[layer] == index[layer]) {
+            List<Integer> members = new ArrayList<>();
+            int member;
+            do {
+                member = stack.pop();
+                onStack[member] = false;
+                members.add(member);
+            } while (member != layer);
+            
+            int[] component = members.stream().mapToInt(Integer::intValue).sorted().toArray();
+            components.add(component);
+        }
+    }
+    
     private boolean hasCycle(String layer, Map<String, Set<String>> layerDependencies, 
                             Set<String> visited, Set<String> recursionStack) {
         visited.add(layer);
@@ -181,11 +188,13 @@ public class LayeringAnalyzer {
     }
     
     private Violation createLayeringViolation(LayeringRule rule, ProjectModel.ClassInfo fromClass, 
-                                             ProjectModel.ClassInfo toClass, String fromLayer, String toLayer) {
+                                             ProjectModel.ClassInfo toClass, String fromLayer, String toLayer,
+                                             int line) {
         Location location = new Location(
             java.nio.file.Path.of(fromClass.getSourceFile()),
-            1, // Default line number
-            fromClass.getFullName()
+            Math.max(line, 1), // Line of the first reference, if known
+            fromClass.getFullName(),
+            fromClass.getPackageName()
         );
         
         String message = String.format("Layering violation: %s layer (%s) cannot depend on %s layer (%s). %s", 
@@ -200,6 +209,53 @@ public class LayeringAnalyzer {
         );
     }
     
+    private Violation createCodeCycleViolation(LayeringRule rule, ProjectModel projectModel,
+                                               DependencyGraph graph, int[] component, long[] references,
+                                               int[] heaviestFrom, int[] heaviestEdge) {
+        List<LayeringRule.Layer> layers = rule.getLayers();
+        int layerCount = layers.size();
+        
+        StringJoiner layerNames = new StringJoiner(", ");
+        StringJoiner edges = new StringJoiner("; ");
+        int heaviestCell = -1;
+        for (int fromLayer : component) {
+            layerNames.add(layers.get(fromLayer).getName());
+            for (int toLayer : component) {
+                int cell = fromLayer * layerCount + toLayer;
+                if (references[cell] == 0) continue;
+                
+                int edge = heaviestEdge[cell];
+                edges.add(String.format("%s -> %s (%d references, most from %s -> %s)",
+                                        layers.get(fromLayer).getName(), layers.get(toLayer).getName(),
+                                        references[cell],
+                                        projectModel.getClassById(heaviestFrom[cell]).getFullName(),
+                                        projectModel.getClassById(graph.target(edge)).getFullName()));
+                if (heaviestCell < 0 || graph.weight(edge) > graph.weight(heaviestEdge[heaviestCell])) {
+                    heaviestCell = cell;
+                }
+            }
+        }
+        
+        // Report at the heaviest class edge of the cycle
+        ProjectModel.ClassInfo fromClass = projectModel.getClassById(heaviestFrom[heaviestCell]);
+        Location location = new Location(
+            java.nio.file.Path.of(fromClass.getSourceFile()),
+            Math.max(graph.line(heaviestEdge[heaviestCell]), 1),
+            fromClass.getFullName(),
+            fromClass.getPackageName()
+        );
+        
+        String message = String.format("Layer cycle detected in code between %s: %s. %s",
+                                     layerNames, edges, rule.getMessage());
+        
+        return new Violation(
+            rule.getId(),
+            message,
+            rule.getSeverity(),
+            location
+        );
+    }
+    
     private Violation createCycleViolation(LayeringRule rule) {
         Location location = new Location(
             java.nio.file.Path.of(""), // No specific file
@@ -214,4 +270,123 @@ public class LayeringAnalyzer {
             location
         );
     }
+    
+    /**
+     * The state of checking one layering rule: the allowed layer matrix and, when cycles are
+     * forbidden, the layer graph condensed from the class edges seen so far. For every layer pair
+     * the condensed graph keeps the number of references and the class edge with the most.
+     */
+    public final class LayerCheck {
+        private final LayeringRule rule;
+        private final ProjectModel projectModel;
+        private final DependencyGraph graph;
+        private final int[] classLayers;
+        private final boolean[][] allowed;
+        private final int layerCount;
+        private final long[] references;
+        private final int[] heaviestFrom;
+        private final int[] heaviestEdge;
+        
+        private LayerCheck(LayeringRule rule, ProjectModel projectModel, int[] classLayers) {
+            this.rule = rule;
+            this.projectModel = projectModel;
+            this.graph = projectModel.getDependencyGraph();
+            this.classLayers = classLayers;
+            this.allowed = buildAllowedMatrix(rule);
+            this.layerCount = rule.getLayers().size();
+            
+            // Layer graph as an adjacency matrix indexed by from * layerCount + to
+            boolean condense = rule.isForbidCycles() && layerCount >= 2;
+            this.references = condense ? new long[layerCount * layerCount] : null;
+            this.heaviestFrom = condense ? new int[layerCount * layerCount] : null;
+            this.heaviestEdge = condense ? new int[layerCount * layerCount] : null;
+            if (condense) {
+                Arrays.fill(heaviestEdge, -1);
+            }
+        }
+        
+        public LayeringRule getRule() {
+            return rule;
+        }
+        
+        /**
+         * Whether the class with the given ID belongs to a layer, so its edges need checking.
+         */
+        public boolean isLayered(int classId) {
+            return classLayers[classId] >= 0;
+        }
+        
+        /**
+         * Checks every dependency edge from the given class to a class that belongs to a layer.
+         */
+        public void analyzeClass(int from, ViolationSink sink) {
+            if (!isLayered(from)) return;
+            
+            for (int edge = graph.outStart(from); edge < graph.outEnd(from); edge++) {
+                analyzeEdge(from, edge, sink);
+            }
+        }
+        
+        /**
+         * Checks one dependency edge of a layered class. Edges must be visited in class ID order
+         * and, within a class, in edge order.
+         */
+        public void analyzeEdge(int from, int edge, ViolationSink sink) {
+            int fromLayer = classLayers[from];
+            int toLayer = classLayers[graph.target(edge)];
+            if (toLayer < 0) return;
+            
+            if (!allowed[fromLayer][toLayer]) {
+                List<LayeringRule.Layer> layers = rule.getLayers();
+                sink.accept(createLayeringViolation(rule, projectModel.getClassById(from),
+                                                       projectModel.getClassById(graph.target(edge)),
+                                                       layers.get(fromLayer).getName(),
+                                                       layers.get(toLayer).getName(), graph.line(edge)));
+            }
+            if (references != null && toLayer != fromLayer) {
+                int cell = fromLayer * layerCount + toLayer;
+                references[cell] += graph.weight(edge);
+                if (heaviestEdge[cell] < 0 || graph.weight(edge) > graph.weight(heaviestEdge[cell])) {
+                    heaviestFrom[cell] = from;
+                    heaviestEdge[cell] = edge;
+                }
+            }
+        }
+        
+        /**
+         * Adds the condensed layer graph of a check of the same rule over classes that all come
+         * after the classes this check has seen, as if this check had visited them itself.
+         */
+        public void merge(LayerCheck later) {
+            if (references == null) return;
+            
+            for (int cell = 0; cell < references.length; cell++) {
+                references[cell] += later.references[cell];
+                if (later.heaviestEdge[cell] >= 0 && (heaviestEdge[cell] < 0
+                        || graph.weight(later.heaviestEdge[cell]) > graph.weight(heaviestEdge[cell]))) {
+                    heaviestFrom[cell] = later.heaviestFrom[cell];
+                    heaviestEdge[cell] = later.heaviestEdge[cell];
+                }
+            }
+        }
+        
+        /**
+         * Reports cycles, if forbidden, both in the declared and in the actual layer dependencies.
+         * Every strongly connected group of layers in the condensed graph is reported once, listing
+         * the heaviest class edge of every layer dependency inside the group.
+         */
+        public void finish(ViolationSink sink) {
+            if (!rule.isForbidCycles()) return;
+            
+            checkForCycles(rule).forEach(sink::accept);
+            if (references == null) return;
+            
+            for (int[] component : layerComponents(references, layerCount)) {
+                if (component.length > 1) {
+                    sink.accept(createCodeCycleViolation(rule, projectModel, graph, component,
+                                                            references, heaviestFrom, heaviestEdge));
+                }
+            }
+        }
+    }
 }
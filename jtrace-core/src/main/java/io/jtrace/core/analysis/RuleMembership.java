@@ -0,0 +1,226 @@
+package io.jtrace.core.analysis;
+
+import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.match.PatternMatcher;
+import io.jtrace.core.match.PatternSet;
+import io.jtrace.core.model.CycleRule;
+import io.jtrace.core.model.ForbiddenDependencyRule;
+import io.jtrace.core.model.LayeringRule;
+import io.jtrace.core.model.RequireAnnotationRule;
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.VisibilityRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which classes of a sealed model each rule's selectors match, computed once for a whole set of
+ * rules and shared by the analyzers.
+ *
+ * <p>Every {@code from}, {@code to} and {@code in} pattern of every rule is a selector. All selectors
+ * are matched against a class's full name in a single {@link PatternSet} lookup, and the result is
+ * stored both per selector, as a bitset over class IDs, and per class, as the list of matching
+ * selectors. Layer patterns are matched against package names, once per package, and stored per
+ * layering rule as each class's layer index.
+ */
+public final class RuleMembership {
+    private static final int[] NO_SELECTORS = new int[0];
+
+    private final Map<Rule, Integer> firstSelector = new IdentityHashMap<>();
+    private final Map<Rule, int[]> classLayers = new IdentityHashMap<>();
+    private final BitSet[] selected;
+    private final Rule[] selectorRules;
+    private final int[][] classSelectors;
+    private final int classCount;
+
+    /**
+     * Matches the selectors of all given rules against the classes of the model, which must be
+     * sealed.
+     */
+    public RuleMembership(List<? extends Rule> rules, PatternMatcher patternMatcher, ProjectModel projectModel) {
+        List<String> classPatterns = new ArrayList<>();
+        List<String> layerPatterns = new ArrayList<>();
+        List<LayeringRule> layeringRules = new ArrayList<>();
+        List<Integer> firstLayerPattern = new ArrayList<>();
+        List<Integer> patternLayers = new ArrayList<>();
+        List<Rule> selectorRuleList = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (firstSelector.containsKey(rule) || classLayers.containsKey(rule)) {
+                continue;
+            }
+            if (rule instanceof LayeringRule) {
+                LayeringRule layeringRule = (LayeringRule) rule;
+                layeringRules.add(layeringRule);
+                firstLayerPattern.add(layerPatterns.size());
+                List<LayeringRule.Layer> layers = layeringRule.getLayers();
+                for (int layer = 0; layer < layers.size(); layer++) {
+                    for (String packagePattern : layers.get(layer).getPackages()) {
+                        layerPatterns.add(packagePattern);
+                        patternLayers.add(layer);
+                    }
+                }
+                classLayers.put(rule, null);
+                continue;
+            }
+            List<String> selectors = selectors(rule);
+            if (!selectors.isEmpty()) {
+                firstSelector.put(rule, classPatterns.size());
+                classPatterns.addAll(selectors);
+                for (int i = 0; i < selectors.size(); i++) {
+                    selectorRuleList.add(rule);
+                }
+            }
+        }
+        firstLayerPattern.add(layerPatterns.size());
+        selectorRules = selectorRuleList.toArray(new Rule[0]);
+
+        // Class selectors: one lookup per class
+        classCount = projectModel.getClassCount();
+        selected = new BitSet[classPatterns.size()];
+        classSelectors = new int[classCount][];
+        Arrays.fill(classSelectors, NO_SELECTORS);
+        for (int selector = 0; selector < selected.length; selector++) {
+            selected[selector] = new BitSet(classCount);
+        }
+        if (!classPatterns.isEmpty()) {
+            PatternSet classSet = patternMatcher.compileSet(classPatterns);
+            BitSet matched = new BitSet(classPatterns.size());
+            for (ProjectModel.ClassInfo classInfo : projectModel.getAllClasses()) {
+                matched.clear();
+                classSet.match(classInfo.getFullName(), matched);
+                for (int selector = matched.nextSetBit(0); selector >= 0; selector = matched.nextSetBit(selector + 1)) {
+                    selected[selector].set(classInfo.getId());
+                }
+                if (!matched.isEmpty()) {
+                    classSelectors[classInfo.getId()] = matched.stream().toArray();
+                }
+            }
+        }
+
+        // Layers: one lookup per package, each layering rule taking its first matching pattern
+        if (!layeringRules.isEmpty()) {
+            PatternSet layerSet = patternMatcher.compileSet(layerPatterns);
+            int[][] layersByRule = new int[layeringRules.size()][classCount];
+            int[][] packageLayers = new int[projectModel.getSymbols().size()][];
+            BitSet matched = new BitSet(layerPatterns.size());
+            for (ProjectModel.ClassInfo classInfo : projectModel.getAllClasses()) {
+                int packageId = classInfo.getPackageNameId();
+                boolean cached = packageId >= 0 && packageId < packageLayers.length;
+                int[] layers = cached ? packageLayers[packageId] : null;
+                if (layers == null) {
+                    matched.clear();
+                    layerSet.match(classInfo.getPackageName(), matched);
+                    layers = new int[layeringRules.size()];
+                    for (int r = 0; r < layers.length; r++) {
+                        int pattern = matched.nextSetBit(firstLayerPattern.get(r));
+                        layers[r] = pattern >= 0 && pattern < firstLayerPattern.get(r + 1)
+                            ? patternLayers.get(pattern) : -1;
+                    }
+                    if (cached) {
+                        packageLayers[packageId] = layers;
+                    }
+                }
+                for (int r = 0; r < layers.length; r++) {
+                    layersByRule[r][classInfo.getId()] = layers[r];
+                }
+            }
+            for (int r = 0; r < layeringRules.size(); r++) {
+                classLayers.put(layeringRules.get(r), layersByRule[r]);
+            }
+        }
+    }
+
+    /**
+     * Returns the class selector patterns of a rule, in selector order.
+     */
+    private static List<String> selectors(Rule rule) {
+        if (rule instanceof ForbiddenDependencyRule) {
+            ForbiddenDependencyRule dependencyRule = (ForbiddenDependencyRule) rule;
+            return Arrays.asList(dependencyRule.getFromPattern(), dependencyRule.getToPattern());
+        }
+        if (rule instanceof RequireAnnotationRule) {
+            return Arrays.asList(((RequireAnnotationRule) rule).getPackagePattern());
+        }
+        if (rule instanceof VisibilityRule) {
+            return Arrays.asList(((VisibilityRule) rule).getPackagePattern());
+        }
+        if (rule instanceof CycleRule && ((CycleRule) rule).getPackagePattern() != null) {
+            return Arrays.asList(((CycleRule) rule).getPackagePattern());
+        }
+        return List.of();
+    }
+
+    /**
+     * Returns the selectors matching the class with the given ID, in increasing order.
+     */
+    public int[] getSelectors(int classId) {
+        return classSelectors[classId];
+    }
+
+    /**
+     * Returns the rule a selector belongs to.
+     */
+    public Rule getSelectorRule(int selector) {
+        return selectorRules[selector];
+    }
+
+    /**
+     * Whether the selector is a forbidden dependency rule's {@code from} pattern.
+     */
+    public boolean isFromSelector(int selector) {
+        Rule rule = selectorRules[selector];
+        return rule instanceof ForbiddenDependencyRule && firstSelector.get(rule) == selector;
+    }
+
+    /**
+     * Returns the classes matching a forbidden dependency rule's {@code from} pattern.
+     */
+    public BitSet getFromClasses(ForbiddenDependencyRule rule) {
+        return selected(rule, 0);
+    }
+
+    /**
+     * Returns the classes matching a forbidden dependency rule's {@code to} pattern.
+     */
+    public BitSet getToClasses(ForbiddenDependencyRule rule) {
+        return selected(rule, 1);
+    }
+
+    /**
+     * Returns the classes matching a rule's {@code in} pattern. For a cycle rule without one,
+     * returns all classes.
+     */
+    public BitSet getSelectedClasses(Rule rule) {
+        if (rule instanceof CycleRule && ((CycleRule) rule).getPackagePattern() == null) {
+            BitSet all = new BitSet(classCount);
+            all.set(0, classCount);
+            return all;
+        }
+        return selected(rule, 0);
+    }
+
+    /**
+     * Returns each class's layer index in a layering rule, indexed by class ID, or -1 for
+     * classes outside all layers. A class belongs to the first layer, in declaration order, with
+     * a package pattern matching its package.
+     */
+    public int[] getClassLayers(LayeringRule rule) {
+        int[] layers = classLayers.get(rule);
+        if (layers == null) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + " is not part of this membership table");
+        }
+        return layers;
+    }
+
+    private BitSet selected(Rule rule, int offset) {
+        Integer first = firstSelector.get(rule);
+        if (first == null) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + " is not part of this membership table");
+        }
+        return selected[first + offset];
+    }
+}
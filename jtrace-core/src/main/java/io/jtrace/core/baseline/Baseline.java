@@ -0,0 +1,177 @@
+package io.jtrace.core.baseline;
+
+import io.jtrace.core.model.Violation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * A set of {@link ViolationFingerprint violation fingerprints} accepted as known, so that only new
+ * violations are reported.
+ *
+ * <p>The file is a line file: a header line, then one fingerprint per line as 16 hex digits, in
+ * ascending order as unsigned numbers, so that baselines diff cleanly under version control. In
+ * memory the fingerprints are kept both sorted, for writing and pruning, and in an
+ * open-addressing hash table of primitive longs, so that a lookup is a probe or two even with
+ * hundreds of thousands of entries. A baseline is immutable and safe to share between threads.
+ */
+public final class Baseline {
+    public static final Baseline EMPTY = new Baseline(new long[0]);
+
+    private static final String HEADER = "# jtrace baseline v1";
+
+    private final long[] fingerprints;
+    private final long[] table;
+    private final boolean containsZero;
+
+    /**
+     * Creates a baseline of the given fingerprints, in any order and possibly repeated.
+     */
+    public Baseline(long[] fingerprints) {
+        // Flipping the sign bit makes a signed sort order the fingerprints as unsigned numbers,
+        // which is the order of their hex digits
+        long[] sorted = new long[fingerprints.length];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = fingerprints[i] ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        this.fingerprints = new long[distinct];
+        for (int i = 0; i < distinct; i++) {
+            this.fingerprints[i] = sorted[i] ^ Long.MIN_VALUE;
+        }
+
+        // Zero marks an empty slot, so it is tracked on its own
+        this.table = new long[Math.max(2, Integer.highestOneBit(Math.max(1, distinct)) << 2)];
+        int mask = table.length - 1;
+        boolean zero = false;
+        for (long fingerprint : this.fingerprints) {
+            if (fingerprint == 0) {
+                zero = true;
+                continue;
+            }
+            int slot = (int) fingerprint & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = fingerprint;
+        }
+        this.containsZero = zero;
+    }
+
+    /**
+     * Loads a baseline file. A file that does not exist is an empty baseline.
+     */
+    public static Baseline load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return EMPTY;
+        }
+        long[] fingerprints = new long[1024];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (count == fingerprints.length) {
+                    fingerprints = Arrays.copyOf(fingerprints, count * 2);
+                }
+                try {
+                    fingerprints[count++] = Long.parseUnsignedLong(line, 16);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed baseline entry in " + file + ": " + line, e);
+                }
+            }
+        }
+        return new Baseline(Arrays.copyOf(fingerprints, count));
+    }
+
+    /**
+     * Writes the baseline to a file, replacing it atomically where the file system allows.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII)) {
+                writer.write(HEADER);
+                writer.newLine();
+                char[] hex = new char[16];
+                for (long fingerprint : fingerprints) {
+                    for (int i = 15; i >= 0; i--) {
+                        hex[i] = Character.forDigit((int) (fingerprint & 0xf), 16);
+                        fingerprint >>>= 4;
+                    }
+                    writer.write(hex);
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean contains(Violation violation) {
+        return contains(ViolationFingerprint.of(violation));
+    }
+
+    public boolean contains(long fingerprint) {
+        if (fingerprint == 0) {
+            return containsZero;
+        }
+        int mask = table.length - 1;
+        for (int slot = (int) fingerprint & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return fingerprints.length;
+    }
+
+    /**
+     * Returns the entries of this baseline that are also in the other, dropping those for
+     * violations that have been fixed since.
+     */
+    public Baseline retainAll(Baseline current) {
+        long[] retained = new long[Math.min(fingerprints.length, current.fingerprints.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < fingerprints.length && j < current.fingerprints.length) {
+            if (fingerprints[i] == current.fingerprints[j]) {
+                retained[count++] = fingerprints[i];
+                i++;
+                j++;
+            } else if (Long.compareUnsigned(fingerprints[i], current.fingerprints[j]) < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new Baseline(Arrays.copyOf(retained, count));
+    }
+}
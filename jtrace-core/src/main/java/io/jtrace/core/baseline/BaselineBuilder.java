@@ -0,0 +1,30 @@
+package io.jtrace.core.baseline;
+
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.util.Arrays;
+
+/**
+ * Collects the fingerprints of the violations it receives into a {@link Baseline}. Only the
+ * fingerprints are held, eight bytes per violation.
+ *
+ * <p>To record every current violation, run the engine without a baseline and without a per-rule
+ * cap, since violations dropped beyond the cap are never delivered.
+ */
+public class BaselineBuilder implements ViolationSink {
+    private long[] fingerprints = new long[1024];
+    private int count;
+
+    @Override
+    public void accept(Violation violation) {
+        if (count == fingerprints.length) {
+            fingerprints = Arrays.copyOf(fingerprints, count * 2);
+        }
+        fingerprints[count++] = ViolationFingerprint.of(violation);
+    }
+
+    public Baseline build() {
+        return new Baseline(Arrays.copyOf(fingerprints, count));
+    }
+}
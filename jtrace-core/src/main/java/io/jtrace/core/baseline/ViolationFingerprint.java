@@ -0,0 +1,94 @@
+package io.jtrace.core.baseline;
+
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Violation;
+
+/**
+ * Computes the fingerprint a violation is baselined under: a 64-bit hash of its rule ID, its
+ * symbol and its normalized message.
+ *
+ * <p>The file and line are left out so that a violation keeps its fingerprint when code around it
+ * moves. Messages are normalized by collapsing runs of whitespace and replacing standalone numbers,
+ * such as counts, with {@code #}; digits inside names are kept.
+ */
+public final class ViolationFingerprint {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long FIELD_SEPARATOR = 0x10000; // Above every char value
+
+    private ViolationFingerprint() {
+    }
+
+    public static long of(Violation violation) {
+        Location location = violation.getLocation();
+        return of(violation.getRuleId(), location != null ? location.getSymbol() : null, violation.getMessage());
+    }
+
+    public static long of(String ruleId, String symbol, String message) {
+        long hash = FNV_OFFSET;
+        hash = add(hash, ruleId);
+        hash = add(hash, symbol);
+        hash = add(hash, normalize(message));
+        return mix(hash);
+    }
+
+    /**
+     * Returns a message as it is fingerprinted.
+     */
+    public static String normalize(String message) {
+        if (message == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(message.length());
+        int i = 0;
+        while (i < message.length()) {
+            char c = message.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < message.length() && Character.isWhitespace(message.charAt(i))) {
+                    i++;
+                }
+                if (normalized.length() > 0 && i < message.length()) {
+                    normalized.append(' ');
+                }
+            } else if (isDigit(c) && (i == 0 || !isNamePart(message.charAt(i - 1)))) {
+                while (i < message.length() && isDigit(message.charAt(i))) {
+                    i++;
+                }
+                normalized.append('#');
+            } else {
+                normalized.append(c);
+                i++;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static long add(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ FIELD_SEPARATOR) * FNV_PRIME;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isJavaIdentifierPart(c);
+    }
+
+    /**
+     * Spreads the bits of the hash, so that its low bits can index a hash table directly.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -2,22 +2,53 @@ package io.jtrace.core.config;
 
 import io.jtrace.core.model.Rule;
 import io.jtrace.core.model.Severity;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
  * Main configuration class for JTrace.
  */
 public class JTraceConfig {
+    public static final Path DEFAULT_CACHE_DIRECTORY = Path.of(".jtrace", "cache");
+    public static final Path DEFAULT_BASELINE_FILE = Path.of(".jtrace", "baseline.txt");
+    public static final long DEFAULT_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
     private final String version;
     private final String basePackage;
     private final FailOn failOn;
     private final List<Rule> rules;
+    private final int parallelism;
+    private final Evaluation evaluation;
+    private final int maxViolationsPerRule;
+    private final boolean failFast;
+    private final long timeBudgetMs;
+    private final Path cacheDirectory;
+    private final long cacheMaxBytes;
+    private final Path baselineFile;
+    private final List<String> sourceIncludes;
+    private final List<String> sourceExcludes;
+    private final boolean skipGeneratedSources;
 
     public JTraceConfig(String version, String basePackage, FailOn failOn, List<Rule> rules) {
-        this.version = version;
-        this.basePackage = basePackage;
-        this.failOn = failOn;
-        this.rules = rules;
+        this(new Builder().version(version).basePackage(basePackage).failOn(failOn).rules(rules));
+    }
+
+    private JTraceConfig(Builder builder) {
+        this.version = builder.version;
+        this.basePackage = builder.basePackage;
+        this.failOn = builder.failOn;
+        this.rules = builder.rules;
+        this.parallelism = builder.parallelism;
+        this.evaluation = builder.evaluation;
+        this.maxViolationsPerRule = builder.maxViolationsPerRule;
+        this.failFast = builder.failFast;
+        this.timeBudgetMs = builder.timeBudgetMs;
+        this.cacheDirectory = builder.cacheDirectory;
+        this.cacheMaxBytes = builder.cacheMaxBytes;
+        this.baselineFile = builder.baselineFile;
+        this.sourceIncludes = builder.sourceIncludes;
+        this.sourceExcludes = builder.sourceExcludes;
+        this.skipGeneratedSources = builder.skipGeneratedSources;
     }
 
     public String getVersion() {
@@ -36,6 +67,139 @@ public class JTraceConfig {
         return rules;
     }
 
+    /**
+     * Number of workers used to parse sources; zero means one per available processor.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * How rules are evaluated against the imported model.
+     */
+    public Evaluation getEvaluation() {
+        return evaluation;
+    }
+
+    /**
+     * Number of violations kept and reported per rule; further violations are only counted.
+     * Zero means no limit.
+     */
+    public int getMaxViolationsPerRule() {
+        return maxViolationsPerRule;
+    }
+
+    /**
+     * Whether the analysis stops at the first violation that fails the build. Rules whose
+     * severity fails the build are evaluated first.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Time after which the analysis stops and reports what it found so far, marked incomplete.
+     * Zero means no limit.
+     */
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+
+    /**
+     * Directory of the persistent parse cache, or null when caching is disabled.
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Size limit of the parse cache in bytes; zero means unbounded.
+     */
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    /**
+     * File of baselined violation fingerprints to leave out of the results, or null when no
+     * baseline is used.
+     */
+    public Path getBaselineFile() {
+        return baselineFile;
+    }
+
+    /**
+     * Glob patterns, relative to a source root, of the files to analyze; empty means all.
+     */
+    public List<String> getSourceIncludes() {
+        return sourceIncludes;
+    }
+
+    /**
+     * Glob patterns, relative to a source root, of files to leave out.
+     */
+    public List<String> getSourceExcludes() {
+        return sourceExcludes;
+    }
+
+    /**
+     * Whether generated-source directories under the source roots are skipped.
+     */
+    public boolean isSkipGeneratedSources() {
+        return skipGeneratedSources;
+    }
+
+    /**
+     * Returns a builder pre-populated with this configuration, for applying overrides.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+            .version(version)
+            .basePackage(basePackage)
+            .failOn(failOn)
+            .rules(rules)
+            .parallelism(parallelism)
+            .evaluation(evaluation)
+            .maxViolationsPerRule(maxViolationsPerRule)
+            .failFast(failFast)
+            .timeBudgetMs(timeBudgetMs)
+            .cacheDirectory(cacheDirectory)
+            .cacheMaxBytes(cacheMaxBytes)
+            .baselineFile(baselineFile)
+            .sourceIncludes(sourceIncludes)
+            .sourceExcludes(sourceExcludes)
+            .skipGeneratedSources(skipGeneratedSources);
+    }
+
+    /**
+     * Rule evaluation strategies. Both produce the same violations in the same order, since each
+     * rule's violations are sorted by location, symbol and message before they are delivered.
+     */
+    public enum Evaluation {
+        /** All rules in one pass over the classes and dependency edges of the model. */
+        FUSED("fused"),
+        /** One rule at a time, each with its own pass over the model. */
+        PER_RULE("per-rule");
+
+        private final String value;
+
+        Evaluation(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static Evaluation fromString(String value) {
+            for (Evaluation evaluation : values()) {
+                if (evaluation.value.equalsIgnoreCase(value)) {
+                    return evaluation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown evaluation: " + value);
+        }
+    }
+
     public static class FailOn {
         private final Severity severity;
 
@@ -49,7 +213,14 @@ public class JTraceConfig {
 
         public boolean shouldFail(List<io.jtrace.core.model.Violation> violations) {
             return violations.stream()
-                .anyMatch(violation -> violation.getSeverity().ordinal() <= severity.ordinal());
+                .anyMatch(violation -> shouldFail(violation.getSeverity()));
+        }
+
+        /**
+         * Whether a violation of the given severity fails the build.
+         */
+        public boolean shouldFail(Severity violationSeverity) {
+            return violationSeverity.ordinal() <= severity.ordinal();
         }
 
         public static FailOn fromString(String severity) {
@@ -66,6 +237,17 @@ public class JTraceConfig {
         private String basePackage;
         private FailOn failOn = new FailOn(Severity.ERROR);
         private List<Rule> rules;
+        private int parallelism = 1;
+        private Evaluation evaluation = Evaluation.FUSED;
+        private int maxViolationsPerRule;
+        private boolean failFast;
+        private long timeBudgetMs;
+        private Path cacheDirectory;
+        private long cacheMaxBytes = DEFAULT_CACHE_MAX_BYTES;
+        private Path baselineFile;
+        private List<String> sourceIncludes = List.of();
+        private List<String> sourceExcludes = List.of();
+        private boolean skipGeneratedSources = true;
 
         public Builder version(String version) {
             this.version = version;
@@ -92,6 +274,61 @@ public class JTraceConfig {
             return this;
         }
 
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder evaluation(Evaluation evaluation) {
+            this.evaluation = evaluation;
+            return this;
+        }
+
+        public Builder maxViolationsPerRule(int maxViolationsPerRule) {
+            this.maxViolationsPerRule = maxViolationsPerRule;
+            return this;
+        }
+
+        public Builder failFast(boolean failFast) {
+            this.failFast = failFast;
+            return this;
+        }
+
+        public Builder timeBudgetMs(long timeBudgetMs) {
+            this.timeBudgetMs = timeBudgetMs;
+            return this;
+        }
+
+        public Builder cacheDirectory(Path cacheDirectory) {
+            this.cacheDirectory = cacheDirectory;
+            return this;
+        }
+
+        public Builder cacheMaxBytes(long cacheMaxBytes) {
+            this.cacheMaxBytes = cacheMaxBytes;
+            return this;
+        }
+
+        public Builder baselineFile(Path baselineFile) {
+            this.baselineFile = baselineFile;
+            return this;
+        }
+
+        public Builder sourceIncludes(List<String> sourceIncludes) {
+            this.sourceIncludes = sourceIncludes;
+            return this;
+        }
+
+        public Builder sourceExcludes(List<String> sourceExcludes) {
+            this.sourceExcludes = sourceExcludes;
+            return this;
+        }
+
+        public Builder skipGeneratedSources(boolean skipGeneratedSources) {
+            this.skipGeneratedSources = skipGeneratedSources;
+            return this;
+        }
+
         public JTraceConfig build() {
             if (basePackage == null) {
                 throw new IllegalStateException("basePackage is required");
@@ -99,7 +336,25 @@ public class JTraceConfig {
             if (rules == null) {
                 throw new IllegalStateException("rules are required");
             }
-            return new JTraceConfig(version, basePackage, failOn, rules);
+            if (parallelism < 0) {
+                throw new IllegalStateException("parallelism must not be negative");
+            }
+            if (evaluation == null) {
+                throw new IllegalStateException("evaluation is required");
+            }
+            if (maxViolationsPerRule < 0) {
+                throw new IllegalStateException("maxViolationsPerRule must not be negative");
+            }
+            if (timeBudgetMs < 0) {
+                throw new IllegalStateException("timeBudgetMs must not be negative");
+            }
+            if (cacheMaxBytes < 0) {
+                throw new IllegalStateException("cacheMaxBytes must not be negative");
+            }
+            if (sourceIncludes == null || sourceExcludes == null) {
+                throw new IllegalStateException("source include and exclude patterns must not be null");
+            }
+            return new JTraceConfig(this);
         }
     }
 }
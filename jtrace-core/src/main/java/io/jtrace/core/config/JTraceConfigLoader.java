@@ -49,12 +49,148 @@ public class JTraceConfigLoader {
         List<Map<String, Object>> rulesData = (List<Map<String, Object>>) data.get("rules");
         List<Rule> rules = parseRules(rulesData);
         
-        return JTraceConfig.builder()
+        JTraceConfig.Builder builder = JTraceConfig.builder()
                 .version(version)
                 .basePackage(basePackage)
                 .failOn(failOn)
-                .rules(rules)
-                .build();
+                .rules(rules);
+        
+        Map<String, Object> analysisData = (Map<String, Object>) data.get("analysis");
+        parseAnalysis(analysisData, builder);
+        
+        Map<String, Object> cacheData = (Map<String, Object>) data.get("cache");
+        parseCache(cacheData, builder);
+        
+        Map<String, Object> baselineData = (Map<String, Object>) data.get("baseline");
+        parseBaseline(baselineData, builder);
+        
+        Map<String, Object> sourcesData = (Map<String, Object>) data.get("sources");
+        parseSources(sourcesData, builder);
+        
+        return builder.build();
+    }
+
+    private void parseAnalysis(Map<String, Object> analysisData, JTraceConfig.Builder builder) {
+        if (analysisData == null) {
+            return;
+        }
+        
+        Object parallelism = analysisData.get("parallelism");
+        if (parallelism != null) {
+            builder.parallelism(parseParallelism(parallelism));
+        }
+        
+        Object evaluation = analysisData.get("evaluation");
+        if (evaluation != null) {
+            builder.evaluation(JTraceConfig.Evaluation.fromString(evaluation.toString()));
+        }
+        
+        Object maxViolationsPerRule = analysisData.get("maxViolationsPerRule");
+        if (maxViolationsPerRule != null) {
+            builder.maxViolationsPerRule(
+                (int) parseLong("analysis.maxViolationsPerRule", maxViolationsPerRule));
+        }
+        
+        Boolean failFast = (Boolean) analysisData.get("failFast");
+        if (failFast != null) {
+            builder.failFast(failFast);
+        }
+        
+        Object timeBudgetMs = analysisData.get("timeBudgetMs");
+        if (timeBudgetMs != null) {
+            builder.timeBudgetMs(parseLong("analysis.timeBudgetMs", timeBudgetMs));
+        }
+    }
+
+    private void parseCache(Map<String, Object> cacheData, JTraceConfig.Builder builder) {
+        if (cacheData == null) {
+            return;
+        }
+        
+        Boolean enabled = (Boolean) cacheData.get("enabled");
+        if (enabled != null && !enabled) {
+            return;
+        }
+        
+        Object directory = cacheData.get("directory");
+        builder.cacheDirectory(directory != null 
+            ? Path.of(directory.toString()) : JTraceConfig.DEFAULT_CACHE_DIRECTORY);
+        
+        Object maxSizeMb = cacheData.get("maxSizeMb");
+        if (maxSizeMb != null) {
+            builder.cacheMaxBytes(parseLong("cache.maxSizeMb", maxSizeMb) * 1024 * 1024);
+        }
+    }
+
+    private void parseBaseline(Map<String, Object> baselineData, JTraceConfig.Builder builder) {
+        if (baselineData == null) {
+            return;
+        }
+        
+        Boolean enabled = (Boolean) baselineData.get("enabled");
+        if (enabled != null && !enabled) {
+            return;
+        }
+        
+        Object file = baselineData.get("file");
+        builder.baselineFile(file != null 
+            ? Path.of(file.toString()) : JTraceConfig.DEFAULT_BASELINE_FILE);
+    }
+
+    private void parseSources(Map<String, Object> sourcesData, JTraceConfig.Builder builder) {
+        if (sourcesData == null) {
+            return;
+        }
+        
+        builder.sourceIncludes(parsePatterns("sources.include", sourcesData.get("include")));
+        builder.sourceExcludes(parsePatterns("sources.exclude", sourcesData.get("exclude")));
+        
+        Boolean skipGenerated = (Boolean) sourcesData.get("skipGenerated");
+        if (skipGenerated != null) {
+            builder.skipGeneratedSources(skipGenerated);
+        }
+    }
+
+    private List<String> parsePatterns(String key, Object value) {
+        List<String> patterns = new ArrayList<>();
+        if (value == null) {
+            return patterns;
+        }
+        if (value instanceof List) {
+            for (Object pattern : (List<?>) value) {
+                patterns.add(pattern.toString());
+            }
+        } else if (value instanceof String) {
+            patterns.add((String) value);
+        } else {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+        return patterns;
+    }
+
+    private long parseLong(String key, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + ": " + value);
+        }
+    }
+
+    private int parseParallelism(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if ("auto".equalsIgnoreCase(value.toString())) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid analysis.parallelism: " + value);
+        }
     }
 
     private JTraceConfig.FailOn parseFailOn(Map<String, Object> failOnData) {
@@ -106,6 +242,8 @@ public class JTraceConfigLoader {
                 return parseLayeringRule(id, severity, message, ruleData);
             case "visibility":
                 return parseVisibilityRule(id, severity, message, ruleData);
+            case "cycles":
+                return parseCycleRule(id, severity, message, ruleData);
             default:
                 throw new IllegalArgumentException("Unknown rule type: " + type);
         }
@@ -219,4 +357,32 @@ public class JTraceConfigLoader {
                 .mustBe(mustBe)
                 .build();
     }
+
+    private Rule parseCycleRule(String id, Severity severity, String message,
+                              Map<String, Object> ruleData) {
+        String in = (String) ruleData.get("in");
+        String levelStr = (String) ruleData.get("level");
+        
+        CycleRule.Builder builder = CycleRule.builder()
+                .id(id)
+                .severity(severity)
+                .message(message)
+                .in(in)
+                .level(CycleRule.Level.valueOf(levelStr != null ? levelStr.toUpperCase() : "CLASS"));
+        
+        Object maxCycles = ruleData.get("maxCycles");
+        if (maxCycles != null) {
+            builder.maxCycles((int) parseLong("maxCycles", maxCycles));
+        }
+        Object maxCycleLength = ruleData.get("maxCycleLength");
+        if (maxCycleLength != null) {
+            builder.maxCycleLength((int) parseLong("maxCycleLength", maxCycleLength));
+        }
+        Object timeBudgetMs = ruleData.get("timeBudgetMs");
+        if (timeBudgetMs != null) {
+            builder.timeBudgetMs(parseLong("timeBudgetMs", timeBudgetMs));
+        }
+        
+        return builder.build();
+    }
 }
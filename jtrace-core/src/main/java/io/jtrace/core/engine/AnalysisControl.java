@@ -0,0 +1,106 @@
+package io.jtrace.core.engine;
+
+import io.jtrace.core.baseline.Baseline;
+import io.jtrace.core.config.JTraceConfig;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-run limits of an analysis. Baselined violations are left out, each rule keeps at most a
+ * capped number of violations, and the run stops before all rules are fully evaluated at the
+ * first violation that fails the build in fail-fast mode, or once the time budget is spent. The
+ * import pipeline and evaluation tasks poll {@link #shouldStop()} and return early; the first
+ * reason to stop wins.
+ */
+final class AnalysisControl {
+    private final int cap;
+    private final Baseline baseline;
+    private final boolean failFast;
+    private final JTraceConfig.FailOn failOn;
+    private final long timeBudgetMs;
+    private final long deadline;
+    private volatile String stopReason;
+
+    AnalysisControl(JTraceConfig config) {
+        this.cap = config.getMaxViolationsPerRule() > 0 ? config.getMaxViolationsPerRule() : Integer.MAX_VALUE;
+        this.baseline = loadBaseline(config);
+        this.failFast = config.isFailFast();
+        this.failOn = config.getFailOn();
+        this.timeBudgetMs = config.getTimeBudgetMs();
+        this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+    }
+
+    /**
+     * Returns an empty buffer for the violations of one rule.
+     */
+    ViolationBuffer newBuffer() {
+        return new ViolationBuffer(cap, this);
+    }
+
+    private static Baseline loadBaseline(JTraceConfig config) {
+        if (config.getBaselineFile() == null) {
+            return Baseline.EMPTY;
+        }
+        try {
+            return Baseline.load(config.getBaselineFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load baseline " + config.getBaselineFile(), e);
+        }
+    }
+
+    /**
+     * Whether a violation is in the baseline, and so is neither counted nor reported.
+     */
+    boolean isBaselined(Violation violation) {
+        return baseline.size() > 0 && baseline.contains(violation);
+    }
+
+    boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Whether violations of the given severity fail the build, so that their rules go first in
+     * fail-fast mode.
+     */
+    boolean fails(Severity severity) {
+        return failOn.shouldFail(severity);
+    }
+
+    /**
+     * Records a violation found, stopping the run if it fails the build in fail-fast mode.
+     */
+    void violationFound(Severity severity) {
+        if (failFast && stopReason == null && failOn.shouldFail(severity)) {
+            stop("fail-fast: found a violation at or above severity " + severity.getValue());
+        }
+    }
+
+    boolean shouldStop() {
+        if (stopReason != null) {
+            return true;
+        }
+        if (timeBudgetMs > 0 && System.nanoTime() - deadline > 0) {
+            stop("time budget of " + timeBudgetMs + " ms exceeded");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns why the run stopped early, or null if it has not.
+     */
+    String getStopReason() {
+        return stopReason;
+    }
+
+    private synchronized void stop(String reason) {
+        if (stopReason == null) {
+            stopReason = reason;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.jtrace.core.engine;
+
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands the violations of finished rules to a sink in configuration order. A rule is delivered as
+ * soon as it and every rule before it have finished, and its buffer is released once it has been
+ * delivered for the last time, so only rules waiting for an earlier one are held. Calls to the
+ * sink are made under this object's lock, one at a time.
+ */
+final class RuleDelivery {
+    private final List<Rule> rules;
+    private final ViolationSink sink;
+    private final Map<Rule, ViolationBuffer> finished = new IdentityHashMap<>();
+    private final Map<Rule, Integer> pending = new IdentityHashMap<>();
+    private int next;
+    private boolean closed;
+
+    RuleDelivery(List<Rule> rules, ViolationSink sink) {
+        this.rules = rules;
+        this.sink = sink;
+        for (Rule rule : rules) {
+            pending.merge(rule, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Records the complete, {@link ViolationBuffer#finish() finished} violations of a rule and
+     * delivers every rule that is now next in line.
+     */
+    synchronized void finished(Rule rule, ViolationBuffer buffer) {
+        finished.put(rule, buffer);
+        flush();
+    }
+
+    /**
+     * Delivers the rules still waiting, skipping those that were never evaluated because the run
+     * stopped early.
+     */
+    synchronized void close() {
+        closed = true;
+        flush();
+    }
+
+    private void flush() {
+        while (next < rules.size()) {
+            Rule rule = rules.get(next);
+            ViolationBuffer buffer = finished.get(rule);
+            if (buffer == null && !closed) {
+                return;
+            }
+            if (buffer != null) {
+                for (Violation violation : buffer.getKept()) {
+                    sink.accept(violation);
+                }
+                sink.ruleFinished(rule, buffer.getFound());
+            }
+            next++;
+            if (pending.merge(rule, -1, Integer::sum) == 0) {
+                finished.remove(rule);
+            }
+        }
+    }
+}
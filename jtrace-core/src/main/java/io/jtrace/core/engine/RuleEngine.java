@@ -2,23 +2,38 @@ package io.jtrace.core.engine;
 
 import io.jtrace.core.analysis.*;
 import io.jtrace.core.config.JTraceConfig;
+import io.jtrace.core.importer.AnnotationIndex;
+import io.jtrace.core.importer.DependencyGraph;
+import io.jtrace.core.importer.ImportMode;
+import io.jtrace.core.importer.ParseCache;
 import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.importer.SourceDiscovery;
 import io.jtrace.core.importer.SourceImporter;
 import io.jtrace.core.model.*;
 import io.jtrace.core.match.PatternMatcher;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Main engine that orchestrates the analysis of source code against architecture rules.
  */
 public class RuleEngine {
+    private static final int MIN_SHARD_CLASSES = 512;
+    private static final int STOP_CHECK_INTERVAL = 64;
+
     private final DependencyAnalyzer dependencyAnalyzer;
     private final AnnotationAnalyzer annotationAnalyzer;
     private final LayeringAnalyzer layeringAnalyzer;
@@ -31,30 +46,199 @@ public class RuleEngine {
         this.dependencyAnalyzer = new DependencyAnalyzer(patternMatcher);
         this.annotationAnalyzer = new AnnotationAnalyzer(patternMatcher);
         this.layeringAnalyzer = new LayeringAnalyzer(patternMatcher);
-        this.cycleDetector = new CycleDetector();
-        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.cycleDetector = new CycleDetector(patternMatcher);
+        this.executor = Executors.newWorkStealingPool();
     }
 
     /**
-     * Runs the analysis engine against the given configuration and source set.
+     * Runs the analysis engine against the given configuration and source set. Directories are
+     * searched for source files using the configuration's include and exclude patterns. The
+     * engine can be run any number of times until it is {@link #shutdown() shut down}.
      */
     public List<Violation> run(JTraceConfig config, List<Path> sourcePaths) {
-        try {
-            // Import source code
-            SourceImporter importer = new SourceImporter();
-            ProjectModel projectModel = importer.importSources(sourcePaths);
+        List<Violation> violations = new ArrayList<>();
+        run(config, sourcePaths, violations::add);
+        return violations;
+    }
+
+    /**
+     * Like {@link #run(JTraceConfig, List)}, delivering the violations to the sink rule by rule
+     * instead of collecting them. Each rule's violations are delivered as soon as it and the rules
+     * before it have finished, and each rule keeps at most the configured number of violations
+     * per rule until then. Per-class rules fill their buffers while sources are still being
+     * imported; in fail-fast mode only those whose severity fails the build do, and the others
+     * are evaluated on the model like the remaining rules. In fail-fast mode, or once the
+     * configured time budget is spent, the run stops early, during import or evaluation, and the
+     * sink is told that the results are incomplete.
+     */
+    public void run(JTraceConfig config, List<Path> sourcePaths, ViolationSink sink) {
+        AnalysisControl control = new AnalysisControl(config);
 
-            List<Violation> violations = new ArrayList<>();
+        // Import source code
+        ParseCache parseCache = config.getCacheDirectory() != null
+            ? new ParseCache(config.getCacheDirectory(), config.getCacheMaxBytes())
+            : null;
+        SourceImporter importer = new SourceImporter(config.getParallelism(), parseCache,
+                                                     importModeFor(config));
+        SourceDiscovery discovery = new SourceDiscovery(config.getSourceIncludes(),
+            config.getSourceExcludes(), config.isSkipGeneratedSources());
+        RuleDelivery delivery = new RuleDelivery(config.getRules(), sink);
+        ClassRuleCollector classRules = new ClassRuleCollector(config, control);
+        ProjectModel projectModel = importer.importSources(discovery, sourcePaths, classRules,
+                                                           control::shouldStop);
 
-            // Analyze each rule type
-            for (Rule rule : config.getRules()) {
-                List<Violation> ruleViolations = analyzeRule(rule, projectModel);
-                violations.addAll(ruleViolations);
+        classRules.finish(projectModel, delivery);
+        delivery.close();
+        reportIncomplete(control, sink);
+    }
+
+    /**
+     * Chooses the cheapest import mode that still provides everything the configured rules
+     * look at. Only annotation rules need the full AST.
+     */
+    static ImportMode importModeFor(JTraceConfig config) {
+        for (Rule rule : config.getRules()) {
+            switch (rule.getType()) {
+                case "forbiddenDependency":
+                case "layering":
+                case "visibility":
+                case "cycles":
+                    break;
+                default:
+                    return ImportMode.FULL;
             }
+        }
+        return ImportMode.SIGNATURES;
+    }
 
-            return violations;
-        } finally {
-            executor.shutdown();
+    /**
+     * Evaluates the configured rules against an already imported model, for example one built
+     * by {@link io.jtrace.core.importer.BytecodeImporter}. The model is sealed if it is not already.
+     * Violations are ordered by rule, in configuration order, then by file, line, column, symbol
+     * and message.
+     */
+    public List<Violation> analyze(JTraceConfig config, ProjectModel projectModel) {
+        List<Violation> violations = new ArrayList<>();
+        analyze(config, projectModel, violations::add);
+        return violations;
+    }
+
+    /**
+     * Like {@link #analyze(JTraceConfig, ProjectModel)}, delivering the violations to the sink
+     * rule by rule instead of collecting them.
+     */
+    public void analyze(JTraceConfig config, ProjectModel projectModel, ViolationSink sink) {
+        AnalysisControl control = new AnalysisControl(config);
+        projectModel.seal();
+        RuleDelivery delivery = new RuleDelivery(config.getRules(), sink);
+        evaluate(config.getRules(), projectModel, config.getEvaluation(), control, delivery);
+        delivery.close();
+        reportIncomplete(control, sink);
+    }
+
+    private static void reportIncomplete(AnalysisControl control, ViolationSink sink) {
+        if (control.getStopReason() != null) {
+            sink.incomplete(control.getStopReason());
+        }
+    }
+
+    /**
+     * Evaluates the rules concurrently on the engine's executor, handing each rule's violations
+     * to the delivery as soon as the rule is complete. Rules are evaluated in parallel, and in
+     * fused evaluation the classes are split into shards evaluated in parallel too. In fail-fast
+     * mode the rules whose severity fails the build are evaluated first, and the others only if
+     * none of them found a violation. Rules the run stopped before are never handed over.
+     */
+    private void evaluate(List<Rule> rules, ProjectModel projectModel, JTraceConfig.Evaluation evaluation,
+                          AnalysisControl control, RuleDelivery delivery) {
+        RuleMembership membership = new RuleMembership(rules, patternMatcher, projectModel);
+        if (control.isFailFast()) {
+            List<Rule> failing = new ArrayList<>();
+            List<Rule> others = new ArrayList<>();
+            for (Rule rule : rules) {
+                (control.fails(rule.getSeverity()) ? failing : others).add(rule);
+            }
+            evaluate(failing, projectModel, membership, evaluation, control, delivery);
+            if (!control.shouldStop()) {
+                evaluate(others, projectModel, membership, evaluation, control, delivery);
+            }
+        } else {
+            evaluate(rules, projectModel, membership, evaluation, control, delivery);
+        }
+    }
+
+    private void evaluate(List<Rule> rules, ProjectModel projectModel, RuleMembership membership,
+                          JTraceConfig.Evaluation evaluation, AnalysisControl control, RuleDelivery delivery) {
+        Map<Rule, CompletableFuture<Void>> tasks = new IdentityHashMap<>();
+        List<Rule> fusedRules = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (tasks.containsKey(rule) || fusedRules.contains(rule)) {
+                continue;
+            }
+            if (evaluation == JTraceConfig.Evaluation.FUSED && !(rule instanceof CycleRule)) {
+                fusedRules.add(rule);
+            } else {
+                tasks.put(rule, CompletableFuture.runAsync(() -> {
+                    if (control.shouldStop()) {
+                        return;
+                    }
+                    ViolationBuffer buffer = control.newBuffer();
+                    analyzeRule(rule, projectModel, membership, control, buffer);
+                    buffer.finish();
+                    delivery.finished(rule, buffer);
+                }, executor));
+            }
+        }
+        if (!fusedRules.isEmpty() && !control.shouldStop()) {
+            evaluateFused(fusedRules, projectModel, membership, control, delivery);
+        }
+        for (CompletableFuture<Void> task : tasks.values()) {
+            join(task);
+        }
+    }
+
+    /**
+     * Runs a fused evaluation over consecutive shards of the class IDs and merges the shards in
+     * class order, so the result matches a single pass over all classes. All fused rules are
+     * complete, and handed to the delivery, once the last shard is merged.
+     */
+    private void evaluateFused(List<Rule> rules, ProjectModel projectModel, RuleMembership membership,
+                               AnalysisControl control, RuleDelivery delivery) {
+        int classCount = projectModel.getClassCount();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int shardCount = Math.max(1, Math.min(parallelism * 4, classCount / MIN_SHARD_CLASSES));
+        List<CompletableFuture<FusedEvaluation>> shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int start = (int) ((long) classCount * shard / shardCount);
+            int end = (int) ((long) classCount * (shard + 1) / shardCount);
+            shards.add(CompletableFuture.supplyAsync(
+                () -> new FusedEvaluation(rules, projectModel, membership, control, start, end).run(), executor));
+        }
+
+        FusedEvaluation first = join(shards.get(0));
+        for (int shard = 1; shard < shardCount; shard++) {
+            first.merge(join(shards.get(shard)));
+        }
+        for (Map.Entry<Rule, ViolationBuffer> rule : first.finish().entrySet()) {
+            rule.getValue().finish();
+            delivery.finished(rule.getKey(), rule.getValue());
+        }
+    }
+
+    /**
+     * Waits for a task, rethrowing its failure unwrapped.
+     */
+    private static <T> T join(CompletableFuture<T> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
         }
     }
 
@@ -65,67 +249,94 @@ public class RuleEngine {
         return CompletableFuture.supplyAsync(() -> run(config, sourcePaths), executor);
     }
 
-    private List<Violation> analyzeRule(Rule rule, ProjectModel projectModel) {
+    private void analyzeRule(Rule rule, ProjectModel projectModel, RuleMembership membership,
+                             AnalysisControl control, ViolationSink sink) {
         switch (rule.getType()) {
             case "forbiddenDependency":
-                return dependencyAnalyzer.analyze((ForbiddenDependencyRule) rule, projectModel);
+                dependencyAnalyzer.analyze((ForbiddenDependencyRule) rule, projectModel, membership, sink);
+                break;
             case "requireAnnotation":
-                return annotationAnalyzer.analyze((RequireAnnotationRule) rule, projectModel);
+                annotationAnalyzer.analyze((RequireAnnotationRule) rule, projectModel, membership, sink);
+                break;
             case "layering":
-                return layeringAnalyzer.analyze((LayeringRule) rule, projectModel);
+                layeringAnalyzer.analyze((LayeringRule) rule, projectModel, membership, sink);
+                break;
             case "visibility":
-                return analyzeVisibilityRule((VisibilityRule) rule, projectModel);
+                analyzeVisibilityRule((VisibilityRule) rule, projectModel, membership, sink);
+                break;
+            case "cycles":
+                cycleDetector.analyze((CycleRule) rule, projectModel, membership, executor, control::shouldStop,
+                                      sink);
+                break;
             default:
                 throw new IllegalArgumentException("Unknown rule type: " + rule.getType());
         }
     }
     
-    private List<Violation> analyzeVisibilityRule(VisibilityRule rule, ProjectModel projectModel) {
-        List<Violation> violations = new ArrayList<>();
-        
-        // Find all classes matching the package pattern
-        List<ProjectModel.ClassInfo> matchingClasses = projectModel.getAllClasses().stream()
-            .filter(classInfo -> patternMatcher.matches(rule.getPackagePattern(), classInfo.getFullName()))
-            .collect(Collectors.toList());
-        
-        for (ProjectModel.ClassInfo classInfo : matchingClasses) {
-            switch (rule.getTarget()) {
-                case CLASS:
-                    checkClassVisibility(rule, classInfo, violations);
-                    break;
-                case METHOD:
-                    checkMethodVisibility(rule, classInfo, violations);
-                    break;
-                case FIELD:
-                    checkFieldVisibility(rule, classInfo, violations);
-                    break;
-            }
+    /**
+     * Whether the rule looks at one class at a time, so it can be evaluated while classes are
+     * still being imported.
+     */
+    private static boolean isClassRule(Rule rule) {
+        return rule instanceof RequireAnnotationRule || rule instanceof VisibilityRule;
+    }
+
+    private void analyzeClass(Rule rule, ProjectModel.ClassInfo classInfo, ViolationSink sink) {
+        if (rule instanceof RequireAnnotationRule) {
+            annotationAnalyzer.analyzeClass((RequireAnnotationRule) rule, classInfo, sink);
+            return;
+        }
+        VisibilityRule visibilityRule = (VisibilityRule) rule;
+        if (patternMatcher.compile(visibilityRule.getPackagePattern()).matches(classInfo.getFullName())) {
+            checkVisibility(visibilityRule, classInfo, sink);
+        }
+    }
+
+    private void analyzeVisibilityRule(VisibilityRule rule, ProjectModel projectModel,
+                                       RuleMembership membership, ViolationSink sink) {
+        // All classes matching the package pattern
+        BitSet matchingClasses = membership.getSelectedClasses(rule);
+        for (int id = matchingClasses.nextSetBit(0); id >= 0; id = matchingClasses.nextSetBit(id + 1)) {
+            checkVisibility(rule, projectModel.getClassById(id), sink);
+        }
+    }
+    
+    private void checkVisibility(VisibilityRule rule, ProjectModel.ClassInfo classInfo,
+                                 ViolationSink sink) {
+        switch (rule.getTarget()) {
+            case CLASS:
+                checkClassVisibility(rule, classInfo, sink);
+                break;
+            case METHOD:
+                checkMethodVisibility(rule, classInfo, sink);
+                break;
+            case FIELD:
+                checkFieldVisibility(rule, classInfo, sink);
+                break;
         }
-        
-        return violations;
     }
     
     private void checkClassVisibility(VisibilityRule rule, ProjectModel.ClassInfo classInfo, 
-                                    List<Violation> violations) {
+                                    ViolationSink sink) {
         if (classInfo.getVisibility() != mapVisibility(rule.getMustBe())) {
-            violations.add(createVisibilityViolation(rule, classInfo, null, null));
+            sink.accept(createVisibilityViolation(rule, classInfo, null, null));
         }
     }
     
     private void checkMethodVisibility(VisibilityRule rule, ProjectModel.ClassInfo classInfo, 
-                                     List<Violation> violations) {
+                                     ViolationSink sink) {
         for (ProjectModel.MethodInfo method : classInfo.getMethods()) {
             if (method.getVisibility() != mapVisibility(rule.getMustBe())) {
-                violations.add(createVisibilityViolation(rule, classInfo, method, null));
+                sink.accept(createVisibilityViolation(rule, classInfo, method, null));
             }
         }
     }
     
     private void checkFieldVisibility(VisibilityRule rule, ProjectModel.ClassInfo classInfo, 
-                                    List<Violation> violations) {
+                                    ViolationSink sink) {
         for (ProjectModel.FieldInfo field : classInfo.getFields()) {
             if (field.getVisibility() != mapVisibility(rule.getMustBe())) {
-                violations.add(createVisibilityViolation(rule, classInfo, null, field));
+                sink.accept(createVisibilityViolation(rule, classInfo, null, field));
             }
         }
     }
@@ -145,7 +356,8 @@ public class RuleEngine {
         Location location = new Location(
             java.nio.file.Path.of(classInfo.getSourceFile()),
             1, // Default line number
-            formatElementName(classInfo, method, field)
+            formatElementName(classInfo, method, field),
+            classInfo.getPackageName()
         );
         
         String elementName = formatElementName(classInfo, method, field);
@@ -185,6 +397,189 @@ public class RuleEngine {
         }
     }
 
+    /**
+     * Evaluates per-class rules on classes as the importer delivers them, straight into each
+     * rule's capped buffer, and the remaining rules once the model is complete. In fail-fast mode
+     * only the per-class rules that fail the build are evaluated during import, so that they can
+     * stop it; the others wait for the model. Violations come out in the same order as from
+     * {@link #analyze}.
+     */
+    private final class ClassRuleCollector implements Consumer<ProjectModel.ClassInfo> {
+        private final List<Rule> rules;
+        private final JTraceConfig.Evaluation evaluation;
+        private final AnalysisControl control;
+        private final Map<Rule, ViolationBuffer> classRules = new IdentityHashMap<>();
+        private final Set<String> classNames = new HashSet<>();
+        private boolean duplicates;
+
+        ClassRuleCollector(JTraceConfig config, AnalysisControl control) {
+            this.rules = config.getRules();
+            this.evaluation = config.getEvaluation();
+            this.control = control;
+            for (Rule rule : rules) {
+                if (isClassRule(rule) && (!control.isFailFast() || control.fails(rule.getSeverity()))) {
+                    classRules.put(rule, control.newBuffer());
+                }
+            }
+        }
+
+        /**
+         * Checks a class against the per-class rules. Violations go through the rule's buffer,
+         * which reports each one to the run's control, so a failing one stops the import in
+         * fail-fast mode.
+         */
+        @Override
+        public void accept(ProjectModel.ClassInfo classInfo) {
+            if (control.shouldStop()) {
+                return;
+            }
+            duplicates |= !classNames.add(classInfo.getFullName());
+            for (Map.Entry<Rule, ViolationBuffer> entry : classRules.entrySet()) {
+                analyzeClass(entry.getKey(), classInfo, entry.getValue());
+            }
+        }
+
+        /**
+         * Delivers the per-class rules checked during import, then evaluates every other rule on
+         * the complete model.
+         */
+        void finish(ProjectModel projectModel, RuleDelivery delivery) {
+            List<Rule> modelRules = rules.stream()
+                .filter(rule -> !classRules.containsKey(rule))
+                .collect(Collectors.toList());
+            classNames.clear();
+            if (duplicates && !control.shouldStop()) {
+                // A class declared twice may have been checked in the copy that did not end up
+                // in the model, so the class rules are evaluated again on the model
+                evaluate(new ArrayList<>(classRules.keySet()), projectModel, evaluation, control, delivery);
+            } else {
+                for (Map.Entry<Rule, ViolationBuffer> entry : classRules.entrySet()) {
+                    entry.getValue().finish();
+                    delivery.finished(entry.getKey(), entry.getValue());
+                }
+            }
+            classRules.clear();
+            evaluate(modelRules, projectModel, evaluation, control, delivery);
+        }
+    }
+
+    /**
+     * Evaluates a set of rules in one pass over a range of class IDs: every class is visited once
+     * and handed to each rule whose selectors match it, and every dependency edge is visited once
+     * and handed to each dependency and layering rule interested in its source class. Passes over
+     * consecutive ranges are merged in class order. Each rule's violations come out in the same
+     * order as from {@link #analyzeRule}. Cycle rules work on whole components and are not
+     * evaluated here.
+     */
+    private final class FusedEvaluation {
+        private final ProjectModel projectModel;
+        private final RuleMembership membership;
+        private final AnalysisControl control;
+        private final int start;
+        private final int end;
+        private final Map<Rule, ViolationBuffer> violations = new IdentityHashMap<>();
+        private final Map<LayeringRule, LayeringAnalyzer.LayerCheck> layerChecks = new IdentityHashMap<>();
+
+        FusedEvaluation(List<Rule> rules, ProjectModel projectModel, RuleMembership membership,
+                        AnalysisControl control, int start, int end) {
+            this.projectModel = projectModel;
+            this.membership = membership;
+            this.control = control;
+            this.start = start;
+            this.end = end;
+            for (Rule rule : rules) {
+                if (violations.containsKey(rule)) {
+                    continue;
+                }
+                violations.put(rule, control.newBuffer());
+                if (rule instanceof LayeringRule) {
+                    LayeringRule layeringRule = (LayeringRule) rule;
+                    layerChecks.put(layeringRule, layeringAnalyzer.start(layeringRule, projectModel, membership));
+                } else if (!(rule instanceof ForbiddenDependencyRule || rule instanceof RequireAnnotationRule
+                        || rule instanceof VisibilityRule)) {
+                    throw new IllegalArgumentException("Unknown rule type: " + rule.getType());
+                }
+            }
+        }
+
+        FusedEvaluation run() {
+            LayeringAnalyzer.LayerCheck[] checks = layerChecks.values().toArray(new LayeringAnalyzer.LayerCheck[0]);
+            ViolationBuffer[] checkViolations = new ViolationBuffer[checks.length];
+            for (int c = 0; c < checks.length; c++) {
+                checkViolations[c] = violations.get(checks[c].getRule());
+            }
+
+            DependencyGraph graph = projectModel.getDependencyGraph();
+            AnnotationIndex annotationIndex = projectModel.getAnnotationIndex();
+            List<ForbiddenDependencyRule> edgeRules = new ArrayList<>();
+            for (int id = start; id < end; id++) {
+                if ((id - start) % STOP_CHECK_INTERVAL == 0 && control.shouldStop()) {
+                    break;
+                }
+                ProjectModel.ClassInfo classInfo = projectModel.getClassById(id);
+
+                // Class selectors, in rule order
+                edgeRules.clear();
+                for (int selector : membership.getSelectors(id)) {
+                    Rule rule = membership.getSelectorRule(selector);
+                    if (rule instanceof RequireAnnotationRule) {
+                        annotationAnalyzer.checkClass((RequireAnnotationRule) rule, classInfo, annotationIndex,
+                                                      violations.get(rule));
+                    } else if (rule instanceof VisibilityRule) {
+                        checkVisibility((VisibilityRule) rule, classInfo, violations.get(rule));
+                    } else if (membership.isFromSelector(selector)
+                            && !membership.getToClasses((ForbiddenDependencyRule) rule).isEmpty()) {
+                        edgeRules.add((ForbiddenDependencyRule) rule);
+                    }
+                }
+
+                // Dependency edges, each visited once for all interested rules
+                boolean layered = false;
+                for (LayeringAnalyzer.LayerCheck check : checks) {
+                    layered |= check.isLayered(id);
+                }
+                if (edgeRules.isEmpty() && !layered) {
+                    continue;
+                }
+                for (int edge = graph.outStart(id); edge < graph.outEnd(id); edge++) {
+                    for (ForbiddenDependencyRule rule : edgeRules) {
+                        dependencyAnalyzer.analyzeEdge(rule, projectModel, membership, id, edge, violations.get(rule));
+                    }
+                    for (int c = 0; c < checks.length; c++) {
+                        if (checks[c].isLayered(id)) {
+                            checks[c].analyzeEdge(id, edge, checkViolations[c]);
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Appends the results of a pass over the class range directly following this one.
+         */
+        void merge(FusedEvaluation next) {
+            for (Map.Entry<Rule, ViolationBuffer> entry : violations.entrySet()) {
+                entry.getValue().addAll(next.violations.get(entry.getKey()));
+            }
+            for (Map.Entry<LayeringRule, LayeringAnalyzer.LayerCheck> entry : layerChecks.entrySet()) {
+                entry.getValue().merge(next.layerChecks.get(entry.getKey()));
+            }
+        }
+
+        /**
+         * Completes the layering checks and returns the violations of every rule, keyed by rule
+         * identity.
+         */
+        Map<Rule, ViolationBuffer> finish() {
+            for (LayeringAnalyzer.LayerCheck check : layerChecks.values()) {
+                check.finish(violations.get(check.getRule()));
+            }
+            return violations;
+        }
+
+    }
+
     /**
      * Shuts down the rule engine and releases resources.
      */
@@ -0,0 +1,92 @@
+package io.jtrace.core.engine;
+
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds the violations of one rule until they can be delivered in order. Violations in the run's
+ * baseline are dropped as they arrive. Every other violation is counted, and reported to the run's
+ * {@link AnalysisControl}, but only the first {@code cap} in delivery order are kept: once twice
+ * that many are held, the buffer is sorted and cut back to {@code cap}.
+ */
+final class ViolationBuffer implements ViolationSink {
+
+    /**
+     * Violations of one rule are delivered by file, line and column, then by symbol and message,
+     * so that the order, and which violations a cap keeps, do not depend on how the rule was
+     * evaluated.
+     */
+    static final Comparator<Violation> ORDER = Comparator
+        .comparing((Violation violation) -> violation.getLocation().getFile(),
+                   Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparingInt(violation -> violation.getLocation().getLine())
+        .thenComparingInt(violation -> violation.getLocation().getColumn())
+        .thenComparing(violation -> violation.getLocation().getSymbol(),
+                       Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Violation::getMessage, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final int cap;
+    private final int limit;
+    private final AnalysisControl control;
+    private final List<Violation> kept = new ArrayList<>();
+    private long found;
+
+    ViolationBuffer(int cap, AnalysisControl control) {
+        this.cap = cap;
+        this.limit = cap <= Integer.MAX_VALUE / 2 ? cap * 2 : Integer.MAX_VALUE;
+        this.control = control;
+    }
+
+    @Override
+    public void accept(Violation violation) {
+        if (control.isBaselined(violation)) {
+            return;
+        }
+        control.violationFound(violation.getSeverity());
+        found++;
+        kept.add(violation);
+        if (kept.size() >= limit) {
+            trim();
+        }
+    }
+
+    /**
+     * Appends the violations of a buffer that was filled after this one, as if they had been
+     * delivered here.
+     */
+    void addAll(ViolationBuffer later) {
+        found += later.found;
+        for (Violation violation : later.kept) {
+            kept.add(violation);
+            if (kept.size() >= limit) {
+                trim();
+            }
+        }
+    }
+
+    /**
+     * Sorts the violations kept into delivery order, once the rule is complete.
+     */
+    void finish() {
+        trim();
+    }
+
+    private void trim() {
+        kept.sort(ORDER);
+        if (kept.size() > cap) {
+            kept.subList(cap, kept.size()).clear();
+        }
+    }
+
+    List<Violation> getKept() {
+        return kept;
+    }
+
+    long getFound() {
+        return found;
+    }
+}
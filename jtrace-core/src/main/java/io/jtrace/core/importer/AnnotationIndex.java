@@ -0,0 +1,108 @@
+package io.jtrace.core.importer;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from annotation names to the classes, methods and fields carrying them, built
+ * when the model is sealed.
+ *
+ * <p>An annotation is indexed under every name a rule may use for it: its name as written, each
+ * shorter name after one of its dots, and its name without a leading {@code @}. So
+ * {@code org.springframework.stereotype.Service} is found both as {@code Service} and as
+ * {@code stereotype.Service}. Names are interned in the model's {@link SymbolTable}, and the
+ * elements carrying them are kept as bitsets over class, method and field IDs. The bitsets are
+ * shared and must not be modified.
+ */
+public final class AnnotationIndex {
+    private static final BitSet EMPTY = new BitSet();
+
+    private final SymbolTable symbols;
+    private final Map<Integer, BitSet> classes = new HashMap<>();
+    private final Map<Integer, BitSet> methods = new HashMap<>();
+    private final Map<Integer, BitSet> fields = new HashMap<>();
+
+    /**
+     * Indexes the given classes and their members, whose IDs must already be assigned.
+     */
+    AnnotationIndex(List<ProjectModel.ClassInfo> classInfos, SymbolTable symbols) {
+        this.symbols = symbols;
+        Map<String, int[]> keys = new HashMap<>();
+        for (ProjectModel.ClassInfo classInfo : classInfos) {
+            add(classes, keys, classInfo.getAnnotations(), classInfo.getId());
+            for (ProjectModel.MethodInfo method : classInfo.getMethods()) {
+                add(methods, keys, method.getAnnotations(), method.getId());
+            }
+            for (ProjectModel.FieldInfo field : classInfo.getFields()) {
+                add(fields, keys, field.getAnnotations(), field.getId());
+            }
+        }
+    }
+
+    /**
+     * Returns the IDs of the classes carrying the annotation.
+     */
+    public BitSet getClasses(String annotation) {
+        return lookup(classes, annotation);
+    }
+
+    /**
+     * Returns the IDs of the methods carrying the annotation.
+     */
+    public BitSet getMethods(String annotation) {
+        return lookup(methods, annotation);
+    }
+
+    /**
+     * Returns the IDs of the fields carrying the annotation.
+     */
+    public BitSet getFields(String annotation) {
+        return lookup(fields, annotation);
+    }
+
+    private BitSet lookup(Map<Integer, BitSet> elements, String annotation) {
+        int id = symbols.lookup(annotation);
+        BitSet result = id != SymbolTable.NONE ? elements.get(id) : null;
+        return result != null ? result : EMPTY;
+    }
+
+    private void add(Map<Integer, BitSet> elements, Map<String, int[]> keys, Collection<String> annotations,
+                     int elementId) {
+        if (annotations == null) {
+            return;
+        }
+        for (String annotation : annotations) {
+            for (int key : keys.computeIfAbsent(annotation, this::keysOf)) {
+                elements.computeIfAbsent(key, k -> new BitSet()).set(elementId);
+            }
+        }
+    }
+
+    /**
+     * Interns every name the annotation is indexed under.
+     */
+    private int[] keysOf(String annotation) {
+        int count = 1;
+        for (int i = 0; i < annotation.length(); i++) {
+            if (annotation.charAt(i) == '.') {
+                count++;
+            }
+        }
+        boolean prefixed = annotation.startsWith("@");
+        int[] ids = new int[prefixed ? count + 1 : count];
+        ids[0] = symbols.intern(annotation);
+        int next = 1;
+        for (int i = 0; i < annotation.length(); i++) {
+            if (annotation.charAt(i) == '.') {
+                ids[next++] = symbols.intern(annotation.substring(i + 1));
+            }
+        }
+        if (prefixed) {
+            ids[next] = symbols.intern(annotation.substring(1));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,613 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.*;
+import org.objectweb.asm.*;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports compiled classes from class directories and jar files using ASM.
+ *
+ * <p>Besides the declared structure, the importer records the dependencies held in method bodies
+ * (invocations, field accesses, instantiations, casts and {@code instanceof} checks) as
+ * {@link Dependency} edges on the model. Class files can be read in parallel; results are merged
+ * in a deterministic order.
+ *
+ * <p>Classes are named as in source imports: member and local classes after the class declaring
+ * them, as told by the {@code InnerClasses} and {@code EnclosingMethod} attributes, while anonymous
+ * classes are folded into the nearest named class around them. A {@code $} that does not separate
+ * a nested class is kept as part of the name.
+ */
+public class BytecodeImporter {
+    private static final int CLASSES_PER_TASK = 64;
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_FRAMES;
+
+    private final int parallelism;
+
+    public BytecodeImporter() {
+        this(1);
+    }
+
+    /**
+     * Creates an importer reading with the given number of workers; zero or less means one
+     * worker per available processor.
+     */
+    public BytecodeImporter(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Imports every class found in the given class directories and jar files.
+     */
+    public ProjectModel importClasses(List<Path> classPaths) throws IOException {
+        List<JarFile> jars = new ArrayList<>();
+        try {
+            List<ClassEntry> entries = new ArrayList<>();
+            for (Path classPath : classPaths) {
+                if (Files.isDirectory(classPath)) {
+                    collectDirectory(classPath, entries);
+                } else if (Files.isRegularFile(classPath)) {
+                    JarFile jar = new JarFile(classPath.toFile());
+                    jars.add(jar);
+                    collectJar(classPath, jar, entries);
+                }
+            }
+
+            ClassInfoVisitor[] read = new ClassInfoVisitor[entries.size()];
+            if (parallelism > 1 && entries.size() > 1) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    pool.invoke(new ReadTask(entries, read, 0, read.length));
+                } finally {
+                    pool.shutdown();
+                }
+            } else {
+                for (int i = 0; i < read.length; i++) {
+                    read[i] = readClass(entries.get(i));
+                }
+            }
+
+            // Nested class names depend on attributes spread over several class files
+            ClassNames names = new ClassNames();
+            for (ClassInfoVisitor visitor : read) {
+                if (visitor != null) {
+                    names.add(visitor);
+                }
+            }
+            ProjectModel model = new ProjectModel();
+            for (ClassInfoVisitor visitor : read) {
+                if (visitor != null) {
+                    mergeInto(visitor.result(names), model);
+                }
+            }
+            model.seal();
+            return model;
+        } finally {
+            for (JarFile jar : jars) {
+                jar.close();
+            }
+        }
+    }
+
+    private void collectDirectory(Path directory, List<ClassEntry> entries) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> classFiles = files
+                .filter(path -> path.toString().endsWith(".class"))
+                .filter(path -> !path.getFileName().toString().equals("module-info.class"))
+                .sorted()
+                .collect(Collectors.toList());
+            for (Path classFile : classFiles) {
+                entries.add(new ClassEntry(classFile.toString(), () -> Files.newInputStream(classFile)));
+            }
+        }
+    }
+
+    private void collectJar(Path jarPath, JarFile jar, List<ClassEntry> entries) {
+        for (JarEntry entry : Collections.list(jar.entries())) {
+            String name = entry.getName();
+            if (name.endsWith(".class") && !name.endsWith("module-info.class")
+                    && !name.startsWith("META-INF/")) {
+                entries.add(new ClassEntry(jarPath + "!/" + name, () -> jar.getInputStream(entry)));
+            }
+        }
+    }
+
+    private ClassInfoVisitor readClass(ClassEntry entry) {
+        try (InputStream input = entry.opener.open()) {
+            ClassReader reader = new ClassReader(input);
+            ClassInfoVisitor visitor = new ClassInfoVisitor(entry.location);
+            reader.accept(visitor, PARSING_OPTIONS);
+            return visitor;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Could not read " + entry.location + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void mergeInto(ParsedSource source, ProjectModel model) {
+        PackageInfo packageInfo = model.getPackage(source.packageName);
+        if (packageInfo == null) {
+            packageInfo = new PackageInfo(source.packageName);
+            model.addPackage(packageInfo);
+        }
+
+        for (ClassInfo classInfo : source.classes) {
+            packageInfo.addClass(classInfo);
+            model.addClass(classInfo);
+        }
+        for (Dependency dependency : source.dependencies) {
+            model.addDependency(dependency);
+        }
+    }
+
+    private static String typeName(Type type, ClassNames names) {
+        switch (type.getSort()) {
+            case Type.ARRAY:
+                StringBuilder name = new StringBuilder(typeName(type.getElementType(), names));
+                for (int i = 0; i < type.getDimensions(); i++) {
+                    name.append("[]");
+                }
+                return name.toString();
+            case Type.OBJECT:
+                return names.nameOf(type.getInternalName());
+            default:
+                return type.getClassName();
+        }
+    }
+
+    private static List<String> typeNames(List<String> descriptors, ClassNames names) {
+        List<String> typeNames = new ArrayList<>(descriptors.size());
+        for (String descriptor : descriptors) {
+            typeNames.add(typeName(Type.getType(descriptor), names));
+        }
+        return typeNames;
+    }
+
+    private static Visibility visibilityOf(int access) {
+        if ((access & Opcodes.ACC_PUBLIC) != 0) return Visibility.PUBLIC;
+        if ((access & Opcodes.ACC_PROTECTED) != 0) return Visibility.PROTECTED;
+        if ((access & Opcodes.ACC_PRIVATE) != 0) return Visibility.PRIVATE;
+        return Visibility.PACKAGE_PRIVATE;
+    }
+
+    private static ClassType classTypeOf(int access) {
+        if ((access & Opcodes.ACC_ANNOTATION) != 0) return ClassType.ANNOTATION;
+        if ((access & Opcodes.ACC_INTERFACE) != 0) return ClassType.INTERFACE;
+        if ((access & Opcodes.ACC_ENUM) != 0) return ClassType.ENUM;
+        return ClassType.CLASS;
+    }
+
+    /**
+     * Builds the class info and dependency edges of a single class file. Names are kept in their
+     * internal form until {@link #result(ClassNames)}, once the attributes of every class are read.
+     */
+    private static final class ClassInfoVisitor extends ClassVisitor {
+        private final String location;
+        private final List<String> annotations = new ArrayList<>();
+        private final List<FieldDeclaration> fields = new ArrayList<>();
+        private final List<MethodDeclaration> methods = new ArrayList<>();
+        private final Map<String, DependencyType> dependencyTypes = new LinkedHashMap<>();
+        private final Map<String, Integer> dependencyLines = new HashMap<>();
+        // Every InnerClasses entry of the class file, by internal name
+        private final Map<String, NestedClass> nestedClasses = new HashMap<>();
+
+        private String internalName;
+        private String packageName;
+        private String simpleName;
+        private String enclosingClass;
+        private String declaringClass;
+        private String sourceFile;
+        private int access;
+        private boolean anonymous;
+
+        ClassInfoVisitor(String location) {
+            super(Opcodes.ASM9);
+            this.location = location;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature,
+                          String superName, String[] interfaces) {
+            this.internalName = name;
+            this.access = access;
+            int slash = name.lastIndexOf('/');
+            this.packageName = slash < 0 ? "" : name.substring(0, slash).replace('/', '.');
+            this.simpleName = slash < 0 ? name : name.substring(slash + 1);
+
+            if (superName != null && !superName.equals("java/lang/Object")) {
+                addDependency(superName, DependencyType.EXTENDS, 0);
+            }
+            if (interfaces != null) {
+                for (String iface : interfaces) {
+                    addDependency(iface, DependencyType.IMPLEMENTS, 0);
+                }
+            }
+            addSignatureDependencies(signature, DependencyType.EXTENDS, 0);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            if (source != null) {
+                String packagePath = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+                this.sourceFile = packagePath + source;
+            }
+        }
+
+        @Override
+        public void visitOuterClass(String owner, String name, String descriptor) {
+            // Only local and anonymous classes have an enclosing method attribute
+            declaringClass = owner;
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            nestedClasses.put(name, new NestedClass(outerName, innerName));
+            if (!name.equals(internalName)) {
+                return;
+            }
+            if (innerName == null) {
+                anonymous = true;
+                return;
+            }
+            this.simpleName = innerName;
+            this.access = access;
+            this.enclosingClass = outerName;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            annotations.add(descriptor);
+            return null;
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor,
+                                       String signature, Object value) {
+            if ((access & Opcodes.ACC_SYNTHETIC) != 0) {
+                return null;
+            }
+            Type type = Type.getType(descriptor);
+            addTypeDependency(type, DependencyType.FIELD, 0);
+            addSignatureDependencies(signature, DependencyType.FIELD, 0);
+
+            FieldDeclaration field = new FieldDeclaration(name, type, access);
+            fields.add(field);
+            return new FieldVisitor(Opcodes.ASM9) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                    field.annotations.add(annotationDescriptor);
+                    return null;
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor,
+                                         String signature, String[] exceptions) {
+            if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0) {
+                // Compiler-generated bodies, such as lambdas, still contribute dependencies
+                return new BodyVisitor(null);
+            }
+
+            Type methodType = Type.getMethodType(descriptor);
+            addTypeDependency(methodType.getReturnType(), DependencyType.METHOD_SIGNATURE, 0);
+            for (Type argument : methodType.getArgumentTypes()) {
+                addTypeDependency(argument, DependencyType.METHOD_SIGNATURE, 0);
+            }
+            addSignatureDependencies(signature, DependencyType.METHOD_SIGNATURE, 0);
+
+            // Constructors and initializers are not part of the method model, like in source imports
+            if (name.startsWith("<")) {
+                return new BodyVisitor(null);
+            }
+            return new BodyVisitor(new MethodDeclaration(name, methodType, access));
+        }
+
+        ParsedSource result(ClassNames names) {
+            ParsedSource source = new ParsedSource(packageName, Collections.emptySet());
+            String file = sourceFile != null ? sourceFile : location;
+            // An anonymous class takes the name of the class around it, so its dependencies go there
+            String className = names.nameOf(internalName);
+            if (!anonymous && (access & Opcodes.ACC_SYNTHETIC) == 0) {
+                ClassInfo classInfo = new ClassInfo(simpleName, className, packageName,
+                                                    visibilityOf(access), classTypeOf(access));
+                classInfo.setSourceFile(file);
+                String outer = enclosingClass != null ? enclosingClass : declaringClass;
+                classInfo.setEnclosingClass(outer != null ? names.nameOf(outer) : null);
+                classInfo.setAnnotations(typeNames(annotations, names));
+                for (FieldDeclaration field : fields) {
+                    classInfo.addField(field.toFieldInfo(names));
+                }
+                for (MethodDeclaration method : methods) {
+                    classInfo.addMethod(method.toMethodInfo(names));
+                }
+                source.classes.add(classInfo);
+            }
+            Set<String> added = new HashSet<>();
+            for (Map.Entry<String, DependencyType> entry : dependencyTypes.entrySet()) {
+                String key = entry.getKey();
+                String target = names.nameOf(key.substring(0, key.indexOf('#')));
+                // Anonymous classes of another class may resolve to the same target
+                if (!target.equals(className) && added.add(target + "#" + entry.getValue())) {
+                    Location dependencyLocation = new Location(file, dependencyLines.get(key), 0);
+                    source.dependencies.add(new Dependency(className, target, entry.getValue(), dependencyLocation));
+                }
+            }
+            return source;
+        }
+
+        private void addTypeDependency(Type type, DependencyType dependencyType, int line) {
+            if (type.getSort() == Type.ARRAY) {
+                type = type.getElementType();
+            }
+            if (type.getSort() == Type.OBJECT) {
+                addDependency(type.getInternalName(), dependencyType, line);
+            }
+        }
+
+        private void addSignatureDependencies(String signature, DependencyType dependencyType, int line) {
+            if (signature == null) {
+                return;
+            }
+            new SignatureReader(signature).accept(new SignatureVisitor(Opcodes.ASM9) {
+                @Override
+                public void visitClassType(String name) {
+                    addDependency(name, dependencyType, line);
+                }
+            });
+        }
+
+        private void addDependency(String internalTarget, DependencyType type, int line) {
+            if (internalTarget.startsWith("[")) {
+                addTypeDependency(Type.getType(internalTarget), type, line);
+                return;
+            }
+            if (internalTarget.equals(internalName)) {
+                return;
+            }
+            // Model names are only known once every class is read, so key by internal name
+            String key = internalTarget + "#" + type;
+            if (dependencyTypes.putIfAbsent(key, type) == null) {
+                dependencyLines.put(key, line);
+            }
+        }
+
+        /**
+         * Pending field info, completed once its annotations and the class names are known.
+         */
+        private final class FieldDeclaration {
+            final String name;
+            final Type type;
+            final int access;
+            final List<String> annotations = new ArrayList<>();
+
+            FieldDeclaration(String name, Type type, int access) {
+                this.name = name;
+                this.type = type;
+                this.access = access;
+            }
+
+            FieldInfo toFieldInfo(ClassNames names) {
+                return new FieldInfo(name, typeName(type, names), visibilityOf(access),
+                                     typeNames(annotations, names));
+            }
+        }
+
+        /**
+         * Pending method info, completed once its parameter names, annotations and the class
+         * names are known.
+         */
+        private final class MethodDeclaration {
+            final String name;
+            final Type type;
+            final int access;
+            final List<String> parameterNames = new ArrayList<>();
+            final List<String> annotations = new ArrayList<>();
+
+            MethodDeclaration(String name, Type type, int access) {
+                this.name = name;
+                this.type = type;
+                this.access = access;
+            }
+
+            MethodInfo toMethodInfo(ClassNames names) {
+                Type[] argumentTypes = type.getArgumentTypes();
+                List<ParameterInfo> parameters = new ArrayList<>(argumentTypes.length);
+                for (int i = 0; i < argumentTypes.length; i++) {
+                    String parameterName = i < parameterNames.size() ? parameterNames.get(i) : "arg" + i;
+                    parameters.add(new ParameterInfo(parameterName, typeName(argumentTypes[i], names)));
+                }
+                return new MethodInfo(name, typeName(type.getReturnType(), names), visibilityOf(access),
+                                      parameters, typeNames(annotations, names));
+            }
+        }
+
+        /**
+         * Records the dependencies held in a method body, with the line they appear on.
+         */
+        private final class BodyVisitor extends MethodVisitor {
+            private final MethodDeclaration declaration;
+            private int line;
+
+            BodyVisitor(MethodDeclaration declaration) {
+                super(Opcodes.ASM9);
+                this.declaration = declaration;
+            }
+
+            @Override
+            public void visitParameter(String name, int access) {
+                if (declaration != null) {
+                    declaration.parameterNames.add(name);
+                }
+            }
+
+            @Override
+            public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+                if (declaration != null) {
+                    declaration.annotations.add(descriptor);
+                }
+                return null;
+            }
+
+            @Override
+            public void visitLineNumber(int line, Label start) {
+                this.line = line;
+            }
+
+            @Override
+            public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+                                        boolean isInterface) {
+                DependencyType type = name.equals("<init>") ? DependencyType.CONSTRUCTOR_CALL : DependencyType.METHOD_CALL;
+                addDependency(owner, type, line);
+            }
+
+            @Override
+            public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                addDependency(owner, DependencyType.FIELD_ACCESS, line);
+            }
+
+            @Override
+            public void visitTypeInsn(int opcode, String type) {
+                switch (opcode) {
+                    case Opcodes.NEW:
+                    case Opcodes.ANEWARRAY:
+                        addDependency(type, DependencyType.CONSTRUCTOR_CALL, line);
+                        break;
+                    case Opcodes.CHECKCAST:
+                        addDependency(type, DependencyType.CAST, line);
+                        break;
+                    case Opcodes.INSTANCEOF:
+                        addDependency(type, DependencyType.INSTANCEOF, line);
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            @Override
+            public void visitEnd() {
+                if (declaration != null) {
+                    methods.add(declaration);
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry of an {@code InnerClasses} attribute: a member class has both names, a local class
+     * only its simple name and an anonymous class neither.
+     */
+    private static final class NestedClass {
+        final String outerName;
+        final String innerName;
+
+        NestedClass(String outerName, String innerName) {
+            this.outerName = outerName;
+            this.innerName = innerName;
+        }
+    }
+
+    /**
+     * Model names of the classes read and of the nested classes they refer to, resolved from the
+     * {@code InnerClasses} entries and enclosing methods of every class file.
+     */
+    private static final class ClassNames {
+        private final Map<String, NestedClass> nestedClasses = new HashMap<>();
+        private final Map<String, String> declaringClasses = new HashMap<>();
+        private final Map<String, String> names = new HashMap<>();
+
+        void add(ClassInfoVisitor visitor) {
+            visitor.nestedClasses.forEach(nestedClasses::putIfAbsent);
+            if (visitor.declaringClass != null) {
+                declaringClasses.put(visitor.internalName, visitor.declaringClass);
+            }
+        }
+
+        /**
+         * Returns the dotted name of a class given its internal name.
+         */
+        String nameOf(String internalName) {
+            String name = names.get(internalName);
+            if (name == null) {
+                name = resolve(internalName);
+                names.put(internalName, name);
+            }
+            return name;
+        }
+
+        private String resolve(String internalName) {
+            NestedClass nested = nestedClasses.get(internalName);
+            String outer = null;
+            if (nested != null) {
+                outer = nested.outerName != null ? nested.outerName : declaringClasses.get(internalName);
+            }
+            if (outer == null) {
+                // Top-level, or a local class whose enclosing method was not read
+                return internalName.replace('/', '.');
+            }
+            String outerName = nameOf(outer);
+            return nested.innerName != null ? outerName + "." + nested.innerName : outerName;
+        }
+    }
+
+    /**
+     * A class file to read, located either in a directory or inside a jar.
+     */
+    private static final class ClassEntry {
+        final String location;
+        final StreamOpener opener;
+
+        ClassEntry(String location, StreamOpener opener) {
+            this.location = location;
+            this.opener = opener;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Reads a slice of the class entries, splitting until a slice is small enough to read directly.
+     */
+    private final class ReadTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<ClassEntry> entries;
+        private final ClassInfoVisitor[] results;
+        private final int from;
+        private final int to;
+
+        ReadTask(List<ClassEntry> entries, ClassInfoVisitor[] results, int from, int to) {
+            this.entries = entries;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CLASSES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = readClass(entries.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ReadTask(entries, results, from, mid),
+                      new ReadTask(entries, results, mid, to));
+        }
+    }
+}
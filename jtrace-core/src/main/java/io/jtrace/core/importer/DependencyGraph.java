@@ -0,0 +1,282 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import java.util.Arrays;
+
+/**
+ * Class-level dependency graph in compressed sparse row form, with forward and reverse adjacency.
+ *
+ * <p>Nodes are the dense class IDs assigned by {@link ProjectModel#seal()}. The outgoing edges of
+ * node {@code n} are the edge indices from {@link #outStart(int) outStart(n)} up to
+ * {@link #outEnd(int) outEnd(n)}, sorted by target. Incoming edges are listed the same way, sorted
+ * by source, and refer back to the forward edge index for their attributes.
+ *
+ * <p>All references from one class to another are merged into a single edge, which carries the
+ * {@link DependencyType dependency types} involved as a bitmask, the first known source line and
+ * the number of references. Only dependencies between classes of the model are kept.
+ */
+public final class DependencyGraph {
+    private final int nodeCount;
+    private final int[] outOffsets;
+    private final int[] targets;
+    private final int[] types;
+    private final int[] lines;
+    private final int[] weights;
+    private final int[] inOffsets;
+    private final int[] sources;
+    private final int[] inEdges;
+
+    private DependencyGraph(int nodeCount, int[] outOffsets, int[] targets, int[] types,
+                            int[] lines, int[] weights) {
+        this.nodeCount = nodeCount;
+        this.outOffsets = outOffsets;
+        this.targets = targets;
+        this.types = types;
+        this.lines = lines;
+        this.weights = weights;
+
+        // Reverse adjacency by counting sort on the target; visiting sources in order keeps each
+        // incoming list sorted by source
+        int edgeCount = targets.length;
+        inOffsets = new int[nodeCount + 1];
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            inOffsets[node + 1] += inOffsets[node];
+        }
+        sources = new int[edgeCount];
+        inEdges = new int[edgeCount];
+        int[] next = Arrays.copyOf(inOffsets, nodeCount);
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = outOffsets[node]; edge < outOffsets[node + 1]; edge++) {
+                int slot = next[targets[edge]]++;
+                sources[slot] = node;
+                inEdges[slot] = edge;
+            }
+        }
+    }
+
+    /**
+     * Returns the bitmask bit of the given dependency type.
+     */
+    public static int mask(DependencyType type) {
+        return 1 << type.ordinal();
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Index of the first outgoing edge of the given node.
+     */
+    public int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    /**
+     * Index just past the last outgoing edge of the given node.
+     */
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int outDegree(int node) {
+        return outOffsets[node + 1] - outOffsets[node];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Returns the dependency types of the given edge as a bitmask of {@link #mask} bits.
+     */
+    public int types(int edge) {
+        return types[edge];
+    }
+
+    public boolean hasType(int edge, DependencyType type) {
+        return (types[edge] & mask(type)) != 0;
+    }
+
+    /**
+     * Returns the first known source line of the given edge, or 0 if no line is known.
+     */
+    public int line(int edge) {
+        return lines[edge];
+    }
+
+    /**
+     * Returns the number of references the given edge stands for.
+     */
+    public int weight(int edge) {
+        return weights[edge];
+    }
+
+    /**
+     * Index of the first incoming slot of the given node.
+     */
+    public int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    /**
+     * Index just past the last incoming slot of the given node.
+     */
+    public int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int inDegree(int node) {
+        return inOffsets[node + 1] - inOffsets[node];
+    }
+
+    /**
+     * Returns the source node of the given incoming slot.
+     */
+    public int source(int slot) {
+        return sources[slot];
+    }
+
+    /**
+     * Returns the forward edge index of the given incoming slot.
+     */
+    public int inEdge(int slot) {
+        return inEdges[slot];
+    }
+
+    /**
+     * Returns the index of the edge between the given nodes, or -1 if there is none.
+     */
+    public int findEdge(int from, int to) {
+        int edge = Arrays.binarySearch(targets, outOffsets[from], outOffsets[from + 1], to);
+        return edge >= 0 ? edge : -1;
+    }
+
+    public boolean hasEdge(int from, int to) {
+        return findEdge(from, to) >= 0;
+    }
+
+    /**
+     * Condenses the graph by node groups, for example classes by package. Node {@code n} becomes
+     * group {@code groups[n]}; nodes in group -1 are dropped. Edges between the same two groups
+     * are merged like references between two classes, with their weights summed, and edges
+     * inside a group are dropped.
+     */
+    public DependencyGraph condense(int[] groups, int groupCount) {
+        Builder builder = new Builder();
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = outOffsets[node]; edge < outOffsets[node + 1]; edge++) {
+                builder.add(groups[node], groups[targets[edge]], types[edge], lines[edge], weights[edge]);
+            }
+        }
+        int[] identity = new int[groupCount];
+        Arrays.setAll(identity, group -> group);
+        return builder.build(identity, groupCount);
+    }
+
+    /**
+     * Collects raw edges in primitive arrays and compacts them into a graph.
+     */
+    static final class Builder {
+        private int[] from = new int[256];
+        private int[] to = new int[256];
+        private int[] types = new int[256];
+        private int[] lines = new int[256];
+        private int[] weights = new int[256];
+        private int size;
+
+        void add(int from, int to, int types, int line) {
+            add(from, to, types, line, 1);
+        }
+
+        void add(int from, int to, int types, int line, int weight) {
+            if (size == this.from.length) {
+                int capacity = size * 2;
+                this.from = Arrays.copyOf(this.from, capacity);
+                this.to = Arrays.copyOf(this.to, capacity);
+                this.types = Arrays.copyOf(this.types, capacity);
+                this.lines = Arrays.copyOf(this.lines, capacity);
+                this.weights = Arrays.copyOf(this.weights, capacity);
+            }
+            this.from[size] = from;
+            this.to[size] = to;
+            this.types[size] = types;
+            this.lines[size] = line;
+            this.weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Builds the graph, mapping the endpoints added so far to nodes through {@code nodeIds}.
+         * Edges with an endpoint that maps to no node (outside the array or -1) and self edges
+         * are dropped.
+         */
+        DependencyGraph build(int[] nodeIds, int nodeCount) {
+            int[] offsets = new int[nodeCount + 1];
+            int valid = 0;
+            for (int i = 0; i < size; i++) {
+                int source = node(nodeIds, from[i]);
+                int target = node(nodeIds, to[i]);
+                if (source >= 0 && target >= 0 && source != target) {
+                    offsets[source + 1]++;
+                    valid++;
+                }
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            // Bucket by source, then sort each bucket by target; the low half keeps the raw index
+            long[] keys = new long[valid];
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < size; i++) {
+                int source = node(nodeIds, from[i]);
+                int target = node(nodeIds, to[i]);
+                if (source >= 0 && target >= 0 && source != target) {
+                    keys[next[source]++] = ((long) target << 32) | i;
+                }
+            }
+
+            int[] outOffsets = new int[nodeCount + 1];
+            int[] edgeTargets = new int[valid];
+            int[] edgeTypes = new int[valid];
+            int[] edgeLines = new int[valid];
+            int[] edgeWeights = new int[valid];
+            int edges = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                outOffsets[node] = edges;
+                Arrays.sort(keys, offsets[node], offsets[node + 1]);
+                for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                    int target = (int) (keys[k] >>> 32);
+                    int i = (int) keys[k];
+                    if (edges == outOffsets[node] || edgeTargets[edges - 1] != target) {
+                        edgeTargets[edges] = target;
+                        edges++;
+                    }
+                    int edge = edges - 1;
+                    edgeTypes[edge] |= types[i];
+                    if (lines[i] > 0 && (edgeLines[edge] == 0 || lines[i] < edgeLines[edge])) {
+                        edgeLines[edge] = lines[i];
+                    }
+                    edgeWeights[edge] += weights[i];
+                }
+            }
+            outOffsets[nodeCount] = edges;
+
+            return new DependencyGraph(nodeCount, outOffsets,
+                                       Arrays.copyOf(edgeTargets, edges), Arrays.copyOf(edgeTypes, edges),
+                                       Arrays.copyOf(edgeLines, edges), Arrays.copyOf(edgeWeights, edges));
+        }
+
+        private static int node(int[] nodeIds, int id) {
+            return id >= 0 && id < nodeIds.length ? nodeIds[id] : -1;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.jtrace.core.importer;
+
+/**
+ * How much of each source file the {@link SourceImporter} extracts.
+ */
+public enum ImportMode {
+    /**
+     * Full JavaParser AST, including annotations on classes and members.
+     */
+    FULL,
+
+    /**
+     * Lightweight token scan of the package, imports, type declarations and member signatures.
+     * Method bodies and initializers are skipped without building an AST, except for the names
+     * and signatures of classes declared in them, and annotations are not recorded.
+     */
+    SIGNATURES
+}
@@ -0,0 +1,185 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Imports sources as a chain of concurrent stages connected by bounded queues:
+ * discovery, reading, parsing and model building.
+ *
+ * <p>The bounded queues apply backpressure, so a fast directory walk cannot pile up file contents
+ * faster than the parsers consume them. The model is built on the calling thread, which also
+ * hands each class to a listener as it arrives. Every stage forwards an end marker to the next
+ * one when its last worker finishes, including after a failure, so the pipeline always drains.
+ *
+ * <p>The stop condition is polled for every file. Once it holds, discovery stops listing
+ * directories and the later stages drain their queues without reading or parsing.
+ */
+final class ImportPipeline {
+    private static final int PATH_QUEUE_CAPACITY = 1024;
+    private static final int CONTENT_QUEUE_CAPACITY = 64;
+    private static final int RESULT_QUEUE_CAPACITY = 256;
+    private static final int MAX_READERS = 2;
+
+    private final SourceImporter importer;
+    private final SourceDiscovery discovery;
+    private final int parsers;
+    private final int readers;
+    private final BooleanSupplier stop;
+
+    private final BlockingQueue<SourceFile> paths = new ArrayBlockingQueue<>(PATH_QUEUE_CAPACITY);
+    private final BlockingQueue<SourceFile> contents = new ArrayBlockingQueue<>(CONTENT_QUEUE_CAPACITY);
+    private final BlockingQueue<SourceFile> results = new ArrayBlockingQueue<>(RESULT_QUEUE_CAPACITY);
+
+    ImportPipeline(SourceImporter importer, SourceDiscovery discovery, int parallelism, BooleanSupplier stop) {
+        this.importer = importer;
+        this.discovery = discovery;
+        this.parsers = parallelism;
+        this.readers = Math.min(parallelism, MAX_READERS);
+        this.stop = stop;
+    }
+
+    ProjectModel run(List<Path> roots, Consumer<ClassInfo> classListener) {
+        ExecutorService stages = Executors.newFixedThreadPool(1 + readers + parsers,
+                                                              new StageThreadFactory());
+        ForkJoinPool walkPool = new ForkJoinPool(readers);
+        try {
+            stages.execute(() -> discover(walkPool, roots));
+            AtomicInteger activeReaders = new AtomicInteger(readers);
+            for (int i = 0; i < readers; i++) {
+                stages.execute(() -> read(activeReaders));
+            }
+            AtomicInteger activeParsers = new AtomicInteger(parsers);
+            for (int i = 0; i < parsers; i++) {
+                stages.execute(() -> parse(activeParsers));
+            }
+
+            List<SourceFile> parsed = new ArrayList<>();
+            for (SourceFile file = take(results); file != SourceFile.END; file = take(results)) {
+                parsed.add(file);
+                if (!stop.getAsBoolean()) {
+                    file.parsed.classes.forEach(classListener);
+                }
+            }
+
+            // Merge in path order so that duplicate class names resolve the same way every run
+            parsed.sort(Comparator.comparing(file -> file.path));
+            List<ParsedSource> sources = new ArrayList<>(parsed.size());
+            for (SourceFile file : parsed) {
+                sources.add(file.parsed);
+            }
+            return importer.buildModel(sources);
+        } finally {
+            stages.shutdownNow();
+            walkPool.shutdownNow();
+        }
+    }
+
+    private void discover(ForkJoinPool walkPool, List<Path> roots) {
+        try {
+            walkPool.invoke(discovery.walkTask(roots,
+                path -> put(paths, new SourceFile(path, (byte[]) null)), stop));
+        } finally {
+            for (int i = 0; i < readers; i++) {
+                put(paths, SourceFile.END);
+            }
+        }
+    }
+
+    private void read(AtomicInteger activeReaders) {
+        try {
+            for (SourceFile file = take(paths); file != SourceFile.END; file = take(paths)) {
+                if (stop.getAsBoolean()) {
+                    continue;
+                }
+                try {
+                    put(contents, new SourceFile(file.path, Files.readAllBytes(file.path)));
+                } catch (Exception e) {
+                    System.err.println("Warning: Could not read " + file.path + ": " + e.getMessage());
+                }
+            }
+        } finally {
+            if (activeReaders.decrementAndGet() == 0) {
+                for (int i = 0; i < parsers; i++) {
+                    put(contents, SourceFile.END);
+                }
+            }
+        }
+    }
+
+    private void parse(AtomicInteger activeParsers) {
+        try {
+            for (SourceFile file = take(contents); file != SourceFile.END; file = take(contents)) {
+                if (stop.getAsBoolean()) {
+                    continue;
+                }
+                ParsedSource parsed = importer.parseSource(file.path, file.content);
+                if (parsed != null) {
+                    put(results, new SourceFile(file.path, parsed));
+                }
+            }
+        } finally {
+            if (activeParsers.decrementAndGet() == 0) {
+                put(results, SourceFile.END);
+            }
+        }
+    }
+
+    private static SourceFile take(BlockingQueue<SourceFile> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing sources", e);
+        }
+    }
+
+    private static void put(BlockingQueue<SourceFile> queue, SourceFile file) {
+        try {
+            queue.put(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing sources", e);
+        }
+    }
+
+    /**
+     * A file travelling through the pipeline: first its path, then its content, then its parse result.
+     */
+    private static final class SourceFile {
+        static final SourceFile END = new SourceFile(null, (byte[]) null);
+
+        final Path path;
+        final byte[] content;
+        final ParsedSource parsed;
+
+        SourceFile(Path path, byte[] content) {
+            this.path = path;
+            this.content = content;
+            this.parsed = null;
+        }
+
+        SourceFile(Path path, ParsedSource parsed) {
+            this.path = path;
+            this.content = null;
+            this.parsed = parsed;
+        }
+    }
+
+    private static final class StageThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jtrace-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
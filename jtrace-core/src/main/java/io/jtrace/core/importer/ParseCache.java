@@ -0,0 +1,370 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.JTraceVersion;
+import io.jtrace.core.importer.ProjectModel.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of parsed source files, keyed by a hash of the file content and the JTrace version.
+ *
+ * <p>Each entry is a small binary file holding the package, imports, extracted classes and
+ * unresolved type references of one source file. Entries are written to a temporary file and
+ * atomically renamed into place, so several builds can share a cache directory. When the directory
+ * grows beyond its size limit the least recently used entries are evicted.
+ */
+public class ParseCache {
+    private static final int MAGIC = 0x4A545043; // "JTPC"
+    private static final int FORMAT_VERSION = 5;
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final byte[] keySalt;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public ParseCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.keySalt = (FORMAT_VERSION + ":" + JTraceVersion.get() + ":")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Computes the cache key for the given source file content and import mode.
+     */
+    public String keyFor(byte[] content, ImportMode mode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(keySalt);
+            digest.update((byte) mode.ordinal());
+            byte[] hash = digest.digest(content);
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16));
+                key.append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Loads the entry for the given key, or returns null on a miss. Unreadable entries are dropped.
+     */
+    ParsedSource load(String key, Path sourcePath) {
+        Path entry = entryPath(key);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(entry)))) {
+            ParsedSource source = read(in, sourcePath.toString());
+            touch(entry);
+            hits.incrementAndGet();
+            return source;
+        } catch (NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(entry);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Stores an entry. Failures are reported but never fail the import.
+     */
+    void store(String key, ParsedSource source) {
+        Path entry = entryPath(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out, source);
+            }
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write parse cache entry " + entry + ": " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    /**
+     * Deletes least recently used entries until the cache fits in its size limit again.
+     */
+    public void evictIfNeeded() {
+        if (maxBytes <= 0 || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<Path> entries = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long totalBytes = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.add(file);
+                    attributes.put(file, attrs);
+                    totalBytes += attrs.size();
+                } catch (IOException e) {
+                    // Removed concurrently by another build
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Warning: Could not scan parse cache " + directory + ": " + e.getMessage());
+            return;
+        }
+
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+
+        // Evict down to 90% of the limit so that eviction does not run on every import
+        long target = maxBytes - maxBytes / 10;
+        entries.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : entries) {
+            if (totalBytes <= target) {
+                break;
+            }
+            deleteQuietly(file);
+            totalBytes -= attributes.get(file).size();
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key.substring(2) + ENTRY_SUFFIX);
+    }
+
+    private void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Ignore, the entry will be retried or evicted later
+        }
+    }
+
+    // Entry layout: header, string table, then the file content as indices into that table.
+
+    private void write(DataOutputStream out, ParsedSource source) throws IOException {
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        strings.write(body, source.packageName);
+        writeStrings(body, strings, source.imports);
+        writeStrings(body, strings, source.onDemandImports);
+        writeVarInt(body, source.classes.size());
+        Map<ClassInfo, Integer> classIndices = new IdentityHashMap<>();
+        for (ClassInfo classInfo : source.classes) {
+            classIndices.put(classInfo, classIndices.size());
+            strings.write(body, classInfo.getName());
+            strings.write(body, classInfo.getFullName());
+            body.writeByte(classInfo.getVisibility().ordinal());
+            body.writeByte(classInfo.getClassType().ordinal());
+            strings.write(body, classInfo.getEnclosingClass());
+            writeStrings(body, strings, classInfo.getAnnotations());
+
+            writeVarInt(body, classInfo.getFields().size());
+            for (FieldInfo field : classInfo.getFields()) {
+                strings.write(body, field.getName());
+                strings.write(body, field.getType());
+                body.writeByte(field.getVisibility().ordinal());
+                writeStrings(body, strings, field.getAnnotations());
+            }
+
+            writeVarInt(body, classInfo.getMethods().size());
+            for (MethodInfo method : classInfo.getMethods()) {
+                strings.write(body, method.getName());
+                strings.write(body, method.getReturnType());
+                body.writeByte(method.getVisibility().ordinal());
+                writeVarInt(body, method.getParameters().size());
+                for (ParameterInfo parameter : method.getParameters()) {
+                    strings.write(body, parameter.getName());
+                    strings.write(body, parameter.getType());
+                }
+                writeStrings(body, strings, method.getAnnotations());
+            }
+        }
+
+        writeVarInt(body, source.references.size());
+        for (TypeReference reference : source.references) {
+            writeVarInt(body, classIndices.get(reference.from));
+            strings.write(body, reference.typeName);
+            body.writeByte(reference.type.ordinal());
+            writeVarInt(body, reference.line);
+        }
+        body.flush();
+
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        writeVarInt(out, strings.values.size());
+        for (String value : strings.values) {
+            out.writeUTF(value);
+        }
+        bodyBytes.writeTo(out);
+    }
+
+    private ParsedSource read(DataInputStream in, String sourceFile) throws IOException {
+        if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT_VERSION) {
+            throw new IOException("Not a parse cache entry");
+        }
+        String[] strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        String packageName = readString(in, strings);
+        ParsedSource source = new ParsedSource(packageName, new HashSet<>(readStrings(in, strings)));
+        source.onDemandImports.addAll(readStrings(in, strings));
+        int classCount = readVarInt(in);
+        for (int c = 0; c < classCount; c++) {
+            String name = readString(in, strings);
+            String fullName = readString(in, strings);
+            Visibility visibility = Visibility.values()[in.readUnsignedByte()];
+            ClassType classType = ClassType.values()[in.readUnsignedByte()];
+            ClassInfo classInfo = new ClassInfo(name, fullName, packageName, visibility, classType);
+            classInfo.setSourceFile(sourceFile);
+            classInfo.setEnclosingClass(readString(in, strings));
+            classInfo.setAnnotations(readStrings(in, strings));
+
+            int fieldCount = readVarInt(in);
+            for (int f = 0; f < fieldCount; f++) {
+                String fieldName = readString(in, strings);
+                String type = readString(in, strings);
+                Visibility fieldVisibility = Visibility.values()[in.readUnsignedByte()];
+                classInfo.addField(new FieldInfo(fieldName, type, fieldVisibility, readStrings(in, strings)));
+            }
+
+            int methodCount = readVarInt(in);
+            for (int m = 0; m < methodCount; m++) {
+                String methodName = readString(in, strings);
+                String returnType = readString(in, strings);
+                Visibility methodVisibility = Visibility.values()[in.readUnsignedByte()];
+                int parameterCount = readVarInt(in);
+                List<ParameterInfo> parameters = new ArrayList<>(parameterCount);
+                for (int p = 0; p < parameterCount; p++) {
+                    parameters.add(new ParameterInfo(readString(in, strings), readString(in, strings)));
+                }
+                classInfo.addMethod(new MethodInfo(methodName, returnType, methodVisibility,
+                                                   parameters, readStrings(in, strings)));
+            }
+            source.classes.add(classInfo);
+        }
+
+        int referenceCount = readVarInt(in);
+        for (int r = 0; r < referenceCount; r++) {
+            ClassInfo from = source.classes.get(readVarInt(in));
+            String typeName = readString(in, strings);
+            DependencyType type = DependencyType.values()[in.readUnsignedByte()];
+            source.references.add(new TypeReference(from, typeName, type, readVarInt(in)));
+        }
+        return source;
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable strings,
+                                      Collection<String> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            strings.write(out, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in, String[] strings) throws IOException {
+        int count = readVarInt(in);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in, strings));
+        }
+        return values;
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int index = readVarInt(in);
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Deduplicates the strings of one entry; index 0 is reserved for null.
+     */
+    private static final class StringTable {
+        final List<String> values = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+
+        void write(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                writeVarInt(out, 0);
+                return;
+            }
+            Integer index = indices.get(value);
+            if (index == null) {
+                values.add(value);
+                index = values.size();
+                indices.put(value, index);
+            }
+            writeVarInt(out, index);
+        }
+    }
+}
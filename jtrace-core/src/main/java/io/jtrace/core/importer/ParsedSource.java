@@ -0,0 +1,26 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.Dependency;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Everything extracted from a single source or class file, before it is merged into the model.
+ */
+final class ParsedSource {
+    final String packageName;
+    final Set<String> imports;
+    // Imports ending in ".*", without the wildcard; also listed in imports
+    final Set<String> onDemandImports = new HashSet<>();
+    final List<ClassInfo> classes = new ArrayList<>();
+    final List<Dependency> dependencies = new ArrayList<>();
+    final List<TypeReference> references = new ArrayList<>();
+
+    ParsedSource(String packageName, Set<String> imports) {
+        this.packageName = packageName;
+        this.imports = imports;
+    }
+}
@@ -4,26 +4,69 @@ import java.util.*;
 
 /**
  * Represents the complete model of a Java project after parsing source code.
+ *
+ * <p>Package, class and type names are interned in the model's {@link SymbolTable} when classes
+ * and packages are added. The model indexes everything by symbol ID, and the info objects keep
+ * the IDs next to canonical name instances, so analyzers can compare names by ID. Once all
+ * classes are added, {@link #seal()} assigns dense class, method and field IDs in a stable order,
+ * independent of hashing and of the order in which files were parsed, and builds the
+ * {@link DependencyGraph} from the dependencies recorded while importing and the
+ * {@link AnnotationIndex}.
  */
 public class ProjectModel {
-    private final Map<String, PackageInfo> packages;
-    private final Map<String, ClassInfo> classes;
+    private final SymbolTable symbols;
+    private final List<PackageInfo> packages;
+    private final List<PackageInfo> packagesBySymbol;
+    private final List<ClassInfo> classes;
+    private final List<ClassInfo> classesBySymbol;
     private final Map<String, MethodInfo> methods;
     private final List<Dependency> dependencies;
+    private final List<List<Dependency>> dependenciesBySymbol;
+    private DependencyGraph.Builder edges = new DependencyGraph.Builder();
+    private DependencyGraph dependencyGraph;
+    private AnnotationIndex annotationIndex;
+    private boolean sealed;
 
     public ProjectModel() {
-        this.packages = new HashMap<>();
-        this.classes = new HashMap<>();
+        this(new SymbolTable());
+    }
+
+    public ProjectModel(SymbolTable symbols) {
+        this.symbols = symbols;
+        this.packages = new ArrayList<>();
+        this.packagesBySymbol = new ArrayList<>();
+        this.classes = new ArrayList<>();
+        this.classesBySymbol = new ArrayList<>();
         this.methods = new HashMap<>();
         this.dependencies = new ArrayList<>();
+        this.dependenciesBySymbol = new ArrayList<>();
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
     }
 
     public void addPackage(PackageInfo packageInfo) {
-        packages.put(packageInfo.getName(), packageInfo);
+        checkNotSealed();
+        packageInfo.bind(symbols);
+        PackageInfo previous = setAt(packagesBySymbol, packageInfo.getNameId(), packageInfo);
+        if (previous != null) {
+            packages.remove(previous);
+        }
+        packages.add(packageInfo);
     }
 
+    /**
+     * Adds a class; a class with the same full name replaces the one added before.
+     */
     public void addClass(ClassInfo classInfo) {
-        classes.put(classInfo.getFullName(), classInfo);
+        checkNotSealed();
+        classInfo.bind(symbols);
+        ClassInfo previous = setAt(classesBySymbol, classInfo.getFullNameId(), classInfo);
+        if (previous != null) {
+            classes.remove(previous);
+        }
+        classes.add(classInfo);
     }
 
     public void addMethod(MethodInfo methodInfo) {
@@ -31,15 +74,115 @@ public class ProjectModel {
     }
 
     public void addDependency(Dependency dependency) {
+        checkNotSealed();
+        dependency.bind(symbols);
         dependencies.add(dependency);
+        List<Dependency> from = getAt(dependenciesBySymbol, dependency.getFromId());
+        if (from == null) {
+            from = new ArrayList<>();
+            setAt(dependenciesBySymbol, dependency.getFromId(), from);
+        }
+        from.add(dependency);
+        Location location = dependency.getLocation();
+        edges.add(dependency.getFromId(), dependency.getToId(), DependencyGraph.mask(dependency.getType()),
+                  location != null ? location.getLine() : 0);
+    }
+
+    /**
+     * Records a resolved reference between two classes of the model for the dependency graph,
+     * without keeping a {@link Dependency} object for it.
+     */
+    void addReference(ClassInfo from, ClassInfo to, DependencyType type, int line) {
+        checkNotSealed();
+        edges.add(from.getFullNameId(), to.getFullNameId(), DependencyGraph.mask(type), line);
+    }
+
+    /**
+     * Assigns dense class IDs, ordered by source file and full name, and method and field IDs in
+     * class order and, within a class, in the order the members were added, builds the dependency
+     * graph and the annotation index and freezes the set of classes, packages and dependencies.
+     * Sealing an already sealed model has no effect.
+     */
+    public void seal() {
+        if (sealed) {
+            return;
+        }
+        classes.sort(Comparator.comparing(ClassInfo::getSourceFile,
+                                          Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ClassInfo::getFullName));
+        int methodCount = 0;
+        int fieldCount = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            ClassInfo classInfo = classes.get(i);
+            classInfo.id = i;
+            for (MethodInfo method : classInfo.getMethods()) {
+                method.id = methodCount++;
+            }
+            for (FieldInfo field : classInfo.getFields()) {
+                field.id = fieldCount++;
+            }
+        }
+
+        int[] nodeIds = new int[classesBySymbol.size()];
+        Arrays.fill(nodeIds, -1);
+        for (ClassInfo classInfo : classes) {
+            nodeIds[classInfo.getFullNameId()] = classInfo.id;
+        }
+        dependencyGraph = edges.build(nodeIds, classes.size());
+        edges = null;
+        annotationIndex = new AnnotationIndex(classes, symbols);
+        sealed = true;
+    }
+
+    public boolean isSealed() {
+        return sealed;
     }
 
     public Collection<PackageInfo> getPackages() {
-        return packages.values();
+        return Collections.unmodifiableList(packages);
     }
 
+    /**
+     * Returns all classes; once the model is sealed, in class ID order.
+     */
     public Collection<ClassInfo> getAllClasses() {
-        return classes.values();
+        return Collections.unmodifiableList(classes);
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    /**
+     * Returns the class with the given dense ID; only valid once the model is sealed.
+     */
+    public ClassInfo getClassById(int id) {
+        if (!sealed) {
+            throw new IllegalStateException("Class IDs are assigned when the model is sealed");
+        }
+        return classes.get(id);
+    }
+
+    /**
+     * Returns the class dependency graph, whose nodes are class IDs; only valid once the model
+     * is sealed.
+     */
+    public DependencyGraph getDependencyGraph() {
+        if (!sealed) {
+            throw new IllegalStateException("The dependency graph is built when the model is sealed");
+        }
+        return dependencyGraph;
+    }
+
+    /**
+     * Returns the index of the annotations on classes, methods and fields; only valid once the
+     * model is sealed.
+     */
+    public AnnotationIndex getAnnotationIndex() {
+        if (!sealed) {
+            throw new IllegalStateException("The annotation index is built when the model is sealed");
+        }
+        return annotationIndex;
     }
 
     public Collection<MethodInfo> getMethods() {
@@ -50,39 +193,105 @@ public class ProjectModel {
         return dependencies;
     }
 
+    /**
+     * Returns the recorded dependencies originating from the given class.
+     */
+    public List<Dependency> getDependenciesFrom(String fullyQualifiedName) {
+        return getDependenciesFrom(symbols.lookup(fullyQualifiedName));
+    }
+
+    /**
+     * Returns the recorded dependencies originating from the class with the given name symbol.
+     */
+    public List<Dependency> getDependenciesFrom(int fullNameId) {
+        List<Dependency> from = getAt(dependenciesBySymbol, fullNameId);
+        return from != null ? from : Collections.emptyList();
+    }
+
     public PackageInfo getPackage(String name) {
-        return packages.get(name);
+        return getAt(packagesBySymbol, symbols.lookup(name));
+    }
+
+    public PackageInfo getPackage(int nameId) {
+        return getAt(packagesBySymbol, nameId);
     }
 
     public ClassInfo getClass(String fullyQualifiedName) {
-        return classes.get(fullyQualifiedName);
+        return getAt(classesBySymbol, symbols.lookup(fullyQualifiedName));
+    }
+
+    /**
+     * Returns the class whose full name has the given symbol ID, or null.
+     */
+    public ClassInfo getClass(int fullNameId) {
+        return getAt(classesBySymbol, fullNameId);
     }
 
     public MethodInfo getMethod(String signature) {
         return methods.get(signature);
     }
 
+    private static List<String> canonical(List<String> names, SymbolTable symbols) {
+        List<String> canonical = new ArrayList<>(names.size());
+        for (String name : names) {
+            canonical.add(symbols.canonical(name));
+        }
+        return canonical;
+    }
+
+    private void checkNotSealed() {
+        if (sealed) {
+            throw new IllegalStateException("ProjectModel is sealed");
+        }
+    }
+
+    private static <T> T getAt(List<T> list, int index) {
+        return index >= 0 && index < list.size() ? list.get(index) : null;
+    }
+
+    private static <T> T setAt(List<T> list, int index, T value) {
+        while (list.size() <= index) {
+            list.add(null);
+        }
+        return list.set(index, value);
+    }
+
     public static class PackageInfo {
-        private final String name;
+        private String name;
         private final Set<ClassInfo> classes;
         private final Set<String> imports;
+        private final BitSet importIds;
+        private SymbolTable symbols;
+        private int nameId = SymbolTable.NONE;
 
         public PackageInfo(String name) {
             this.name = name;
             this.classes = new HashSet<>();
             this.imports = new HashSet<>();
+            this.importIds = new BitSet();
         }
 
         public String getName() {
             return name;
         }
 
+        public int getNameId() {
+            return nameId;
+        }
+
         public Set<ClassInfo> getClasses() {
             return classes;
         }
 
         public Set<String> getImports() {
-            return imports;
+            return Collections.unmodifiableSet(imports);
+        }
+
+        /**
+         * Whether the name with the given symbol ID is imported by a file of this package.
+         */
+        public boolean hasImport(int symbolId) {
+            return symbolId >= 0 && importIds.get(symbolId);
         }
 
         public void addClass(ClassInfo classInfo) {
@@ -90,14 +299,34 @@ public class ProjectModel {
         }
 
         public void addImports(Set<String> imports) {
-            this.imports.addAll(imports);
+            for (String importName : imports) {
+                if (symbols != null) {
+                    int id = symbols.intern(importName);
+                    importIds.set(id);
+                    importName = symbols.name(id);
+                }
+                this.imports.add(importName);
+            }
+        }
+
+        void bind(SymbolTable symbols) {
+            if (this.symbols == symbols) {
+                return;
+            }
+            this.symbols = symbols;
+            this.nameId = symbols.intern(name);
+            this.name = symbols.name(nameId);
+            List<String> unbound = new ArrayList<>(imports);
+            imports.clear();
+            importIds.clear();
+            addImports(new HashSet<>(unbound));
         }
     }
 
     public static class ClassInfo {
-        private final String name;
-        private final String fullName;
-        private final String packageName;
+        private String name;
+        private String fullName;
+        private String packageName;
         private final Visibility visibility;
         private final ClassType classType;
         private final Set<String> annotations;
@@ -105,30 +334,60 @@ public class ProjectModel {
         private final Set<FieldInfo> fields;
         private String sourceFile;
         private String enclosingClass;
+        private SymbolTable symbols;
+        private int nameId = SymbolTable.NONE;
+        private int fullNameId = SymbolTable.NONE;
+        private int packageNameId = SymbolTable.NONE;
+        private int id = -1;
 
         public ClassInfo(String name, String fullName, Visibility visibility, ClassType classType) {
+            this(name, fullName, fullName.substring(0, Math.max(fullName.lastIndexOf('.'), 0)),
+                 visibility, classType);
+        }
+
+        public ClassInfo(String name, String fullName, String packageName, Visibility visibility,
+                         ClassType classType) {
             this.name = name;
             this.fullName = fullName;
-            this.packageName = fullName.substring(0, fullName.lastIndexOf('.'));
+            this.packageName = packageName;
             this.visibility = visibility;
             this.classType = classType;
             this.annotations = new HashSet<>();
-            this.methods = new HashSet<>();
-            this.fields = new HashSet<>();
+            this.methods = new LinkedHashSet<>();
+            this.fields = new LinkedHashSet<>();
+        }
+
+        /**
+         * Dense ID assigned when the model is sealed, or -1 before.
+         */
+        public int getId() {
+            return id;
         }
 
         public String getName() {
             return name;
         }
 
+        public int getNameId() {
+            return nameId;
+        }
+
         public String getFullName() {
             return fullName;
         }
 
+        public int getFullNameId() {
+            return fullNameId;
+        }
+
         public String getPackageName() {
             return packageName;
         }
 
+        public int getPackageNameId() {
+            return packageNameId;
+        }
+
         public Visibility getVisibility() {
             return visibility;
         }
@@ -141,10 +400,16 @@ public class ProjectModel {
             return annotations;
         }
 
+        /**
+         * Methods in the order they were added, which the importers keep in declaration order.
+         */
         public Set<MethodInfo> getMethods() {
             return methods;
         }
 
+        /**
+         * Fields in the order they were added, which the importers keep in declaration order.
+         */
         public Set<FieldInfo> getFields() {
             return fields;
         }
@@ -154,7 +419,7 @@ public class ProjectModel {
         }
 
         public void setSourceFile(String sourceFile) {
-            this.sourceFile = sourceFile;
+            this.sourceFile = symbols != null ? symbols.canonical(sourceFile) : sourceFile;
         }
 
         public String getEnclosingClass() {
@@ -162,33 +427,66 @@ public class ProjectModel {
         }
 
         public void setEnclosingClass(String enclosingClass) {
-            this.enclosingClass = enclosingClass;
+            this.enclosingClass = symbols != null ? symbols.canonical(enclosingClass) : enclosingClass;
         }
 
         public void addAnnotation(String annotation) {
-            annotations.add(annotation);
+            annotations.add(symbols != null ? symbols.canonical(annotation) : annotation);
         }
 
         public void addMethod(MethodInfo method) {
+            if (symbols != null) {
+                method.bind(symbols);
+            }
             methods.add(method);
         }
 
         public void addField(FieldInfo field) {
+            if (symbols != null) {
+                field.bind(symbols);
+            }
             fields.add(field);
         }
 
         public void setAnnotations(List<String> annotations) {
             this.annotations.clear();
-            this.annotations.addAll(annotations);
+            for (String annotation : annotations) {
+                addAnnotation(annotation);
+            }
+        }
+
+        void bind(SymbolTable symbols) {
+            if (this.symbols == symbols) {
+                return;
+            }
+            this.symbols = symbols;
+            nameId = symbols.intern(name);
+            name = symbols.name(nameId);
+            fullNameId = symbols.intern(fullName);
+            fullName = symbols.name(fullNameId);
+            packageNameId = symbols.intern(packageName);
+            packageName = symbols.name(packageNameId);
+            sourceFile = symbols.canonical(sourceFile);
+            enclosingClass = symbols.canonical(enclosingClass);
+            setAnnotations(new ArrayList<>(annotations));
+            for (MethodInfo method : methods) {
+                method.bind(symbols);
+            }
+            for (FieldInfo field : fields) {
+                field.bind(symbols);
+            }
         }
     }
 
     public static class MethodInfo {
-        private final String name;
-        private final String returnType;
+        private String name;
+        private String returnType;
         private final Visibility visibility;
         private final List<ParameterInfo> parameters;
-        private final List<String> annotations;
+        private List<String> annotations;
+        private int nameId = SymbolTable.NONE;
+        private int returnTypeId = SymbolTable.NONE;
+        private int id = -1;
 
         public MethodInfo(String name, String returnType, Visibility visibility, 
                          List<ParameterInfo> parameters, List<String> annotations) {
@@ -199,14 +497,29 @@ public class ProjectModel {
             this.annotations = annotations;
         }
 
+        /**
+         * Dense ID among the model's methods, assigned when the model is sealed, or -1 before.
+         */
+        public int getId() {
+            return id;
+        }
+
         public String getName() {
             return name;
         }
 
+        public int getNameId() {
+            return nameId;
+        }
+
         public String getReturnType() {
             return returnType;
         }
 
+        public int getReturnTypeId() {
+            return returnTypeId;
+        }
+
         public Visibility getVisibility() {
             return visibility;
         }
@@ -224,13 +537,27 @@ public class ProjectModel {
                 .map(ParameterInfo::getType)
                 .reduce("", (a, b) -> a + (a.isEmpty() ? "" : ", ") + b) + ")";
         }
+
+        void bind(SymbolTable symbols) {
+            nameId = symbols.intern(name);
+            name = symbols.name(nameId);
+            returnTypeId = symbols.intern(returnType);
+            returnType = symbols.name(returnTypeId);
+            for (ParameterInfo parameter : parameters) {
+                parameter.bind(symbols);
+            }
+            annotations = canonical(annotations, symbols);
+        }
     }
 
     public static class FieldInfo {
-        private final String name;
-        private final String type;
+        private String name;
+        private String type;
         private final Visibility visibility;
-        private final List<String> annotations;
+        private List<String> annotations;
+        private int nameId = SymbolTable.NONE;
+        private int typeId = SymbolTable.NONE;
+        private int id = -1;
 
         public FieldInfo(String name, String type, Visibility visibility, List<String> annotations) {
             this.name = name;
@@ -239,14 +566,29 @@ public class ProjectModel {
             this.annotations = annotations;
         }
 
+        /**
+         * Dense ID among the model's fields, assigned when the model is sealed, or -1 before.
+         */
+        public int getId() {
+            return id;
+        }
+
         public String getName() {
             return name;
         }
 
+        public int getNameId() {
+            return nameId;
+        }
+
         public String getType() {
             return type;
         }
 
+        public int getTypeId() {
+            return typeId;
+        }
+
         public Visibility getVisibility() {
             return visibility;
         }
@@ -254,11 +596,20 @@ public class ProjectModel {
         public List<String> getAnnotations() {
             return annotations;
         }
+
+        void bind(SymbolTable symbols) {
+            nameId = symbols.intern(name);
+            name = symbols.name(nameId);
+            typeId = symbols.intern(type);
+            type = symbols.name(typeId);
+            annotations = canonical(annotations, symbols);
+        }
     }
 
     public static class ParameterInfo {
-        private final String name;
-        private final String type;
+        private String name;
+        private String type;
+        private int typeId = SymbolTable.NONE;
 
         public ParameterInfo(String name, String type) {
             this.name = name;
@@ -272,13 +623,25 @@ public class ProjectModel {
         public String getType() {
             return type;
         }
+
+        public int getTypeId() {
+            return typeId;
+        }
+
+        void bind(SymbolTable symbols) {
+            name = symbols.canonical(name);
+            typeId = symbols.intern(type);
+            type = symbols.name(typeId);
+        }
     }
 
     public static class Dependency {
-        private final String from;
-        private final String to;
+        private String from;
+        private String to;
         private final DependencyType type;
         private final Location location;
+        private int fromId = SymbolTable.NONE;
+        private int toId = SymbolTable.NONE;
 
         public Dependency(String from, String to, DependencyType type, Location location) {
             this.from = from;
@@ -291,10 +654,18 @@ public class ProjectModel {
             return from;
         }
 
+        public int getFromId() {
+            return fromId;
+        }
+
         public String getTo() {
             return to;
         }
 
+        public int getToId() {
+            return toId;
+        }
+
         public DependencyType getType() {
             return type;
         }
@@ -302,10 +673,17 @@ public class ProjectModel {
         public Location getLocation() {
             return location;
         }
+
+        void bind(SymbolTable symbols) {
+            fromId = symbols.intern(from);
+            from = symbols.name(fromId);
+            toId = symbols.intern(to);
+            to = symbols.name(toId);
+        }
     }
 
     public enum DependencyType {
-        IMPORT, EXTENDS, IMPLEMENTS, FIELD, METHOD_CALL, CONSTRUCTOR_CALL
+        IMPORT, EXTENDS, IMPLEMENTS, FIELD, METHOD_CALL, CONSTRUCTOR_CALL, FIELD_ACCESS, CAST, INSTANCEOF, METHOD_SIGNATURE
     }
 
     public enum Visibility {
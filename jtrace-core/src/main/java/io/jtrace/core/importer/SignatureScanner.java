@@ -0,0 +1,774 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.*;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Extracts the package, imports, type declarations and member signatures of a source file
+ * by scanning tokens, without building an AST.
+ *
+ * <p>Method bodies, initializers and annotation arguments are skipped by matching brackets at
+ * the token level. Constructs the scanner does not understand raise a {@link ScanException},
+ * in which case callers fall back to a full parse.
+ *
+ * <p>Classes declared inside skipped code, that is local classes and member classes of anonymous
+ * classes, are still read with their names and signatures. As in the full parse they are named
+ * after the nearest enclosing named class, e.g. {@code Outer.Local}, so both import modes see the
+ * same classes. Anonymous classes themselves, and their fields and methods, are not recorded in
+ * either mode.
+ *
+ * <p>Like the full parse, the scan records the types named by imports, supertypes, record
+ * components, fields and method and constructor signatures as {@link TypeReference}s.
+ */
+final class SignatureScanner {
+    private static final Set<String> MODIFIERS = Set.of(
+        "public", "protected", "private", "static", "final", "abstract", "native",
+        "synchronized", "transient", "volatile", "strictfp", "default", "sealed");
+
+    private enum TokenType { IDENT, SYMBOL, LITERAL, EOF }
+
+    private final String source;
+    private int pos;
+    private int tokenStart;
+    private int lineOffset;
+    private int lineNumber = 1;
+
+    private TokenType type;
+    private String text;
+    private char symbol;
+
+    SignatureScanner(String source) {
+        this.source = source;
+    }
+
+    ParsedSource scan(Path sourcePath) {
+        String packageName = "";
+        Set<String> imports = new HashSet<>();
+        Set<String> onDemandImports = new HashSet<>();
+        List<Reference> importReferences = new ArrayList<>();
+        List<TypeDeclaration> types = new ArrayList<>();
+
+        next();
+        while (type != TokenType.EOF) {
+            if (isSymbol(';')) {
+                next();
+            } else if (isIdent("package")) {
+                next();
+                packageName = qualifiedName();
+                expectSymbol(';');
+            } else if (isIdent("import")) {
+                int line = line();
+                next();
+                if (isIdent("static")) {
+                    next();
+                }
+                String importName = qualifiedName();
+                imports.add(importName);
+                if (isSymbol('.')) {
+                    next();
+                    expectSymbol('*');
+                    onDemandImports.add(importName);
+                }
+                importReferences.add(new Reference(importName, DependencyType.IMPORT, line));
+                expectSymbol(';');
+            } else {
+                Visibility visibility = modifiers();
+                if (!atTypeDeclaration()) {
+                    throw new ScanException("Unexpected token '" + tokenText() + "' at offset " + pos);
+                }
+                types.add(new TypeDeclaration(visibility));
+            }
+        }
+
+        ParsedSource parsed = new ParsedSource(packageName, imports);
+        parsed.onDemandImports.addAll(onDemandImports);
+        for (TypeDeclaration declaration : types) {
+            ClassInfo classInfo = declaration.addTo(parsed, packageName, null, sourcePath);
+            for (Reference reference : importReferences) {
+                parsed.references.add(reference.from(classInfo));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * A type declaration with its members, read from the current position.
+     */
+    private final class TypeDeclaration {
+        final String name;
+        final Visibility visibility;
+        final ClassType classType;
+        final List<FieldInfo> fields = new ArrayList<>();
+        final List<MethodInfo> methods = new ArrayList<>();
+        final List<TypeDeclaration> nested = new ArrayList<>();
+        final List<Reference> references = new ArrayList<>();
+
+        TypeDeclaration(Visibility visibility) {
+            this.visibility = visibility;
+            String keyword;
+            if (isSymbol('@')) {
+                next();
+                keyword = "@interface";
+            } else {
+                keyword = text;
+            }
+            next();
+            switch (keyword) {
+                case "interface": classType = ClassType.INTERFACE; break;
+                case "enum": classType = ClassType.ENUM; break;
+                case "@interface": classType = ClassType.ANNOTATION; break;
+                default: classType = ClassType.CLASS; break;
+            }
+            this.name = identifier();
+
+            // Skip type parameters and the permits clause; read record components and supertypes
+            if (isSymbol('<')) {
+                skipBalanced();
+            }
+            if (isSymbol('(')) {
+                parameters(references, DependencyType.FIELD);
+            }
+            while (!isSymbol('{')) {
+                requireMoreTokens();
+                if (isIdent("extends")) {
+                    next();
+                    typeList(DependencyType.EXTENDS);
+                } else if (isIdent("implements")) {
+                    next();
+                    typeList(DependencyType.IMPLEMENTS);
+                } else {
+                    next();
+                }
+            }
+            next();
+
+            if (classType == ClassType.ENUM) {
+                skipEnumConstants();
+            }
+            while (!isSymbol('}')) {
+                member();
+            }
+            next();
+        }
+
+        ClassInfo addTo(ParsedSource parsed, String packageName, String enclosingClass, Path sourcePath) {
+            String fullName;
+            if (enclosingClass != null) {
+                fullName = enclosingClass + "." + name;
+            } else {
+                fullName = packageName.isEmpty() ? name : packageName + "." + name;
+            }
+            ClassInfo classInfo = new ClassInfo(name, fullName, packageName, visibility, classType);
+            classInfo.setSourceFile(sourcePath.toString());
+            classInfo.setEnclosingClass(enclosingClass);
+            fields.forEach(classInfo::addField);
+            methods.forEach(classInfo::addMethod);
+            parsed.classes.add(classInfo);
+            for (Reference reference : references) {
+                parsed.references.add(reference.from(classInfo));
+            }
+
+            for (TypeDeclaration inner : nested) {
+                inner.addTo(parsed, packageName, fullName, sourcePath);
+            }
+            return classInfo;
+        }
+
+        private void typeList(DependencyType referenceType) {
+            while (true) {
+                int line = line();
+                references.add(new Reference(typeName(), referenceType, line));
+                if (!isSymbol(',')) {
+                    return;
+                }
+                next();
+            }
+        }
+
+        private void skipEnumConstants() {
+            while (!isSymbol(';') && !isSymbol('}')) {
+                requireMoreTokens();
+                if (isSymbol('(') || isSymbol('{')) {
+                    skipBody(this);
+                } else {
+                    next();
+                }
+            }
+            if (isSymbol(';')) {
+                next();
+            }
+        }
+
+        private void member() {
+            if (isSymbol(';')) {
+                next();
+                return;
+            }
+            if (isSymbol('{')) {
+                skipBody(this); // instance initializer
+                return;
+            }
+
+            Visibility memberVisibility = modifiers();
+            if (isSymbol('{')) {
+                skipBody(this); // static initializer
+                return;
+            }
+            if (atTypeDeclaration()) {
+                nested.add(new TypeDeclaration(memberVisibility));
+                return;
+            }
+            if (isSymbol('<')) {
+                skipBalanced(); // method type parameters
+            }
+
+            int line = line();
+            String memberType = typeName();
+            if (isSymbol('{')) {
+                skipBody(this); // compact record constructor
+                return;
+            }
+            if (isSymbol('(')) {
+                parameters(references, DependencyType.METHOD_SIGNATURE); // constructor
+                skipMethodRest(this);
+                return;
+            }
+
+            String memberName = identifier();
+            if (isSymbol('(')) {
+                if (classType == ClassType.ANNOTATION) {
+                    parameters(null, null);
+                    skipMethodRest(this);
+                    return; // annotation elements are not methods
+                }
+                references.add(new Reference(memberType, DependencyType.METHOD_SIGNATURE, line));
+                List<ParameterInfo> parameters = parameters(references, DependencyType.METHOD_SIGNATURE);
+                memberType += dimensions();
+                skipMethodRest(this);
+                methods.add(new MethodInfo(memberName, memberType, memberVisibility,
+                                           parameters, new ArrayList<>()));
+                return;
+            }
+
+            // Array brackets after a name belong to that field's type only, as in int a, b[]
+            String fieldType = memberType + dimensions();
+            references.add(new Reference(fieldType, DependencyType.FIELD, line));
+            while (true) {
+                fields.add(new FieldInfo(memberName, fieldType, memberVisibility, new ArrayList<>()));
+                if (isSymbol('=')) {
+                    next();
+                    skipInitializer(this);
+                }
+                if (isSymbol(',')) {
+                    next();
+                    memberName = identifier();
+                    fieldType = memberType + dimensions();
+                    continue;
+                }
+                expectSymbol(';');
+                return;
+            }
+        }
+    }
+
+    private Visibility modifiers() {
+        Visibility visibility = Visibility.PACKAGE_PRIVATE;
+        while (true) {
+            if (isSymbol('@')) {
+                Snapshot snapshot = snapshot();
+                next();
+                if (isIdent("interface")) {
+                    snapshot.restore();
+                    return visibility;
+                }
+                qualifiedName();
+                if (isSymbol('(')) {
+                    skipBalanced();
+                }
+            } else if (type == TokenType.IDENT && MODIFIERS.contains(text)) {
+                if (text.equals("public")) visibility = Visibility.PUBLIC;
+                if (text.equals("protected")) visibility = Visibility.PROTECTED;
+                if (text.equals("private")) visibility = Visibility.PRIVATE;
+                next();
+            } else if (isIdent("non")) {
+                Snapshot snapshot = snapshot();
+                next();
+                if (!isSymbol('-')) {
+                    snapshot.restore();
+                    return visibility;
+                }
+                next();
+                identifier(); // non-sealed
+            } else {
+                return visibility;
+            }
+        }
+    }
+
+    private boolean atTypeDeclaration() {
+        if (isIdent("class") || isIdent("interface") || isIdent("enum")) {
+            return true;
+        }
+        if (isSymbol('@')) {
+            Snapshot snapshot = snapshot();
+            next();
+            boolean annotationType = isIdent("interface");
+            snapshot.restore();
+            return annotationType;
+        }
+        if (isIdent("record")) {
+            // "record" is only a keyword when followed by a name and a header
+            Snapshot snapshot = snapshot();
+            next();
+            boolean record = false;
+            if (type == TokenType.IDENT) {
+                next();
+                record = isSymbol('(') || isSymbol('<');
+            }
+            snapshot.restore();
+            return record;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a type and renders it the way JavaParser prints it, e.g. {@code Map<String, List<T>>[]}.
+     */
+    private String typeName() {
+        StringBuilder name = new StringBuilder();
+        skipAnnotations();
+        name.append(identifier());
+        while (true) {
+            if (isSymbol('<')) {
+                name.append(typeArguments());
+            }
+            if (isSymbol('.')) {
+                Snapshot snapshot = snapshot();
+                next();
+                skipAnnotations();
+                if (type != TokenType.IDENT) {
+                    snapshot.restore(); // varargs ellipsis
+                    break;
+                }
+                name.append('.').append(identifier());
+            } else {
+                break;
+            }
+        }
+        name.append(dimensions());
+        return name.toString();
+    }
+
+    private String typeArguments() {
+        StringBuilder arguments = new StringBuilder("<");
+        next();
+        boolean first = true;
+        while (!isSymbol('>')) {
+            requireMoreTokens();
+            if (!first) {
+                expectSymbol(',');
+                arguments.append(", ");
+            }
+            first = false;
+            skipAnnotations();
+            if (isSymbol('?')) {
+                next();
+                arguments.append('?');
+                if (isIdent("extends") || isIdent("super")) {
+                    arguments.append(' ').append(text).append(' ');
+                    next();
+                    arguments.append(typeName());
+                }
+            } else {
+                arguments.append(typeName());
+            }
+        }
+        next();
+        return arguments.append('>').toString();
+    }
+
+    private String dimensions() {
+        StringBuilder dims = new StringBuilder();
+        skipAnnotations();
+        while (isSymbol('[')) {
+            next();
+            expectSymbol(']');
+            dims.append("[]");
+            skipAnnotations();
+        }
+        return dims.toString();
+    }
+
+    /**
+     * Reads a parameter list, adding a reference of the given type for each parameter type to
+     * {@code references} unless it is null.
+     */
+    private List<ParameterInfo> parameters(List<Reference> references, DependencyType referenceType) {
+        List<ParameterInfo> parameters = new ArrayList<>();
+        expectSymbol('(');
+        while (!isSymbol(')')) {
+            requireMoreTokens();
+            if (!parameters.isEmpty() || isSymbol(',')) {
+                expectSymbol(',');
+            }
+            modifiers();
+            int line = line();
+            String parameterType = typeName();
+            if (references != null) {
+                references.add(new Reference(parameterType, referenceType, line));
+            }
+            if (isSymbol('.')) {
+                next();
+                expectSymbol('.');
+                expectSymbol('.');
+            }
+            if (isIdent("this")) {
+                next(); // receiver parameter
+                continue;
+            }
+            String parameterName = identifier();
+            parameters.add(new ParameterInfo(parameterName, parameterType + dimensions()));
+        }
+        next();
+        return parameters;
+    }
+
+    /**
+     * Skips the throws clause and body of a method, or an annotation member's default value.
+     */
+    private void skipMethodRest(TypeDeclaration enclosing) {
+        while (true) {
+            requireMoreTokens();
+            if (isSymbol(';')) {
+                next();
+                return;
+            }
+            if (isSymbol('{')) {
+                skipBody(enclosing);
+                return;
+            }
+            if (isIdent("default")) {
+                next();
+                skipInitializer(enclosing);
+                expectSymbol(';');
+                return;
+            }
+            next();
+        }
+    }
+
+    /**
+     * Skips an expression up to the next top-level declarator separator or semicolon.
+     */
+    private void skipInitializer(TypeDeclaration enclosing) {
+        while (true) {
+            requireMoreTokens();
+            if (isSymbol(';')) {
+                return;
+            }
+            if (isSymbol('(') || isSymbol('{') || isSymbol('[')) {
+                skipBody(enclosing);
+            } else if (isSymbol(',') && startsDeclarator()) {
+                return;
+            } else {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Whether the comma at the current position starts another variable declarator, rather than
+     * separating type arguments such as in {@code new HashMap<K, V>()}.
+     */
+    private boolean startsDeclarator() {
+        Snapshot snapshot = snapshot();
+        next();
+        boolean declarator = false;
+        if (type == TokenType.IDENT) {
+            next();
+            declarator = isSymbol('=') || isSymbol(',') || isSymbol(';') || isSymbol('[');
+        }
+        snapshot.restore();
+        return declarator;
+    }
+
+    private void skipAnnotations() {
+        while (isSymbol('@')) {
+            next();
+            qualifiedName();
+            if (isSymbol('(')) {
+                skipBalanced();
+            }
+        }
+    }
+
+    /**
+     * Skips from an opening bracket to just past its matching closing bracket.
+     */
+    private void skipBalanced() {
+        char open = symbol;
+        char close = closing(open);
+        int depth = 0;
+        do {
+            requireMoreTokens();
+            if (isSymbol(open)) depth++;
+            if (isSymbol(close)) depth--;
+            next();
+        } while (depth > 0);
+    }
+
+    /**
+     * Skips code from an opening bracket to just past its matching closing bracket, like
+     * {@link #skipBalanced()}, but reads the classes declared in it as nested classes of the
+     * enclosing declaration. A {@code class} keyword directly after a dot is a class literal.
+     */
+    private void skipBody(TypeDeclaration enclosing) {
+        char open = symbol;
+        char close = closing(open);
+        int depth = 0;
+        boolean afterDot = false;
+        do {
+            requireMoreTokens();
+            if (!afterDot && (isSymbol('@') || type == TokenType.IDENT
+                    && (MODIFIERS.contains(text) || atTypeDeclaration()))) {
+                Snapshot snapshot = snapshot();
+                Visibility visibility = modifiers();
+                if (atTypeDeclaration()) {
+                    enclosing.nested.add(new TypeDeclaration(visibility));
+                    continue;
+                }
+                snapshot.restore();
+            }
+            if (isSymbol(open)) depth++;
+            if (isSymbol(close)) depth--;
+            afterDot = isSymbol('.');
+            next();
+        } while (depth > 0);
+    }
+
+    private static char closing(char open) {
+        switch (open) {
+            case '(': return ')';
+            case '[': return ']';
+            case '<': return '>';
+            default: return '}';
+        }
+    }
+
+    private String qualifiedName() {
+        StringBuilder name = new StringBuilder(identifier());
+        while (isSymbol('.')) {
+            Snapshot snapshot = snapshot();
+            next();
+            if (type != TokenType.IDENT) {
+                snapshot.restore();
+                break;
+            }
+            name.append('.').append(identifier());
+        }
+        return name.toString();
+    }
+
+    private String identifier() {
+        if (type != TokenType.IDENT) {
+            throw new ScanException("Expected identifier but found '" + tokenText() + "' at offset " + pos);
+        }
+        String identifier = text;
+        next();
+        return identifier;
+    }
+
+    private void expectSymbol(char expected) {
+        if (!isSymbol(expected)) {
+            throw new ScanException("Expected '" + expected + "' but found '" + tokenText() + "' at offset " + pos);
+        }
+        next();
+    }
+
+    private void requireMoreTokens() {
+        if (type == TokenType.EOF) {
+            throw new ScanException("Unexpected end of file");
+        }
+    }
+
+    private boolean isSymbol(char c) {
+        return type == TokenType.SYMBOL && symbol == c;
+    }
+
+    private boolean isIdent(String identifier) {
+        return type == TokenType.IDENT && text.equals(identifier);
+    }
+
+    private String tokenText() {
+        switch (type) {
+            case IDENT: return text;
+            case SYMBOL: return String.valueOf(symbol);
+            case LITERAL: return "literal";
+            default: return "end of file";
+        }
+    }
+
+    /**
+     * Returns the line of the current token, counting forward from the last line looked up.
+     */
+    private int line() {
+        if (tokenStart < lineOffset) {
+            lineOffset = 0;
+            lineNumber = 1;
+        }
+        for (; lineOffset < tokenStart; lineOffset++) {
+            if (source.charAt(lineOffset) == '\n') {
+                lineNumber++;
+            }
+        }
+        return lineNumber;
+    }
+
+    // Lexer
+
+    private void next() {
+        skipWhitespaceAndComments();
+        tokenStart = pos;
+        if (pos >= source.length()) {
+            type = TokenType.EOF;
+            return;
+        }
+
+        char c = source.charAt(pos);
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = pos++;
+            while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+            type = TokenType.IDENT;
+            text = source.substring(start, pos);
+        } else if (Character.isDigit(c)) {
+            while (pos < source.length()
+                    && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+            type = TokenType.LITERAL;
+        } else if (c == '"') {
+            skipStringLiteral();
+            type = TokenType.LITERAL;
+        } else if (c == '\'') {
+            skipQuoted('\'');
+            type = TokenType.LITERAL;
+        } else {
+            pos++;
+            type = TokenType.SYMBOL;
+            symbol = c;
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (source.startsWith("//", pos)) {
+                int end = source.indexOf('\n', pos);
+                pos = end < 0 ? source.length() : end + 1;
+            } else if (source.startsWith("/*", pos)) {
+                int end = source.indexOf("*/", pos + 2);
+                if (end < 0) {
+                    throw new ScanException("Unterminated comment");
+                }
+                pos = end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipStringLiteral() {
+        if (source.startsWith("\"\"\"", pos)) {
+            pos += 3;
+            while (pos < source.length()) {
+                char c = source.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else if (source.startsWith("\"\"\"", pos)) {
+                    pos += 3;
+                    return;
+                } else {
+                    pos++;
+                }
+            }
+            throw new ScanException("Unterminated text block");
+        }
+        skipQuoted('"');
+    }
+
+    private void skipQuoted(char quote) {
+        pos++;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                pos++;
+                return;
+            } else if (c == '\n') {
+                break;
+            } else {
+                pos++;
+            }
+        }
+        throw new ScanException("Unterminated literal");
+    }
+
+    private Snapshot snapshot() {
+        return new Snapshot();
+    }
+
+    /**
+     * Saved lexer state, used for the few places that need more than one token of lookahead.
+     */
+    private final class Snapshot {
+        private final int savedPos = pos;
+        private final int savedTokenStart = tokenStart;
+        private final TokenType savedType = type;
+        private final String savedText = text;
+        private final char savedSymbol = symbol;
+
+        void restore() {
+            pos = savedPos;
+            tokenStart = savedTokenStart;
+            type = savedType;
+            text = savedText;
+            symbol = savedSymbol;
+        }
+    }
+
+    /**
+     * A type reference of a declaration whose class is not created yet.
+     */
+    private static final class Reference {
+        final String typeName;
+        final DependencyType type;
+        final int line;
+
+        Reference(String typeName, DependencyType type, int line) {
+            this.typeName = typeName;
+            this.type = type;
+            this.line = line;
+        }
+
+        TypeReference from(ClassInfo classInfo) {
+            return new TypeReference(classInfo, typeName, type, line);
+        }
+    }
+
+    /**
+     * Thrown when the scanner meets source it cannot handle.
+     */
+    static final class ScanException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ScanException(String message) {
+            super(message);
+        }
+    }
+}
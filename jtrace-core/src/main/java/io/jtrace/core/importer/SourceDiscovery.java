@@ -0,0 +1,159 @@
+package io.jtrace.core.importer;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Finds the Java source files under a set of source roots.
+ *
+ * <p>Roots and their subdirectories are listed as fork-join tasks, so several roots and large
+ * trees are walked in parallel, and every matching file is passed on as soon as it is found.
+ * Include and exclude patterns use {@link FileSystem#getPathMatcher glob} syntax and are matched
+ * against the path relative to its source root; patterns starting with a {@code **} directory
+ * wildcard also match files directly in the root. Unless disabled, the directories build tools
+ * generate sources into are skipped: {@code generated-sources} and {@code generated-test-sources}
+ * directly in a root or in its {@code target} directory, and {@code build/generated}. They are
+ * matched relative to the root, so a package that happens to be named {@code generated} is
+ * still searched.
+ *
+ * <p>Roots that are regular files are passed on as they are, without pattern matching.
+ */
+public class SourceDiscovery {
+    private static final Set<Path> GENERATED_DIRECTORIES = Set.of(
+        Paths.get("generated-sources"), Paths.get("generated-test-sources"),
+        Paths.get("target", "generated-sources"), Paths.get("target", "generated-test-sources"),
+        Paths.get("build", "generated"));
+
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final boolean skipGenerated;
+
+    public SourceDiscovery() {
+        this(List.of(), List.of(), true);
+    }
+
+    /**
+     * Creates a discovery with the given glob patterns; no includes means every {@code .java} file.
+     */
+    public SourceDiscovery(List<String> includes, List<String> excludes, boolean skipGenerated) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+        this.skipGenerated = skipGenerated;
+    }
+
+    /**
+     * Returns the matching files under the given roots, sorted by path.
+     */
+    public List<Path> discover(List<Path> roots, int parallelism) {
+        ConcurrentLinkedQueue<Path> found = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(
+            parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(walkTask(roots, found::add, () -> false));
+        } finally {
+            pool.shutdown();
+        }
+        List<Path> sourceFiles = new ArrayList<>(found);
+        Collections.sort(sourceFiles);
+        return sourceFiles;
+    }
+
+    /**
+     * Creates a task walking the given roots and passing each matching file to the consumer.
+     * The consumer is called concurrently from the pool the task runs in and must be thread-safe.
+     * Once the stop condition holds, no further directories are listed and no further files are
+     * passed on.
+     */
+    RecursiveAction walkTask(List<Path> roots, Consumer<Path> consumer, BooleanSupplier stop) {
+        return new RecursiveAction() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                List<DirectoryTask> tasks = new ArrayList<>();
+                for (Path root : roots) {
+                    if (Files.isDirectory(root)) {
+                        tasks.add(new DirectoryTask(root, root, consumer, stop));
+                    } else if (Files.isRegularFile(root)) {
+                        consumer.accept(root);
+                    } else {
+                        System.err.println("Warning: Source root " + root + " does not exist");
+                    }
+                }
+                invokeAll(tasks);
+            }
+        };
+    }
+
+    private boolean matches(Path root, Path file) {
+        if (!file.getFileName().toString().endsWith(".java")) {
+            return false;
+        }
+        Path relative = root.relativize(file);
+        if (!includes.isEmpty() && includes.stream().noneMatch(matcher -> matcher.matches(relative))) {
+            return false;
+        }
+        return excludes.stream().noneMatch(matcher -> matcher.matches(relative));
+    }
+
+    private static List<PathMatcher> compile(List<String> patterns) {
+        FileSystem fileSystem = FileSystems.getDefault();
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(fileSystem.getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith("**/")) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + pattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * Lists one directory, forking a subtask per subdirectory.
+     */
+    private final class DirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path root;
+        private final Path directory;
+        private final Consumer<Path> consumer;
+        private final BooleanSupplier stop;
+
+        DirectoryTask(Path root, Path directory, Consumer<Path> consumer, BooleanSupplier stop) {
+            this.root = root;
+            this.directory = directory;
+            this.consumer = consumer;
+            this.stop = stop;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop.getAsBoolean()) {
+                return;
+            }
+            List<DirectoryTask> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    if (stop.getAsBoolean()) {
+                        break;
+                    }
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        if (!skipGenerated || !GENERATED_DIRECTORIES.contains(root.relativize(entry))) {
+                            subdirectories.add(new DirectoryTask(root, entry, consumer, stop));
+                        }
+                    } else if (matches(root, entry)) {
+                        consumer.accept(entry);
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                System.err.println("Warning: Could not list " + directory + ": " + e.getMessage());
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
@@ -2,133 +2,318 @@ package io.jtrace.core.importer;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.PackageDeclaration;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.expr.AnnotationExpr;
-import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import io.jtrace.core.importer.ProjectModel.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Imports and parses Java source code files.
+ *
+ * <p>With a parallelism greater than one, files are parsed on a fork-join pool using one
+ * {@link JavaParser} per worker thread. Per-file results are always merged into the
+ * {@link ProjectModel} in input order, so the model is the same as the sequential one.
+ *
+ * <p>When a {@link ParseCache} is supplied, files whose content was parsed before are restored
+ * from the cache instead of being parsed again.
+ *
+ * <p>In {@link ImportMode#SIGNATURES} mode files are read by the token-level
+ * {@link SignatureScanner} instead of JavaParser; files the scanner cannot handle fall back to
+ * a full parse.
+ *
+ * <p>Besides classes and members, the importer records the types each class names in its
+ * imports, supertypes, fields and method signatures. Once all files are merged these are
+ * resolved by a {@link TypeResolver} into the model's {@link DependencyGraph}. Types used only
+ * inside method bodies are not part of the graph; the {@link BytecodeImporter} records those.
  */
 public class SourceImporter {
-    private final JavaParser javaParser;
-    
+    private static final int FILES_PER_TASK = 16;
+
+    private final int parallelism;
+    private final ParseCache parseCache;
+    private final ImportMode mode;
+    // Records and text blocks need a newer language level than JavaParser's default
+    private final ThreadLocal<JavaParser> javaParser = ThreadLocal.withInitial(() -> new JavaParser(
+        new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)));
+
     public SourceImporter() {
-        this.javaParser = new JavaParser();
+        this(1);
+    }
+
+    /**
+     * Creates an importer parsing with the given number of workers; zero or less means one
+     * worker per available processor.
+     */
+    public SourceImporter(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * Creates an importer that consults the given cache before parsing; the cache may be null.
+     */
+    public SourceImporter(int parallelism, ParseCache parseCache) {
+        this(parallelism, parseCache, ImportMode.FULL);
+    }
+
+    /**
+     * Creates an importer extracting as much of each file as the given mode requires.
+     */
+    public SourceImporter(int parallelism, ParseCache parseCache, ImportMode mode) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.parseCache = parseCache;
+        this.mode = mode;
     }
-    
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
     public ProjectModel importSources(List<Path> sourcePaths) {
-        ProjectModel model = new ProjectModel();
-        
-        for (Path sourcePath : sourcePaths) {
+        ParsedSource[] parsed = new ParsedSource[sourcePaths.size()];
+
+        if (parallelism > 1 && sourcePaths.size() > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
             try {
-                String content = Files.readString(sourcePath);
-                ParseResult<CompilationUnit> result = javaParser.parse(content);
-                
-                if (result.isSuccessful() && result.getResult().isPresent()) {
-                    CompilationUnit cu = result.getResult().get();
-                    processCompilationUnit(cu, sourcePath, model);
-                }
-            } catch (Exception e) {
-                System.err.println("Warning: Could not parse " + sourcePath + ": " + e.getMessage());
+                pool.invoke(new ParseTask(sourcePaths, parsed, 0, parsed.length));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            for (int i = 0; i < parsed.length; i++) {
+                parsed[i] = parseSource(sourcePaths.get(i));
             }
         }
-        
+
+        return buildModel(Arrays.asList(parsed));
+    }
+
+    /**
+     * Discovers the source files under the given roots and imports them. Discovery, reading and
+     * parsing run as concurrent stages; results are merged in path order, so the model does not
+     * depend on the order in which files were found.
+     */
+    public ProjectModel importSources(SourceDiscovery discovery, List<Path> roots) {
+        return importSources(discovery, roots, classInfo -> { });
+    }
+
+    /**
+     * Like {@link #importSources(SourceDiscovery, List)}, additionally passing every class to the
+     * listener on the calling thread as soon as its file is parsed, before the model is complete.
+     * Classes arrive in no particular order, and a class whose name is declared again by a later
+     * file (in path order) is reported but does not end up in the model.
+     */
+    public ProjectModel importSources(SourceDiscovery discovery, List<Path> roots,
+                                      Consumer<ClassInfo> classListener) {
+        return importSources(discovery, roots, classListener, () -> false);
+    }
+
+    /**
+     * Like {@link #importSources(SourceDiscovery, List, Consumer)}, polling the given condition
+     * as files are found, read and parsed. Once it is true, no further files are discovered or
+     * parsed, no further classes are passed to the listener, and the model holds only the files
+     * parsed so far.
+     */
+    public ProjectModel importSources(SourceDiscovery discovery, List<Path> roots,
+                                      Consumer<ClassInfo> classListener, BooleanSupplier stop) {
+        return new ImportPipeline(this, discovery, parallelism, stop).run(roots, classListener);
+    }
+
+    ProjectModel buildModel(List<ParsedSource> parsed) {
+        ProjectModel model = new ProjectModel();
+        for (ParsedSource source : parsed) {
+            if (source != null) {
+                mergeInto(source, model);
+            }
+        }
+
+        TypeResolver resolver = new TypeResolver(model);
+        for (ParsedSource source : parsed) {
+            if (source != null) {
+                resolver.resolve(source);
+            }
+        }
+        model.seal();
+
+        if (parseCache != null) {
+            parseCache.evictIfNeeded();
+        }
+
         return model;
     }
-    
-    private void processCompilationUnit(CompilationUnit cu, Path sourcePath, ProjectModel model) {
-        Optional<PackageDeclaration> packageDecl = cu.getPackageDeclaration();
-        String packageName = packageDecl.map(p -> p.getNameAsString()).orElse("");
-        
-        PackageInfo packageInfo = model.getPackage(packageName);
+
+    private ParsedSource parseSource(Path sourcePath) {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(sourcePath);
+        } catch (Exception e) {
+            System.err.println("Warning: Could not read " + sourcePath + ": " + e.getMessage());
+            return null;
+        }
+        return parseSource(sourcePath, content);
+    }
+
+    ParsedSource parseSource(Path sourcePath, byte[] content) {
+        try {
+            String cacheKey = null;
+            if (parseCache != null) {
+                cacheKey = parseCache.keyFor(content, mode);
+                ParsedSource cached = parseCache.load(cacheKey, sourcePath);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            ParsedSource source = parseContent(new String(content, StandardCharsets.UTF_8), sourcePath);
+            if (source != null && parseCache != null) {
+                parseCache.store(cacheKey, source);
+            }
+            return source;
+        } catch (Exception e) {
+            System.err.println("Warning: Could not parse " + sourcePath + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private ParsedSource parseContent(String content, Path sourcePath) {
+        if (mode == ImportMode.SIGNATURES) {
+            try {
+                return new SignatureScanner(content).scan(sourcePath);
+            } catch (SignatureScanner.ScanException e) {
+                // Fall back to the full parser, which also reports real syntax errors
+            }
+        }
+
+        ParseResult<CompilationUnit> result = javaParser.get().parse(content);
+        if (result.isSuccessful() && result.getResult().isPresent()) {
+            return processCompilationUnit(result.getResult().get(), sourcePath);
+        }
+        return null;
+    }
+
+    private void mergeInto(ParsedSource source, ProjectModel model) {
+        PackageInfo packageInfo = model.getPackage(source.packageName);
         if (packageInfo == null) {
-            packageInfo = new PackageInfo(packageName);
+            packageInfo = new PackageInfo(source.packageName);
             model.addPackage(packageInfo);
         }
-        
+        packageInfo.addImports(source.imports);
+
+        for (ClassInfo classInfo : source.classes) {
+            packageInfo.addClass(classInfo);
+            model.addClass(classInfo);
+        }
+    }
+
+    private ParsedSource processCompilationUnit(CompilationUnit cu, Path sourcePath) {
+        Optional<PackageDeclaration> packageDecl = cu.getPackageDeclaration();
+        String packageName = packageDecl.map(p -> p.getNameAsString()).orElse("");
+
         // Process imports
         Set<String> imports = cu.getImports().stream()
             .map(ImportDeclaration::getNameAsString)
             .collect(Collectors.toSet());
-        packageInfo.addImports(imports);
-        
-        // Process classes
-        for (TypeDeclaration<?> typeDecl : cu.getTypes()) {
-            ClassInfo classInfo = processTypeDeclaration(typeDecl, packageName, sourcePath);
-            packageInfo.addClass(classInfo);
-            model.addClass(classInfo);
-            
-            // Process inner classes
-            for (TypeDeclaration<?> innerType : typeDecl.findAll(TypeDeclaration.class)) {
-                if (innerType != typeDecl) {
-                    ClassInfo innerClassInfo = processTypeDeclaration(innerType, packageName, sourcePath);
-                    innerClassInfo.setEnclosingClass(classInfo.getName());
-                    packageInfo.addClass(innerClassInfo);
-                    model.addClass(innerClassInfo);
+        ParsedSource source = new ParsedSource(packageName, imports);
+        for (ImportDeclaration importDecl : cu.getImports()) {
+            if (importDecl.isAsterisk()) {
+                source.onDemandImports.add(importDecl.getNameAsString());
+            }
+        }
+
+        // Process classes and their members in one pass
+        cu.accept(new ClassCollector(source, sourcePath), null);
+
+        // Imports are dependencies of the top-level classes of the file
+        for (ClassInfo classInfo : source.classes) {
+            if (classInfo.getEnclosingClass() == null) {
+                for (ImportDeclaration importDecl : cu.getImports()) {
+                    source.references.add(new TypeReference(classInfo, importDecl.getNameAsString(),
+                                                            DependencyType.IMPORT, lineOf(importDecl)));
                 }
             }
         }
+
+        return source;
     }
-    
-    private ClassInfo processTypeDeclaration(TypeDeclaration<?> typeDecl, String packageName, Path sourcePath) {
+
+    private ClassInfo createClassInfo(TypeDeclaration<?> typeDecl, String packageName,
+                                      ClassInfo enclosing, Path sourcePath) {
         String className = typeDecl.getNameAsString();
-        String fullName = packageName.isEmpty() ? className : packageName + "." + className;
-        
+        String fullName;
+        if (enclosing != null) {
+            fullName = enclosing.getFullName() + "." + className;
+        } else {
+            fullName = packageName.isEmpty() ? className : packageName + "." + className;
+        }
+
         Visibility visibility = determineVisibility(typeDecl);
         ClassType classType = determineClassType(typeDecl);
-        
-        ClassInfo classInfo = new ClassInfo(className, fullName, visibility, classType);
+
+        ClassInfo classInfo = new ClassInfo(className, fullName, packageName, visibility, classType);
         classInfo.setSourceFile(sourcePath.toString());
-        
-        // Process fields
-        for (FieldDeclaration field : typeDecl.findAll(FieldDeclaration.class)) {
-            for (VariableDeclarator var : field.getVariables()) {
-                FieldInfo fieldInfo = new FieldInfo(
-                    var.getNameAsString(),
-                    field.getCommonType().toString(),
-                    determineVisibility(field),
-                    field.getAnnotations().stream()
-                        .map(AnnotationExpr::getNameAsString)
-                        .collect(Collectors.toList())
-                );
-                classInfo.addField(fieldInfo);
-            }
-        }
-        
-        // Process methods
-        for (MethodDeclaration method : typeDecl.findAll(MethodDeclaration.class)) {
-            MethodInfo methodInfo = new MethodInfo(
-                method.getNameAsString(),
-                method.getType().toString(),
-                determineVisibility(method),
-                method.getParameters().stream()
-                    .map(p -> new ParameterInfo(p.getNameAsString(), p.getType().toString()))
-                    .collect(Collectors.toList()),
-                method.getAnnotations().stream()
-                    .map(AnnotationExpr::getNameAsString)
-                    .collect(Collectors.toList())
-            );
-            classInfo.addMethod(methodInfo);
-        }
-        
+        if (enclosing != null) {
+            classInfo.setEnclosingClass(enclosing.getFullName());
+        }
+
         // Process annotations
         List<String> annotations = typeDecl.getAnnotations().stream()
             .map(AnnotationExpr::getNameAsString)
             .collect(Collectors.toList());
         classInfo.setAnnotations(annotations);
-        
+
         return classInfo;
     }
-    
+
+    private FieldInfo createFieldInfo(FieldDeclaration field, VariableDeclarator var) {
+        return new FieldInfo(
+            var.getNameAsString(),
+            var.getType().toString(),
+            determineVisibility(field),
+            field.getAnnotations().stream()
+                .map(AnnotationExpr::getNameAsString)
+                .collect(Collectors.toList())
+        );
+    }
+
+    private MethodInfo createMethodInfo(MethodDeclaration method) {
+        return new MethodInfo(
+            method.getNameAsString(),
+            method.getType().toString(),
+            determineVisibility(method),
+            method.getParameters().stream()
+                .map(p -> new ParameterInfo(p.getNameAsString(), p.getType().toString()))
+                .collect(Collectors.toList()),
+            method.getAnnotations().stream()
+                .map(AnnotationExpr::getNameAsString)
+                .collect(Collectors.toList())
+        );
+    }
+
+    private static int lineOf(Node node) {
+        return node.getBegin().map(position -> position.line).orElse(0);
+    }
+
     private Visibility determineVisibility(NodeWithModifiers<?> node) {
         switch (node.getAccessSpecifier()) {
             case PUBLIC: return Visibility.PUBLIC;
@@ -138,7 +323,7 @@ public class SourceImporter {
             default: return Visibility.PACKAGE_PRIVATE;
         }
     }
-    
+
     private ClassType determineClassType(TypeDeclaration<?> typeDecl) {
         if (typeDecl instanceof ClassOrInterfaceDeclaration) {
             ClassOrInterfaceDeclaration coid = (ClassOrInterfaceDeclaration) typeDecl;
@@ -151,4 +336,186 @@ public class SourceImporter {
         }
         return ClassType.CLASS;
     }
+
+    /**
+     * Walks a compilation unit once, adding every named class with its own fields and methods.
+     * Nested and local classes are named after their enclosing class; members of anonymous
+     * classes belong to no named class and are dropped.
+     */
+    private final class ClassCollector extends VoidVisitorAdapter<Void> {
+        private final ParsedSource source;
+        private final Path sourcePath;
+        // Innermost class last; null while inside an anonymous class body
+        private final List<ClassInfo> enclosing = new ArrayList<>();
+
+        ClassCollector(ParsedSource source, Path sourcePath) {
+            this.source = source;
+            this.sourcePath = sourcePath;
+        }
+
+        @Override
+        public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+            enter(n);
+            for (ClassOrInterfaceType type : n.getExtendedTypes()) {
+                reference(type, DependencyType.EXTENDS);
+            }
+            for (ClassOrInterfaceType type : n.getImplementedTypes()) {
+                reference(type, DependencyType.IMPLEMENTS);
+            }
+            super.visit(n, arg);
+            exit();
+        }
+
+        @Override
+        public void visit(EnumDeclaration n, Void arg) {
+            enter(n);
+            for (ClassOrInterfaceType type : n.getImplementedTypes()) {
+                reference(type, DependencyType.IMPLEMENTS);
+            }
+            super.visit(n, arg);
+            exit();
+        }
+
+        @Override
+        public void visit(AnnotationDeclaration n, Void arg) {
+            enter(n);
+            super.visit(n, arg);
+            exit();
+        }
+
+        @Override
+        public void visit(RecordDeclaration n, Void arg) {
+            enter(n);
+            for (Parameter component : n.getParameters()) {
+                reference(component.getType(), DependencyType.FIELD);
+            }
+            for (ClassOrInterfaceType type : n.getImplementedTypes()) {
+                reference(type, DependencyType.IMPLEMENTS);
+            }
+            super.visit(n, arg);
+            exit();
+        }
+
+        @Override
+        public void visit(EnumConstantDeclaration n, Void arg) {
+            enterAnonymous(!n.getClassBody().isEmpty());
+            super.visit(n, arg);
+            exitAnonymous(!n.getClassBody().isEmpty());
+        }
+
+        @Override
+        public void visit(ObjectCreationExpr n, Void arg) {
+            enterAnonymous(n.getAnonymousClassBody().isPresent());
+            super.visit(n, arg);
+            exitAnonymous(n.getAnonymousClassBody().isPresent());
+        }
+
+        @Override
+        public void visit(FieldDeclaration n, Void arg) {
+            ClassInfo current = current();
+            if (current != null) {
+                for (VariableDeclarator var : n.getVariables()) {
+                    current.addField(createFieldInfo(n, var));
+                }
+                // Declarators may add array brackets of their own, e.g. int a, b[]
+                reference(n.getVariable(0).getType(), DependencyType.FIELD);
+            }
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(MethodDeclaration n, Void arg) {
+            ClassInfo current = current();
+            if (current != null) {
+                current.addMethod(createMethodInfo(n));
+                reference(n.getType(), DependencyType.METHOD_SIGNATURE);
+                for (Parameter parameter : n.getParameters()) {
+                    reference(parameter.getType(), DependencyType.METHOD_SIGNATURE);
+                }
+            }
+            super.visit(n, arg);
+        }
+
+        @Override
+        public void visit(ConstructorDeclaration n, Void arg) {
+            if (current() != null) {
+                for (Parameter parameter : n.getParameters()) {
+                    reference(parameter.getType(), DependencyType.METHOD_SIGNATURE);
+                }
+            }
+            super.visit(n, arg);
+        }
+
+        private void reference(Type type, DependencyType dependencyType) {
+            if (!type.isPrimitiveType() && !type.isVoidType()) {
+                source.references.add(new TypeReference(current(), type.toString(), dependencyType, lineOf(type)));
+            }
+        }
+
+        private void enter(TypeDeclaration<?> typeDecl) {
+            ClassInfo classInfo = createClassInfo(typeDecl, source.packageName, nearestNamed(), sourcePath);
+            source.classes.add(classInfo);
+            enclosing.add(classInfo);
+        }
+
+        private void exit() {
+            enclosing.remove(enclosing.size() - 1);
+        }
+
+        private void enterAnonymous(boolean anonymous) {
+            if (anonymous) {
+                enclosing.add(null);
+            }
+        }
+
+        private void exitAnonymous(boolean anonymous) {
+            if (anonymous) {
+                exit();
+            }
+        }
+
+        private ClassInfo current() {
+            return enclosing.isEmpty() ? null : enclosing.get(enclosing.size() - 1);
+        }
+
+        private ClassInfo nearestNamed() {
+            for (int i = enclosing.size() - 1; i >= 0; i--) {
+                if (enclosing.get(i) != null) {
+                    return enclosing.get(i);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Parses a slice of the input files, splitting until a slice is small enough to parse directly.
+     */
+    private final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<Path> sourcePaths;
+        private final ParsedSource[] results;
+        private final int from;
+        private final int to;
+
+        ParseTask(List<Path> sourcePaths, ParsedSource[] results, int from, int to) {
+            this.sourcePaths = sourcePaths;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= FILES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = parseSource(sourcePaths.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParseTask(sourcePaths, results, from, mid),
+                      new ParseTask(sourcePaths, results, mid, to));
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package io.jtrace.core.importer;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns names to dense {@code int} IDs, starting at zero.
+ *
+ * <p>Every distinct name is stored once, and the model holds the canonical instance, so equal
+ * names can be compared by ID. Interning is thread-safe, and lookups never block.
+ */
+public final class SymbolTable {
+    /**
+     * ID standing for a missing ({@code null}) name.
+     */
+    public static final int NONE = -1;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int size;
+
+    /**
+     * Returns the ID of the given name, assigning the next free ID if it is new.
+     */
+    public int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                id = size;
+                names[size++] = name;
+                ids.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Returns the ID of the given name, or {@link #NONE} if it was never interned.
+     */
+    public int lookup(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        return id != null ? id : NONE;
+    }
+
+    /**
+     * Returns the canonical instance of the given name, interning it if it is new.
+     */
+    public String canonical(String name) {
+        return name(intern(name));
+    }
+
+    /**
+     * Returns the name with the given ID, or null for {@link #NONE}.
+     */
+    public String name(int id) {
+        return id == NONE ? null : names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
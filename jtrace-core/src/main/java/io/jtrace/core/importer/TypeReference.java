@@ -0,0 +1,25 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+
+/**
+ * A type name as written in a class of a source file, before it is resolved against the model.
+ *
+ * <p>The name may be qualified and may contain type arguments, wildcards and array brackets,
+ * e.g. {@code Map<String, List<Order>>[]}. For {@link DependencyType#IMPORT} references it is the
+ * imported name.
+ */
+final class TypeReference {
+    final ClassInfo from;
+    final String typeName;
+    final DependencyType type;
+    final int line;
+
+    TypeReference(ClassInfo from, String typeName, DependencyType type, int line) {
+        this.from = from;
+        this.typeName = typeName;
+        this.type = type;
+        this.line = line;
+    }
+}
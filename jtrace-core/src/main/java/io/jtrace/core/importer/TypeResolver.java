@@ -0,0 +1,155 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Resolves the type references of parsed source files to classes of a model and records them
+ * as dependencies.
+ *
+ * <p>Resolution follows the Java scoping rules as far as they can be applied without type
+ * attribution: member classes of the class and its enclosing classes come first, then single-type
+ * imports, classes of the same package and finally on-demand imports. A name whose first part does
+ * not resolve is tried as a fully qualified name. Names that resolve to no class of the model,
+ * such as JDK or library types, are ignored.
+ */
+final class TypeResolver {
+    private final ProjectModel model;
+
+    TypeResolver(ProjectModel model) {
+        this.model = model;
+    }
+
+    void resolve(ParsedSource source) {
+        if (source.references.isEmpty()) {
+            return;
+        }
+        Map<String, String> singleImports = new HashMap<>();
+        for (String importName : source.imports) {
+            if (!source.onDemandImports.contains(importName)) {
+                singleImports.putIfAbsent(importName.substring(importName.lastIndexOf('.') + 1), importName);
+            }
+        }
+
+        for (TypeReference reference : source.references) {
+            ClassInfo from = reference.from;
+            if (model.getClass(from.getFullNameId()) != from) {
+                continue; // replaced by a class of the same name from a later file
+            }
+            if (reference.type == DependencyType.IMPORT) {
+                // Static and on-demand imports name a member or the content of a class
+                ClassInfo target = qualified(reference.typeName);
+                if (target != null) {
+                    model.addReference(from, target, reference.type, reference.line);
+                }
+                continue;
+            }
+            forEachName(reference.typeName, name -> {
+                ClassInfo target = resolve(name, from, source, singleImports);
+                if (target != null) {
+                    model.addReference(from, target, reference.type, reference.line);
+                }
+            });
+        }
+    }
+
+    private ClassInfo resolve(String name, ClassInfo from, ParsedSource source,
+                              Map<String, String> singleImports) {
+        int dot = name.indexOf('.');
+        ClassInfo outer = resolveSimple(dot < 0 ? name : name.substring(0, dot), from, source, singleImports);
+        if (outer == null) {
+            return dot < 0 ? null : qualified(name);
+        }
+        if (dot < 0) {
+            return outer;
+        }
+        // A member class, or one inherited from a supertype, which still depends on the outer class
+        ClassInfo member = model.getClass(outer.getFullName() + name.substring(dot));
+        return member != null ? member : outer;
+    }
+
+    private ClassInfo resolveSimple(String name, ClassInfo from, ParsedSource source,
+                                    Map<String, String> singleImports) {
+        for (ClassInfo scope = from; scope != null; scope = enclosing(scope)) {
+            if (scope.getName().equals(name)) {
+                return scope;
+            }
+            ClassInfo member = model.getClass(scope.getFullName() + "." + name);
+            if (member != null) {
+                return member;
+            }
+        }
+
+        String imported = singleImports.get(name);
+        if (imported != null) {
+            // A single-type import shadows the package, even when it names a library class
+            return model.getClass(imported);
+        }
+
+        ClassInfo samePackage = model.getClass(source.packageName.isEmpty() ? name : source.packageName + "." + name);
+        if (samePackage != null) {
+            return samePackage;
+        }
+
+        for (String onDemand : source.onDemandImports) {
+            ClassInfo candidate = model.getClass(onDemand + "." + name);
+            if (candidate != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a fully qualified name, falling back to its longest prefix naming a class.
+     */
+    private ClassInfo qualified(String name) {
+        while (true) {
+            ClassInfo classInfo = model.getClass(name);
+            int dot = name.lastIndexOf('.');
+            if (classInfo != null || dot < 0) {
+                return classInfo;
+            }
+            name = name.substring(0, dot);
+        }
+    }
+
+    private ClassInfo enclosing(ClassInfo classInfo) {
+        return classInfo.getEnclosingClass() != null ? model.getClass(classInfo.getEnclosingClass()) : null;
+    }
+
+    /**
+     * Passes each, possibly qualified, class name in a type to the consumer, skipping annotations,
+     * wildcard bounds keywords and primitive types.
+     */
+    static void forEachName(String type, Consumer<String> consumer) {
+        int length = type.length();
+        int i = 0;
+        while (i < length) {
+            char c = type.charAt(i);
+            if (!Character.isJavaIdentifierStart(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && (Character.isJavaIdentifierPart(type.charAt(i)) || type.charAt(i) == '.')) {
+                i++;
+            }
+            String name = type.substring(start, type.charAt(i - 1) == '.' ? i - 1 : i);
+            if (start > 0 && type.charAt(start - 1) == '@') {
+                continue;
+            }
+            switch (name) {
+                case "extends": case "super":
+                case "boolean": case "byte": case "char": case "short":
+                case "int": case "long": case "float": case "double": case "void":
+                    break;
+                default:
+                    consumer.accept(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.jtrace.core.match;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A package or class name pattern whose kind has been worked out once, ready to be matched
+ * many times. Instances are immutable and can be shared between threads.
+ *
+ * @see PatternMatcher#compile(String)
+ */
+public final class CompiledPattern {
+
+    enum Kind {
+        /** Matches nothing; the pattern was null. */
+        NONE,
+        /** Name equals the pattern. */
+        EXACT,
+        /** Name starts with the base ({@code base..*}). */
+        PREFIX,
+        /** Name starts with the base and has no further dot ({@code base.*}). */
+        SINGLE_SEGMENT,
+        /** Name matches a regular expression, given directly or converted from a glob. */
+        REGEX
+    }
+
+    private final String pattern;
+    private final Kind kind;
+    private final String base;
+    private final Pattern regex;
+
+    private CompiledPattern(String pattern, Kind kind, String base, Pattern regex) {
+        this.pattern = pattern;
+        this.kind = kind;
+        this.base = base;
+        this.regex = regex;
+    }
+
+    /**
+     * Compiles a pattern. Regex patterns start with {@code ^} or end with {@code $}; an invalid
+     * regex falls back to an exact match.
+     */
+    static CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            return new CompiledPattern(null, Kind.NONE, null, null);
+        }
+
+        // Check if it's a regex pattern (starts with ^ or ends with $)
+        if (pattern.startsWith("^") || pattern.endsWith("$")) {
+            return regexOrExact(pattern, pattern);
+        }
+
+        // Check if it's a recursive wildcard pattern (ends with ..*)
+        if (pattern.endsWith("..*")) {
+            return new CompiledPattern(pattern, Kind.PREFIX, pattern.substring(0, pattern.length() - 3), null);
+        }
+
+        // Check if it's a single-level wildcard pattern (ends with .*)
+        if (pattern.endsWith(".*")) {
+            return new CompiledPattern(pattern, Kind.SINGLE_SEGMENT,
+                                       pattern.substring(0, pattern.length() - 2), null);
+        }
+
+        // Check if it's a glob pattern (contains * or ?)
+        if (pattern.contains("*") || pattern.contains("?")) {
+            return regexOrExact(pattern, globToRegex(pattern));
+        }
+
+        // Exact match
+        return new CompiledPattern(pattern, Kind.EXACT, pattern, null);
+    }
+
+    private static CompiledPattern regexOrExact(String pattern, String regex) {
+        try {
+            return new CompiledPattern(pattern, Kind.REGEX, null, Pattern.compile(regex));
+        } catch (PatternSyntaxException e) {
+            // If regex is invalid, fall back to exact match
+            return new CompiledPattern(pattern, Kind.EXACT, regex, null);
+        }
+    }
+
+    private static String globToRegex(String globPattern) {
+        StringBuilder regex = new StringBuilder("^");
+
+        for (int i = 0; i < globPattern.length(); i++) {
+            char c = globPattern.charAt(i);
+            switch (c) {
+                case '*':
+                    // * matches any sequence of characters except dots
+                    regex.append("[^.]*");
+                    break;
+                case '?':
+                    // ? matches any single character except dots
+                    regex.append("[^.]");
+                    break;
+                case '.':
+                    // Escape dots in package names
+                    regex.append("\\.");
+                    break;
+                case '[':
+                    // Handle character classes
+                    regex.append('[');
+                    i++; // Skip the opening [
+                    while (i < globPattern.length() && globPattern.charAt(i) != ']') {
+                        regex.append(globPattern.charAt(i));
+                        i++;
+                    }
+                    if (i < globPattern.length()) {
+                        regex.append(']');
+                    }
+                    break;
+                case '\\':
+                    // Escape backslashes
+                    regex.append("\\\\");
+                    break;
+                default:
+                    // Escape other special regex characters
+                    if ("(){}|+^$".indexOf(c) >= 0) {
+                        regex.append('\\');
+                    }
+                    regex.append(c);
+                    break;
+            }
+        }
+
+        regex.append('$');
+        return regex.toString();
+    }
+
+    /**
+     * Returns the source pattern, or null for the pattern that matches nothing.
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the literal name or prefix of exact and wildcard patterns, or null for regex
+     * patterns.
+     */
+    String getBase() {
+        return base;
+    }
+
+    public boolean matches(String name) {
+        if (name == null) {
+            return false;
+        }
+        switch (kind) {
+            case EXACT:
+                return name.equals(base);
+            case PREFIX:
+                return name.startsWith(base);
+            case SINGLE_SEGMENT:
+                return name.startsWith(base) && name.indexOf('.', base.length()) < 0;
+            case REGEX:
+                return regex.matcher(name).matches();
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(pattern);
+    }
+}
@@ -1,112 +1,53 @@
 package io.jtrace.core.match;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Matches package names against patterns (glob, regex, etc.).
+ *
+ * <p>Patterns are compiled into {@link CompiledPattern} objects once and cached, so repeated
+ * matches never re-derive the pattern kind or recompile a regex. Analyzers compile the patterns of
+ * a rule up front and match with the compiled objects.
  */
 public class PatternMatcher {
     
+    private final Map<String, CompiledPattern> compiled = new ConcurrentHashMap<>();
+    
     /**
-     * Matches a package name against a pattern.
+     * Returns the compiled form of a pattern, compiling it on first use.
      * Supports glob patterns, regex patterns, and wildcard patterns.
      */
-    public boolean matches(String pattern, String packageName) {
-        if (pattern == null || packageName == null) {
-            return false;
+    public CompiledPattern compile(String pattern) {
+        if (pattern == null) {
+            return CompiledPattern.compile(null);
         }
-        
-        // Check if it's a regex pattern (starts with ^ or ends with $)
-        if (pattern.startsWith("^") || pattern.endsWith("$")) {
-            return matchesRegex(pattern, packageName);
-        }
-        
-        // Check if it's a recursive wildcard pattern (ends with ..*)
-        if (pattern.endsWith("..*")) {
-            String basePattern = pattern.substring(0, pattern.length() - 3);
-            return packageName.startsWith(basePattern);
-        }
-        
-        // Check if it's a single-level wildcard pattern (ends with .*)
-        if (pattern.endsWith(".*")) {
-            String basePattern = pattern.substring(0, pattern.length() - 2);
-            return packageName.startsWith(basePattern) && 
-                   !packageName.substring(basePattern.length()).contains(".");
-        }
-        
-        // Check if it's a glob pattern (contains * or ?)
-        if (pattern.contains("*") || pattern.contains("?")) {
-            return matchesGlob(pattern, packageName);
-        }
-        
-        // Exact match
-        return packageName.equals(pattern);
+        return compiled.computeIfAbsent(pattern, CompiledPattern::compile);
     }
     
-    private boolean matchesRegex(String regexPattern, String packageName) {
-        try {
-            Pattern pattern = Pattern.compile(regexPattern);
-            return pattern.matcher(packageName).matches();
-        } catch (PatternSyntaxException e) {
-            // If regex is invalid, fall back to exact match
-            return packageName.equals(regexPattern);
+    /**
+     * Compiles the given patterns into a set that matches a name against all of them at once.
+     * Pattern indices in the set follow the order of the list.
+     */
+    public PatternSet compileSet(List<String> patterns) {
+        List<CompiledPattern> compiledPatterns = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            compiledPatterns.add(compile(pattern));
         }
+        return new PatternSet(compiledPatterns);
     }
     
-    private boolean matchesGlob(String globPattern, String packageName) {
-        // Convert glob pattern to regex
-        String regexPattern = globToRegex(globPattern);
-        return matchesRegex(regexPattern, packageName);
-    }
-    
-    private String globToRegex(String globPattern) {
-        StringBuilder regex = new StringBuilder("^");
-        
-        for (int i = 0; i < globPattern.length(); i++) {
-            char c = globPattern.charAt(i);
-            switch (c) {
-                case '*':
-                    // * matches any sequence of characters except dots
-                    regex.append("[^.]*");
-                    break;
-                case '?':
-                    // ? matches any single character except dots
-                    regex.append("[^.]");
-                    break;
-                case '.':
-                    // Escape dots in package names
-                    regex.append("\\.");
-                    break;
-                case '[':
-                    // Handle character classes
-                    regex.append('[');
-                    i++; // Skip the opening [
-                    while (i < globPattern.length() && globPattern.charAt(i) != ']') {
-                        regex.append(globPattern.charAt(i));
-                        i++;
-                    }
-                    if (i < globPattern.length()) {
-                        regex.append(']');
-                    }
-                    break;
-                case '\\':
-                    // Escape backslashes
-                    regex.append("\\\\");
-                    break;
-                default:
-                    // Escape other special regex characters
-                    if ("(){}|+^$".indexOf(c) >= 0) {
-                        regex.append('\\');
-                    }
-                    regex.append(c);
-                    break;
-            }
+    /**
+     * Matches a package name against a pattern.
+     * Supports glob patterns, regex patterns, and wildcard patterns.
+     */
+    public boolean matches(String pattern, String packageName) {
+        if (pattern == null || packageName == null) {
+            return false;
         }
-        
-        regex.append('$');
-        return regex.toString();
+        return compile(pattern).matches(packageName);
     }
     
     /**
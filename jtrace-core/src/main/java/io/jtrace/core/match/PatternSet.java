@@ -0,0 +1,214 @@
+package io.jtrace.core.match;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of compiled patterns that matches a name against all of them in one lookup.
+ *
+ * <p>Patterns are indexed in a trie over dot-separated name segments. Exact patterns end at a trie
+ * node, {@code ..*} and {@code .*} patterns end in a segment prefix check, and {@code *} glob
+ * segments become wildcard nodes. Only regex patterns and globs with other wildcards are matched
+ * one by one. A lookup therefore costs about one trie step per name segment however many
+ * patterns the set holds. Results are identical to {@link CompiledPattern#matches(String)}.
+ */
+public final class PatternSet {
+    private final List<CompiledPattern> patterns;
+    private final Node root = new Node();
+    private final List<Integer> fallback = new ArrayList<>();
+
+    public PatternSet(List<CompiledPattern> patterns) {
+        this.patterns = List.copyOf(patterns);
+        for (int index = 0; index < this.patterns.size(); index++) {
+            add(this.patterns.get(index), index);
+        }
+    }
+
+    public int size() {
+        return patterns.size();
+    }
+
+    public CompiledPattern get(int index) {
+        return patterns.get(index);
+    }
+
+    /**
+     * Returns the indices of all patterns matching the name.
+     */
+    public BitSet match(String name) {
+        BitSet result = new BitSet(patterns.size());
+        match(name, result);
+        return result;
+    }
+
+    /**
+     * Sets the indices of all patterns matching the name in {@code result}, leaving other bits
+     * as they are.
+     */
+    public void match(String name, BitSet result) {
+        if (name == null) {
+            return;
+        }
+        match(root, split(name), 0, result);
+        for (int index : fallback) {
+            if (patterns.get(index).matches(name)) {
+                result.set(index);
+            }
+        }
+    }
+
+    private void add(CompiledPattern pattern, int index) {
+        switch (pattern.getKind()) {
+            case NONE:
+                break;
+            case EXACT: {
+                String[] segments = split(pattern.getBase());
+                literalNode(segments, segments.length).exact.add(index);
+                break;
+            }
+            case PREFIX:
+            case SINGLE_SEGMENT: {
+                String[] segments = split(pattern.getBase());
+                int last = segments.length - 1;
+                literalNode(segments, last).prefixes.add(
+                    new SegmentPrefix(segments[last], pattern.getKind() == CompiledPattern.Kind.SINGLE_SEGMENT, index));
+                break;
+            }
+            default:
+                if (isSegmentGlob(pattern.getPattern())) {
+                    globNode(split(pattern.getPattern())).exact.add(index);
+                } else {
+                    fallback.add(index);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Whether the pattern is a glob whose segments are all either literal or a single {@code *},
+     * so that it can live in the trie.
+     */
+    private static boolean isSegmentGlob(String pattern) {
+        if (pattern.startsWith("^") || pattern.endsWith("$")
+                || pattern.indexOf('?') >= 0 || pattern.indexOf('[') >= 0 || pattern.indexOf('\\') >= 0) {
+            return false;
+        }
+        for (String segment : split(pattern)) {
+            if (segment.indexOf('*') >= 0 && !segment.equals("*")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the node reached from the root by the first {@code count} segments taken
+     * literally, creating nodes as needed.
+     */
+    private Node literalNode(String[] segments, int count) {
+        Node node = root;
+        for (int i = 0; i < count; i++) {
+            node = node.child(segments[i]);
+        }
+        return node;
+    }
+
+    /**
+     * Returns the node reached from the root by the segments of a glob, where a {@code *}
+     * segment leads to the wildcard child, creating nodes as needed.
+     */
+    private Node globNode(String[] segments) {
+        Node node = root;
+        for (String segment : segments) {
+            node = segment.equals("*") ? node.wildcard() : node.child(segment);
+        }
+        return node;
+    }
+
+    private static void match(Node node, String[] segments, int depth, BitSet result) {
+        if (depth == segments.length) {
+            for (int index : node.exact) {
+                result.set(index);
+            }
+            return;
+        }
+
+        String segment = segments[depth];
+        boolean last = depth == segments.length - 1;
+        for (SegmentPrefix prefix : node.prefixes) {
+            if (segment.startsWith(prefix.prefix) && (last || !prefix.lastSegment)) {
+                result.set(prefix.index);
+            }
+        }
+        if (node.children != null) {
+            Node child = node.children.get(segment);
+            if (child != null) {
+                match(child, segments, depth + 1, result);
+            }
+        }
+        if (node.wildcard != null) {
+            match(node.wildcard, segments, depth + 1, result);
+        }
+    }
+
+    /**
+     * Splits a name at every dot, keeping empty segments.
+     */
+    private static String[] split(String name) {
+        int count = 1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == '.') {
+                count++;
+            }
+        }
+        String[] segments = new String[count];
+        int start = 0;
+        for (int s = 0; s < count - 1; s++) {
+            int dot = name.indexOf('.', start);
+            segments[s] = name.substring(start, dot);
+            start = dot + 1;
+        }
+        segments[count - 1] = name.substring(start);
+        return segments;
+    }
+
+    private static final class Node {
+        private Map<String, Node> children;
+        private Node wildcard;
+        private final List<Integer> exact = new ArrayList<>(1);
+        private final List<SegmentPrefix> prefixes = new ArrayList<>(1);
+
+        Node child(String segment) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            return children.computeIfAbsent(segment, s -> new Node());
+        }
+
+        Node wildcard() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+    }
+
+    /**
+     * A pattern that matches when the next name segment starts with {@code prefix}, and, for
+     * {@code .*} patterns, that segment is the last one.
+     */
+    private static final class SegmentPrefix {
+        final String prefix;
+        final boolean lastSegment;
+        final int index;
+
+        SegmentPrefix(String prefix, boolean lastSegment, int index) {
+            this.prefix = prefix;
+            this.lastSegment = lastSegment;
+            this.index = index;
+        }
+    }
+}
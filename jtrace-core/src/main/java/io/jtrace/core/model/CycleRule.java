@@ -0,0 +1,145 @@
+package io.jtrace.core.model;
+
+/**
+ * Rule that forbids dependency cycles between classes or packages, optionally only among the
+ * classes matching a package pattern.
+ */
+public class CycleRule extends AbstractRule {
+    public static final int DEFAULT_MAX_CYCLES = 20;
+    public static final int DEFAULT_MAX_CYCLE_LENGTH = 8;
+    public static final long DEFAULT_TIME_BUDGET_MS = 10_000;
+
+    private final String packagePattern;
+    private final Level level;
+    private final int maxCycles;
+    private final int maxCycleLength;
+    private final long timeBudgetMs;
+
+    public enum Level {
+        CLASS, PACKAGE
+    }
+
+    public CycleRule(String id, Severity severity, String message, String packagePattern) {
+        this(id, severity, message, packagePattern, Level.CLASS, DEFAULT_MAX_CYCLES,
+             DEFAULT_MAX_CYCLE_LENGTH, DEFAULT_TIME_BUDGET_MS);
+    }
+
+    public CycleRule(String id, Severity severity, String message, String packagePattern, Level level,
+                     int maxCycles, int maxCycleLength, long timeBudgetMs) {
+        super(id, "cycles", severity, message);
+        this.packagePattern = packagePattern;
+        this.level = level;
+        this.maxCycles = maxCycles;
+        this.maxCycleLength = maxCycleLength;
+        this.timeBudgetMs = timeBudgetMs;
+    }
+
+    /**
+     * Returns the pattern restricting the classes checked, or null to check all classes.
+     */
+    public String getPackagePattern() {
+        return packagePattern;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns how many elementary cycles are reported at most per group of packages that depend
+     * on each other.
+     */
+    public int getMaxCycles() {
+        return maxCycles;
+    }
+
+    /**
+     * Returns the number of packages of the longest elementary cycle reported.
+     */
+    public int getMaxCycleLength() {
+        return maxCycleLength;
+    }
+
+    /**
+     * Returns the time allowed for enumerating elementary cycles, in milliseconds, or 0 for no
+     * limit.
+     */
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private String id;
+        private Severity severity = Severity.ERROR;
+        private String message;
+        private String packagePattern;
+        private Level level = Level.CLASS;
+        private int maxCycles = DEFAULT_MAX_CYCLES;
+        private int maxCycleLength = DEFAULT_MAX_CYCLE_LENGTH;
+        private long timeBudgetMs = DEFAULT_TIME_BUDGET_MS;
+
+        public Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder severity(Severity severity) {
+            this.severity = severity;
+            return this;
+        }
+
+        public Builder message(String message) {
+            this.message = message;
+            return this;
+        }
+
+        public Builder in(String packagePattern) {
+            this.packagePattern = packagePattern;
+            return this;
+        }
+
+        public Builder level(Level level) {
+            this.level = level;
+            return this;
+        }
+
+        public Builder maxCycles(int maxCycles) {
+            this.maxCycles = maxCycles;
+            return this;
+        }
+
+        public Builder maxCycleLength(int maxCycleLength) {
+            this.maxCycleLength = maxCycleLength;
+            return this;
+        }
+
+        public Builder timeBudgetMs(long timeBudgetMs) {
+            this.timeBudgetMs = timeBudgetMs;
+            return this;
+        }
+
+        public CycleRule build() {
+            if (id == null || level == null) {
+                throw new IllegalStateException("id and level are required");
+            }
+            if (maxCycles < 1 || maxCycleLength < 2) {
+                throw new IllegalStateException("maxCycles must be at least 1 and maxCycleLength at least 2");
+            }
+            if (timeBudgetMs < 0) {
+                throw new IllegalStateException("timeBudgetMs must not be negative");
+            }
+            if (message == null) {
+                String elements = level == Level.PACKAGE ? "Packages" : "Classes";
+                message = packagePattern != null
+                    ? String.format("%s in %s must not form dependency cycles", elements, packagePattern)
+                    : elements + " must not form dependency cycles";
+            }
+            return new CycleRule(id, severity, message, packagePattern, level, maxCycles, maxCycleLength,
+                                 timeBudgetMs);
+        }
+    }
+}
@@ -10,16 +10,29 @@ public class Location {
     private final int line;
     private final int column;
     private final String symbol;
+    private final String packageName;
 
     public Location(Path file, int line, int column, String symbol) {
+        this(file, line, column, symbol, null);
+    }
+
+    public Location(Path file, int line, int column, String symbol, String packageName) {
         this.file = file;
         this.line = line;
         this.column = column;
         this.symbol = symbol;
+        this.packageName = packageName;
     }
 
     public Location(Path file, int line, String symbol) {
-        this(file, line, -1, symbol);
+        this(file, line, -1, symbol, null);
+    }
+
+    /**
+     * Creates a location in a class of the given package, the empty string for the default package.
+     */
+    public Location(Path file, int line, String symbol, String packageName) {
+        this(file, line, -1, symbol, packageName);
     }
 
     public Path getFile() {
@@ -38,6 +51,13 @@ public class Location {
         return symbol;
     }
 
+    /**
+     * Returns the package of the class the location is in, or null when it is not in a class.
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
     @Override
     public String toString() {
         if (column > 0) {
@@ -0,0 +1,30 @@
+package io.jtrace.core.model;
+
+/**
+ * Receives violations as they are found, so that they can be reported without first being
+ * collected into one list.
+ *
+ * <p>The engine delivers violations rule by rule, in configuration order, and calls
+ * {@link #ruleFinished} after the violations of each rule. Calls are made from one thread at a
+ * time. A {@code List<Violation>}'s {@code add} method is a valid sink.
+ */
+@FunctionalInterface
+public interface ViolationSink {
+
+    void accept(Violation violation);
+
+    /**
+     * Called after the last violation of a rule with the number of violations the rule found,
+     * which is larger than the number delivered when violations were dropped beyond the
+     * configured per-rule cap. Rules the run stopped before evaluating get no call.
+     */
+    default void ruleFinished(Rule rule, long found) {
+    }
+
+    /**
+     * Called last when the run stopped early, in fail-fast mode or because its time budget was
+     * spent, so that the violations delivered are only those found until then.
+     */
+    default void incomplete(String reason) {
+    }
+}
@@ -1,56 +1,102 @@
 package io.jtrace.core.report;
 
+import io.jtrace.core.model.Rule;
 import io.jtrace.core.model.Violation;
 import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.ViolationSink;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Reports violations to the console with formatted output.
+ *
+ * <p>The reporter is a {@link ViolationSink}: violations can be streamed into it as the engine
+ * finds them, followed by {@link #finish()}. Only the violations it is given are held; violations
+ * the engine dropped beyond the per-rule cap are counted from {@link #ruleFinished}.
  */
-public class ConsoleReporter {
+public class ConsoleReporter implements ViolationSink {
+    private final Map<Severity, List<Violation>> listed = new EnumMap<>(Severity.class);
+    private final Map<Severity, Long> counts = new EnumMap<>(Severity.class);
+    private final Map<String, Long> ruleCounts = new HashMap<>();
+    private long total;
+    private long acceptedForRule;
     
     public void report(List<Violation> violations) {
-        if (violations.isEmpty()) {
+        violations.forEach(this::accept);
+        finish();
+    }
+
+    @Override
+    public void accept(Violation violation) {
+        listed.computeIfAbsent(violation.getSeverity(), severity -> new ArrayList<>()).add(violation);
+        count(violation.getSeverity(), violation.getRuleId(), 1);
+        acceptedForRule++;
+    }
+
+    @Override
+    public void ruleFinished(Rule rule, long found) {
+        if (found > acceptedForRule) {
+            count(rule.getSeverity(), rule.getId(), found - acceptedForRule);
+        }
+        acceptedForRule = 0;
+    }
+
+    private void count(Severity severity, String ruleId, long count) {
+        counts.merge(severity, count, Long::sum);
+        ruleCounts.merge(ruleId, count, Long::sum);
+        total += count;
+    }
+
+    /**
+     * Prints the report of all violations received.
+     */
+    public void finish() {
+        if (total == 0) {
             System.out.println("✅ No architecture violations found");
             return;
         }
 
-        // Group violations by severity
-        Map<Severity, List<Violation>> violationsBySeverity = violations.stream()
-            .collect(Collectors.groupingBy(Violation::getSeverity));
-
         // Print summary
         System.out.println("🔍 Architecture Analysis Results");
         System.out.println("=================================");
-        System.out.printf("Total violations: %d%n", violations.size());
+        System.out.printf("Total violations: %d%n", total);
         
         for (Severity severity : Severity.values()) {
-            List<Violation> severityViolations = violationsBySeverity.get(severity);
-            if (severityViolations != null) {
+            Long count = counts.get(severity);
+            if (count != null) {
                 System.out.printf("%s: %d%n", 
-                    severity.getValue().toUpperCase(), severityViolations.size());
+                    severity.getValue().toUpperCase(), count);
             }
         }
         System.out.println();
 
         // Print violations grouped by severity
         for (Severity severity : Severity.values()) {
-            List<Violation> severityViolations = violationsBySeverity.get(severity);
-            if (severityViolations != null && !severityViolations.isEmpty()) {
-                printViolationsBySeverity(severity, severityViolations);
+            Long count = counts.get(severity);
+            if (count != null) {
+                printViolationsBySeverity(severity, listed.getOrDefault(severity, List.of()), count);
             }
         }
 
         // Print suggestions
-        printSuggestions(violations);
+        printSuggestions();
     }
 
-    private void printViolationsBySeverity(Severity severity, List<Violation> violations) {
+    /**
+     * Number of violations of the given severity received so far, including those counted but
+     * not delivered.
+     */
+    public long getViolationCount(Severity severity) {
+        return counts.getOrDefault(severity, 0L);
+    }
+
+    private void printViolationsBySeverity(Severity severity, List<Violation> violations, long count) {
         String severityLabel = severity.getValue().toUpperCase();
-        System.out.printf("[%s] %s violations:%n", severityLabel, violations.size());
+        System.out.printf("[%s] %s violations:%n", severityLabel, count);
         
         for (Violation violation : violations) {
             System.out.printf("  • %s: %s at %s%n",
@@ -58,17 +104,18 @@ public class ConsoleReporter {
                 violation.getMessage(),
                 violation.getLocation());
         }
+        if (count > violations.size()) {
+            System.out.printf("  … %d more not listed (analysis.maxViolationsPerRule)%n",
+                count - violations.size());
+        }
         System.out.println();
     }
 
-    private void printSuggestions(List<Violation> violations) {
+    private void printSuggestions() {
         System.out.println("💡 Suggestions:");
         System.out.println("===============");
         
-        // Group by rule ID to avoid duplicate suggestions
-        Map<String, Long> ruleCounts = violations.stream()
-            .collect(Collectors.groupingBy(Violation::getRuleId, Collectors.counting()));
-        
+        // Rule counts are kept by rule ID to avoid duplicate suggestions
         ruleCounts.entrySet().stream()
             .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
             .limit(5) // Top 5 most violated rules
@@ -0,0 +1,409 @@
+package io.jtrace.core.report;
+
+import io.jtrace.core.JTraceVersion;
+import io.jtrace.core.match.PatternMatcher;
+import io.jtrace.core.model.LayeringRule;
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes a static, paginated HTML report into a directory.
+ *
+ * <p>The violations are split into shards, one per rule and one per package, and each shard into
+ * pages of {@value #PAGE_SIZE} rows, so that a browser only ever loads the page being looked at.
+ * The landing page, {@code index.html}, is rendered from a summary computed while the violations
+ * are received: counts by severity and by rule, including violations dropped beyond the per-rule
+ * cap, and counts of the violations listed by package and by layer of each layering rule. The
+ * same summary is written to {@code summary.json} for tools. Shards are written in parallel when
+ * the writer is closed.
+ */
+public class HtmlReportWriter implements ViolationSink, Closeable {
+    static final int PAGE_SIZE = 500;
+    private static final String NO_PACKAGE = "(no package)";
+
+    private final Path directory;
+    private final List<LayeringRule> layeringRules = new ArrayList<>();
+    private final PatternMatcher patternMatcher = new PatternMatcher();
+    private final Map<String, Shard> rules = new LinkedHashMap<>();
+    private final Map<String, Shard> packages = new TreeMap<>();
+    private final Map<String, String[]> packageLayers = new HashMap<>();
+    private final Map<String, Long> layerCounts = new TreeMap<>();
+    private final Map<Severity, Long> counts = new EnumMap<>(Severity.class);
+    private long total;
+    private long acceptedForRule;
+    private String incomplete;
+
+    /**
+     * Starts a report in the given directory for the given rules, which give the rule shards
+     * their order and the layers to count violations by.
+     */
+    public HtmlReportWriter(Path directory, List<? extends Rule> rules) {
+        this.directory = directory;
+        for (Rule rule : rules) {
+            shard(this.rules, rule.getId());
+            if (rule instanceof LayeringRule && !layeringRules.contains(rule)) {
+                layeringRules.add((LayeringRule) rule);
+            }
+        }
+    }
+
+    @Override
+    public void accept(Violation violation) {
+        Shard rule = shard(rules, violation.getRuleId());
+        rule.violations.add(violation);
+        rule.found++;
+
+        String packageName = packageOf(violation.getLocation());
+        Shard packageShard = shard(packages, packageName);
+        packageShard.violations.add(violation);
+        packageShard.found++;
+        for (String layer : layersOf(packageName)) {
+            if (layer != null) {
+                layerCounts.merge(layer, 1L, Long::sum);
+            }
+        }
+
+        counts.merge(violation.getSeverity(), 1L, Long::sum);
+        total++;
+        acceptedForRule++;
+    }
+
+    @Override
+    public void ruleFinished(Rule rule, long found) {
+        if (found > acceptedForRule) {
+            shard(rules, rule.getId()).found += found - acceptedForRule;
+            counts.merge(rule.getSeverity(), found - acceptedForRule, Long::sum);
+            total += found - acceptedForRule;
+        }
+        acceptedForRule = 0;
+    }
+
+    @Override
+    public void incomplete(String reason) {
+        this.incomplete = reason;
+    }
+
+    private static Shard shard(Map<String, Shard> shards, String name) {
+        return shards.computeIfAbsent(name, Shard::new);
+    }
+
+    /**
+     * Returns the package of the class a violation is reported on.
+     */
+    private static String packageOf(Location location) {
+        String packageName = location != null ? location.getPackageName() : null;
+        return packageName == null || packageName.isEmpty() ? NO_PACKAGE : packageName;
+    }
+
+    /**
+     * Returns the layer of a package in each layering rule, as {@code rule / layer}, or null
+     * where it is outside all layers.
+     */
+    private String[] layersOf(String packageName) {
+        return packageLayers.computeIfAbsent(packageName, name -> {
+            String[] layers = new String[layeringRules.size()];
+            for (int r = 0; r < layers.length; r++) {
+                for (LayeringRule.Layer layer : layeringRules.get(r).getLayers()) {
+                    if (patternMatcher.matchesAny(layer.getPackages(), name)) {
+                        layers[r] = layeringRules.get(r).getId() + " / " + layer.getName();
+                        break;
+                    }
+                }
+            }
+            return layers;
+        });
+    }
+
+    /**
+     * Writes the summary, the landing page and all shards, and releases the violations held.
+     */
+    @Override
+    public void close() throws IOException {
+        Files.createDirectories(directory);
+        List<Shard> ruleShards = new ArrayList<>(rules.values());
+        List<Shard> packageShards = new ArrayList<>(packages.values());
+        for (int i = 0; i < ruleShards.size(); i++) {
+            ruleShards.get(i).path = "rules/r" + i;
+        }
+        for (int i = 0; i < packageShards.size(); i++) {
+            packageShards.get(i).path = "packages/p" + i;
+        }
+
+        ExecutorService executor = Executors.newWorkStealingPool();
+        try {
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            tasks.add(run(executor, () -> {
+                writeSummary(ruleShards, packageShards);
+                writeIndex(ruleShards, packageShards);
+            }));
+            for (Shard shard : ruleShards) {
+                tasks.add(run(executor, () -> writeShard(shard, "Rule")));
+            }
+            for (Shard shard : packageShards) {
+                tasks.add(run(executor, () -> writeShard(shard, "Package")));
+            }
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+            rules.clear();
+            packages.clear();
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    private static CompletableFuture<Void> run(ExecutorService executor, IoTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private void writeSummary(List<Shard> ruleShards, List<Shard> packageShards) throws IOException {
+        try (JsonWriter json = new JsonWriter(Files.newBufferedWriter(directory.resolve("summary.json"),
+                                                                      StandardCharsets.UTF_8))) {
+            json.beginObject()
+                .member("version", JTraceVersion.get())
+                .member("total", total)
+                .member("incomplete", incomplete)
+                .name("severities").beginObject();
+            for (Severity severity : Severity.values()) {
+                json.member(severity.getValue(), counts.getOrDefault(severity, 0L));
+            }
+            json.endObject();
+            writeShardSummaries(json, "rules", ruleShards);
+            writeShardSummaries(json, "packages", packageShards);
+            json.name("layers").beginObject();
+            for (Map.Entry<String, Long> layer : layerCounts.entrySet()) {
+                json.member(layer.getKey(), layer.getValue());
+            }
+            json.endObject()
+                .endObject();
+        }
+    }
+
+    private static void writeShardSummaries(JsonWriter json, String name, List<Shard> shards) throws IOException {
+        json.name(name).beginArray();
+        for (Shard shard : shards) {
+            json.beginObject()
+                .member("name", shard.name)
+                .member("found", shard.found)
+                .member("listed", shard.violations.size())
+                .member("pages", shard.pages())
+                .member("path", shard.path + "/page-1.html")
+                .endObject();
+        }
+        json.endArray();
+    }
+
+    private void writeIndex(List<Shard> ruleShards, List<Shard> packageShards) throws IOException {
+        try (Writer out = Files.newBufferedWriter(directory.resolve("index.html"), StandardCharsets.UTF_8)) {
+            header(out, "JTrace Architecture Report");
+            out.write("<h1>JTrace Architecture Report</h1>\n");
+            out.write("<p>" + total + " violations</p>\n");
+            if (incomplete != null) {
+                out.write("<p class=\"warning\">Analysis incomplete: " + escape(incomplete) + "</p>\n");
+            }
+
+            out.write("<h2>By severity</h2>\n<table>\n<tr><th>Severity</th><th>Violations</th></tr>\n");
+            for (Severity severity : Severity.values()) {
+                out.write("<tr><td class=\"" + severity.getValue() + "\">" + severity.getValue() + "</td><td>"
+                          + counts.getOrDefault(severity, 0L) + "</td></tr>\n");
+            }
+            out.write("</table>\n");
+
+            shardTable(out, "By rule", "Rule", ruleShards);
+
+            if (!layerCounts.isEmpty()) {
+                out.write("<h2>By layer</h2>\n<table>\n<tr><th>Layer</th><th>Violations</th></tr>\n");
+                for (Map.Entry<String, Long> layer : layerCounts.entrySet()) {
+                    out.write("<tr><td>" + escape(layer.getKey()) + "</td><td>" + layer.getValue() + "</td></tr>\n");
+                }
+                out.write("</table>\n");
+            }
+
+            shardTable(out, "By package", "Package", packageShards);
+            footer(out);
+        }
+    }
+
+    private static void shardTable(Writer out, String title, String kind, List<Shard> shards) throws IOException {
+        out.write("<h2>" + title + "</h2>\n<table>\n<tr><th>" + kind + "</th><th>Violations</th></tr>\n");
+        for (Shard shard : shards) {
+            String name = escape(shard.name);
+            String cell = shard.found > 0 ? "<a href=\"" + shard.path + "/page-1.html\">" + name + "</a>" : name;
+            out.write("<tr><td>" + cell + "</td><td>" + shard.found + "</td></tr>\n");
+        }
+        out.write("</table>\n");
+    }
+
+    private void writeShard(Shard shard, String kind) throws IOException {
+        if (shard.found == 0) {
+            return;
+        }
+        Path shardDirectory = Files.createDirectories(directory.resolve(shard.path));
+        int pages = shard.pages();
+        for (int page = 1; page <= pages; page++) {
+            try (Writer out = Files.newBufferedWriter(shardDirectory.resolve("page-" + page + ".html"),
+                                                      StandardCharsets.UTF_8)) {
+                String title = kind + " " + shard.name;
+                header(out, title);
+                out.write("<p><a href=\"../../index.html\">Summary</a></p>\n");
+                out.write("<h1>" + escape(title) + "</h1>\n");
+                out.write("<p>" + shard.found + " violations");
+                if (shard.found > shard.violations.size()) {
+                    out.write(", " + shard.violations.size() + " listed (analysis.maxViolationsPerRule)");
+                }
+                out.write("</p>\n");
+                pager(out, page, pages);
+
+                out.write("<table>\n<tr><th>Severity</th><th>Rule</th><th>Location</th><th>Symbol</th>"
+                          + "<th>Message</th></tr>\n");
+                int end = Math.min(page * PAGE_SIZE, shard.violations.size());
+                for (Violation violation : shard.violations.subList((page - 1) * PAGE_SIZE, end)) {
+                    row(out, violation);
+                }
+                out.write("</table>\n");
+                pager(out, page, pages);
+                footer(out);
+            }
+        }
+    }
+
+    private static void row(Writer out, Violation violation) throws IOException {
+        Location location = violation.getLocation();
+        String file = "";
+        String symbol = "";
+        if (location != null) {
+            if (location.getFile() != null && !location.getFile().toString().isEmpty()) {
+                file = escape(location.getFile().toString()) + (location.getLine() > 0 ? ":" + location.getLine() : "");
+            }
+            symbol = escape(location.getSymbol());
+        }
+        String severity = violation.getSeverity().getValue();
+        out.write("<tr><td class=\"" + severity + "\">" + severity + "</td><td>" + escape(violation.getRuleId())
+                  + "</td><td>" + file + "</td><td>" + symbol + "</td><td>" + escape(violation.getMessage()));
+        if (violation.getSuggestion() != null) {
+            out.write("<br><em>" + escape(violation.getSuggestion()) + "</em>");
+        }
+        out.write("</td></tr>\n");
+    }
+
+    private static void pager(Writer out, int page, int pages) throws IOException {
+        if (pages == 1) {
+            return;
+        }
+        out.write("<p class=\"pager\">");
+        if (page > 1) {
+            out.write("<a href=\"page-" + (page - 1) + ".html\">&larr; Previous</a> ");
+        }
+        out.write("Page " + page + " of " + pages);
+        if (page < pages) {
+            out.write(" <a href=\"page-" + (page + 1) + ".html\">Next &rarr;</a>");
+        }
+        out.write("</p>\n");
+    }
+
+    private static void header(Writer out, String title) throws IOException {
+        out.write("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<meta charset=\"utf-8\">\n<title>");
+        out.write(escape(title));
+        out.write("</title>\n<style>\n"
+                  + "body { font-family: sans-serif; margin: 2em; }\n"
+                  + "table { border-collapse: collapse; margin-bottom: 1.5em; }\n"
+                  + "th, td { border: 1px solid #ccc; padding: 0.3em 0.6em; text-align: left; vertical-align: top; }\n"
+                  + ".error { color: #b00020; } .warning { color: #a65f00; } .info { color: #00579b; }\n"
+                  + "</style>\n</head>\n<body>\n");
+    }
+
+    private static void footer(Writer out) throws IOException {
+        out.write("<p><small>Generated by JTrace " + escape(JTraceVersion.get()) + "</small></p>\n</body>\n</html>\n");
+    }
+
+    private static String escape(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : text;
+    }
+
+    /**
+     * The violations of one rule or package and where their pages are written.
+     */
+    private static final class Shard {
+        private final String name;
+        private final List<Violation> violations = new ArrayList<>();
+        private long found;
+        private String path;
+
+        Shard(String name) {
+            this.name = name;
+        }
+
+        int pages() {
+            return Math.max(1, (violations.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        }
+    }
+}
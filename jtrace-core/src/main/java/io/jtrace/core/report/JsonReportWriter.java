@@ -0,0 +1,134 @@
+package io.jtrace.core.report;
+
+import io.jtrace.core.JTraceVersion;
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes violations to a JSON report file as they are received.
+ *
+ * <p>The writer is a {@link ViolationSink}: each violation is written to the file when it is
+ * accepted, and only per-rule and per-severity counts are held until {@link #close()} writes the
+ * summary. The writer holds no violations; what the engine holds per rule is bounded by
+ * {@code maxViolationsPerRule}. The report is an object with a {@code violations} array, a
+ * {@code rules} array with each rule's counts, including violations dropped beyond the per-rule
+ * cap, and a {@code summary} by severity.
+ */
+public class JsonReportWriter implements ViolationSink, Closeable {
+    private final JsonWriter json;
+    private final Map<String, RuleCount> rules = new LinkedHashMap<>();
+    private final Map<Severity, Long> counts = new EnumMap<>(Severity.class);
+    private long total;
+    private long acceptedForRule;
+    private String incomplete;
+
+    /**
+     * Starts a report in the given file, gzip-compressed if asked.
+     */
+    public JsonReportWriter(Path file, boolean gzip) throws IOException {
+        this.json = JsonWriter.open(file, gzip);
+        json.beginObject()
+            .member("tool", "JTrace")
+            .member("version", JTraceVersion.get())
+            .name("violations").beginArray();
+    }
+
+    @Override
+    public void accept(Violation violation) {
+        try {
+            json.beginObject()
+                .member("ruleId", violation.getRuleId())
+                .member("severity", violation.getSeverity().getValue())
+                .member("message", violation.getMessage());
+            Location location = violation.getLocation();
+            if (location != null) {
+                json.member("file", location.getFile() != null ? location.getFile().toString() : null)
+                    .member("line", location.getLine());
+                if (location.getColumn() > 0) {
+                    json.member("column", location.getColumn());
+                }
+                json.member("symbol", location.getSymbol());
+            }
+            json.member("suggestion", violation.getSuggestion())
+                .endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        RuleCount count = rules.computeIfAbsent(violation.getRuleId(), id -> new RuleCount(violation.getSeverity()));
+        count.reported++;
+        count.found++;
+        count(violation.getSeverity(), 1);
+        acceptedForRule++;
+    }
+
+    @Override
+    public void ruleFinished(Rule rule, long found) {
+        if (found > acceptedForRule) {
+            rules.computeIfAbsent(rule.getId(), id -> new RuleCount(rule.getSeverity())).found +=
+                found - acceptedForRule;
+            count(rule.getSeverity(), found - acceptedForRule);
+        }
+        acceptedForRule = 0;
+    }
+
+    @Override
+    public void incomplete(String reason) {
+        this.incomplete = reason;
+    }
+
+    private void count(Severity severity, long count) {
+        counts.merge(severity, count, Long::sum);
+        total += count;
+    }
+
+    /**
+     * Writes the rule counts and summary and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            json.endArray()
+                .name("rules").beginArray();
+            for (Map.Entry<String, RuleCount> rule : rules.entrySet()) {
+                json.beginObject()
+                    .member("id", rule.getKey())
+                    .member("severity", rule.getValue().severity.getValue())
+                    .member("found", rule.getValue().found)
+                    .member("reported", rule.getValue().reported)
+                    .endObject();
+            }
+            json.endArray()
+                .name("summary").beginObject()
+                .member("total", total);
+            for (Severity severity : Severity.values()) {
+                json.member(severity.getValue(), counts.getOrDefault(severity, 0L));
+            }
+            json.endObject()
+                .member("incomplete", incomplete)
+                .endObject();
+        } finally {
+            json.close();
+        }
+    }
+
+    private static final class RuleCount {
+        private final Severity severity;
+        private long found;
+        private long reported;
+
+        RuleCount(Severity severity) {
+            this.severity = severity;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package io.jtrace.core.report;
+
+import io.jtrace.core.JTraceVersion;
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.ViolationSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes violations to a SARIF 2.1.0 log, as read by code scanning tools, as they are received.
+ *
+ * <p>The rules are described once, in the tool's rule metadata, when the log is started: rules
+ * configured more than once under the same ID are listed once, and each result refers to its
+ * rule by index. Each violation is then written as a result when it is accepted and is not held
+ * by the writer. The engine still buffers each rule's violations until the rule is delivered,
+ * so the heap used is bounded only when {@code maxViolationsPerRule} is set.
+ */
+public class SarifReportWriter implements ViolationSink, Closeable {
+    private static final String SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json";
+
+    private final JsonWriter json;
+    private final Map<String, Integer> ruleIndexes = new HashMap<>();
+    private String incomplete;
+
+    /**
+     * Starts a log in the given file describing the given rules, gzip-compressed if asked.
+     */
+    public SarifReportWriter(Path file, List<? extends Rule> rules, boolean gzip) throws IOException {
+        this.json = JsonWriter.open(file, gzip);
+        json.beginObject()
+            .member("$schema", SCHEMA)
+            .member("version", "2.1.0")
+            .name("runs").beginArray()
+            .beginObject()
+            .name("tool").beginObject()
+            .name("driver").beginObject()
+            .member("name", "JTrace")
+            .member("version", JTraceVersion.get())
+            .name("rules").beginArray();
+        for (Rule rule : rules) {
+            if (ruleIndexes.putIfAbsent(rule.getId(), ruleIndexes.size()) != null) {
+                continue;
+            }
+            json.beginObject()
+                .member("id", rule.getId())
+                .member("name", rule.getType())
+                .name("shortDescription").beginObject()
+                .member("text", rule.getMessage() != null ? rule.getMessage() : rule.getId())
+                .endObject()
+                .name("defaultConfiguration").beginObject()
+                .member("level", level(rule.getSeverity()))
+                .endObject()
+                .endObject();
+        }
+        json.endArray()
+            .endObject()
+            .endObject()
+            .name("results").beginArray();
+    }
+
+    @Override
+    public void accept(Violation violation) {
+        try {
+            json.beginObject()
+                .member("ruleId", violation.getRuleId());
+            Integer ruleIndex = ruleIndexes.get(violation.getRuleId());
+            if (ruleIndex != null) {
+                json.member("ruleIndex", ruleIndex);
+            }
+            json.member("level", level(violation.getSeverity()))
+                .name("message").beginObject()
+                .member("text", violation.getMessage())
+                .endObject();
+            Location location = violation.getLocation();
+            if (location != null) {
+                writeLocation(location);
+            }
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void incomplete(String reason) {
+        this.incomplete = reason;
+    }
+
+    private void writeLocation(Location location) throws IOException {
+        json.name("locations").beginArray().beginObject();
+        if (location.getFile() != null) {
+            json.name("physicalLocation").beginObject()
+                .name("artifactLocation").beginObject()
+                .member("uri", uri(location.getFile()))
+                .endObject();
+            if (location.getLine() > 0) {
+                json.name("region").beginObject()
+                    .member("startLine", location.getLine());
+                if (location.getColumn() > 0) {
+                    json.member("startColumn", location.getColumn());
+                }
+                json.endObject();
+            }
+            json.endObject();
+        }
+        if (location.getSymbol() != null) {
+            json.name("logicalLocations").beginArray().beginObject()
+                .member("fullyQualifiedName", location.getSymbol())
+                .endObject().endArray();
+        }
+        json.endObject().endArray();
+    }
+
+    /**
+     * Writes the invocation, noting an incomplete run, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            json.endArray()
+                .name("invocations").beginArray().beginObject()
+                .member("executionSuccessful", true);
+            if (incomplete != null) {
+                json.name("toolExecutionNotifications").beginArray().beginObject()
+                    .member("level", "warning")
+                    .name("message").beginObject()
+                    .member("text", "Analysis incomplete: " + incomplete)
+                    .endObject()
+                    .endObject().endArray();
+            }
+            json.endObject().endArray()
+                .endObject()
+                .endArray()
+                .endObject();
+        } finally {
+            json.close();
+        }
+    }
+
+    private static String level(Severity severity) {
+        switch (severity) {
+            case ERROR:
+                return "error";
+            case WARNING:
+                return "warning";
+            default:
+                return "note";
+        }
+    }
+
+    private static String uri(Path file) {
+        return file.isAbsolute() ? file.toUri().toString() : file.toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,86 @@
+package io.jtrace.core.analysis;
+
+import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.match.PatternMatcher;
+import io.jtrace.core.model.CycleRule;
+import io.jtrace.core.model.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CycleDetectorTest {
+
+    @Test
+    void findsEachGroupOfClassesInACycle() {
+        // 0 -> 1 -> 2 -> 0, 3 <-> 4, and an acyclic tail 4 -> 5 -> 6
+        ProjectModel model = numbered(7, new int[][] {{1}, {2}, {0}, {4}, {3, 5}, {6}, {}});
+
+        assertThat(components(model, all(7))).containsExactlyElementsOf(List.of("[0, 1, 2]", "[3, 4]"));
+    }
+
+    @Test
+    void ignoresClassesOutOfScope() {
+        ProjectModel model = numbered(5, new int[][] {{1}, {2}, {0}, {4}, {3}});
+        BitSet scope = all(5);
+        scope.clear(1);
+
+        assertThat(components(model, scope)).containsExactlyElementsOf(List.of("[3, 4]"));
+    }
+
+    @Test
+    void handlesChainsTooDeepForARecursiveSearch() {
+        int length = 200_000;
+        int[][] edges = new int[length][];
+        for (int i = 0; i < length; i++) {
+            edges[i] = new int[] {(i + 1) % length};
+        }
+        ProjectModel cycle = numbered(length, edges);
+        edges[length - 1] = new int[0];
+        ProjectModel chain = numbered(length, edges);
+
+        List<int[]> components = CycleDetector.findComponents(cycle.getDependencyGraph(), all(length));
+        assertThat(components).hasSize(1);
+        assertThat(components.get(0).length).isEqualTo(length);
+        assertThat(CycleDetector.findComponents(chain.getDependencyGraph(), all(length))).isEmpty();
+    }
+
+    @Test
+    void reportsAShortestCycleThroughTheFirstClassOfEachGroup() {
+        // 0 -> 1 -> 2 -> 3 -> 0 with a shortcut 0 -> 2
+        ProjectModel model = numbered(4, new int[][] {{1, 2}, {2}, {3}, {0}});
+        CycleRule rule = CycleRule.builder().id("no-cycles").message("Break it.").build();
+
+        List<Violation> violations = new CycleDetector(new PatternMatcher()).analyze(rule, model);
+
+        assertThat(violations).hasSize(1);
+        assertThat(violations.get(0).getMessage())
+            .isEqualTo("Dependency cycle among 4 classes: p.C0 -> p.C2 -> p.C3 -> p.C0. Break it.");
+        assertThat(violations.get(0).getLocation().getSymbol()).isEqualTo("p.C0");
+    }
+
+    private static ProjectModel numbered(int count, int[][] edges) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("p.C" + i);
+        }
+        return TestModels.model(names, edges);
+    }
+
+    private static BitSet all(int count) {
+        BitSet all = new BitSet(count);
+        all.set(0, count);
+        return all;
+    }
+
+    private static List<String> components(ProjectModel model, BitSet scope) {
+        return CycleDetector.findComponents(model.getDependencyGraph(), scope).stream()
+            .map(Arrays::toString)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,145 @@
+package io.jtrace.core.analysis;
+
+import io.jtrace.core.importer.DependencyGraph;
+import io.jtrace.core.importer.ProjectModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElementaryCyclesTest {
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test
+    void findsEveryElementaryCycleOnceShortestFirst() {
+        DependencyGraph graph = complete(5);
+        int[] component = {0, 1, 2, 3, 4};
+
+        ElementaryCycles.Result result = enumerate(graph, component, 5, Integer.MAX_VALUE);
+
+        // 10 of two nodes, 20 of three, 30 of four and 24 of five
+        assertThat(result.cycles).hasSize(84);
+        assertThat(result.timedOut).isFalse();
+        assertShortestFirstAndRootedAtTheLowestNode(result.cycles);
+        assertThat(sorted(result.cycles)).containsExactlyElementsOf(sorted(bruteForce(graph, component, 5)));
+    }
+
+    @Test
+    void keepsCyclesWithinTheComponent() {
+        // 0 -> 1 -> 2 -> 0 and 1 -> 0, plus a detour 2 -> 3 -> 0 outside the component
+        DependencyGraph graph = TestModels.model(names(4), new int[][] {{1}, {0, 2}, {0, 3}, {0}}).getDependencyGraph();
+
+        ElementaryCycles.Result result = enumerate(graph, new int[] {0, 1, 2}, 4, Integer.MAX_VALUE);
+
+        assertThat(strings(result.cycles)).containsExactlyElementsOf(List.of("[0, 1]", "[0, 1, 2]"));
+    }
+
+    @Test
+    void leavesOutCyclesLongerThanTheLengthCap() {
+        DependencyGraph graph = complete(5);
+        int[] component = {0, 1, 2, 3, 4};
+
+        ElementaryCycles.Result result = enumerate(graph, component, 3, Integer.MAX_VALUE);
+
+        assertThat(result.cycles).hasSize(30);
+        assertThat(result.cycles.stream().allMatch(cycle -> cycle.length <= 3)).isTrue();
+        assertThat(sorted(result.cycles)).containsExactlyElementsOf(sorted(bruteForce(graph, component, 3)));
+    }
+
+    @Test
+    void stopsAtTheCycleCapKeepingTheShortest() {
+        DependencyGraph graph = complete(5);
+
+        ElementaryCycles.Result result = enumerate(graph, new int[] {0, 1, 2, 3, 4}, 5, 12);
+
+        assertThat(result.cycles).hasSize(12);
+        assertThat(result.timedOut).isFalse();
+        // All ten cycles of two nodes come before any longer one
+        for (int i = 0; i < 12; i++) {
+            assertThat(result.cycles.get(i).length).isEqualTo(i < 10 ? 2 : 3);
+        }
+    }
+
+    @Test
+    void stopsAtTheDeadline() {
+        DependencyGraph graph = complete(12);
+        int[] component = IntStream.range(0, 12).toArray();
+
+        ElementaryCycles.Result result = ElementaryCycles.enumerate(graph, component, 12, Integer.MAX_VALUE,
+                                                                    System.nanoTime() - 1);
+
+        assertThat(result.timedOut).isTrue();
+        assertShortestFirstAndRootedAtTheLowestNode(result.cycles);
+    }
+
+    private static ElementaryCycles.Result enumerate(DependencyGraph graph, int[] component, int maxLength,
+                                                     int maxCycles) {
+        return ElementaryCycles.enumerate(graph, component, maxLength, maxCycles, NO_DEADLINE);
+    }
+
+    private static void assertShortestFirstAndRootedAtTheLowestNode(List<int[]> cycles) {
+        for (int i = 0; i < cycles.size(); i++) {
+            int[] cycle = cycles.get(i);
+            assertThat(Arrays.stream(cycle).min().getAsInt()).isEqualTo(cycle[0]);
+            if (i > 0) {
+                assertThat(cycles.get(i - 1).length <= cycle.length).isTrue();
+            }
+        }
+    }
+
+    /**
+     * Every elementary cycle of at most {@code maxLength} nodes, by trying every sequence of
+     * distinct component nodes that starts with its lowest node.
+     */
+    private static List<int[]> bruteForce(DependencyGraph graph, int[] component, int maxLength) {
+        List<int[]> cycles = new ArrayList<>();
+        for (int root : component) {
+            extend(graph, component, maxLength, new ArrayList<>(List.of(root)), cycles);
+        }
+        return cycles;
+    }
+
+    private static void extend(DependencyGraph graph, int[] component, int maxLength, List<Integer> path,
+                               List<int[]> cycles) {
+        int last = path.get(path.size() - 1);
+        if (path.size() > 1 && graph.hasEdge(last, path.get(0))) {
+            cycles.add(path.stream().mapToInt(Integer::intValue).toArray());
+        }
+        if (path.size() == maxLength) {
+            return;
+        }
+        for (int next : component) {
+            if (next > path.get(0) && !path.contains(next) && graph.hasEdge(last, next)) {
+                path.add(next);
+                extend(graph, component, maxLength, path, cycles);
+                path.remove(path.size() - 1);
+            }
+        }
+    }
+
+    private static DependencyGraph complete(int count) {
+        int[][] edges = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int from = i;
+            edges[i] = IntStream.range(0, count).filter(to -> to != from).toArray();
+        }
+        return TestModels.model(names(count), edges).getDependencyGraph();
+    }
+
+    private static List<String> names(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "p.C" + i).collect(Collectors.toList());
+    }
+
+    private static List<String> strings(List<int[]> cycles) {
+        return cycles.stream().map(Arrays::toString).collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<int[]> cycles) {
+        return strings(cycles).stream().sorted().collect(Collectors.toList());
+    }
+}
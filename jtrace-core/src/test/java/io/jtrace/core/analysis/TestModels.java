@@ -0,0 +1,51 @@
+package io.jtrace.core.analysis;
+
+import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.ClassType;
+import io.jtrace.core.importer.ProjectModel.Dependency;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import io.jtrace.core.importer.ProjectModel.Location;
+import io.jtrace.core.importer.ProjectModel.PackageInfo;
+import io.jtrace.core.importer.ProjectModel.Visibility;
+
+import java.util.List;
+
+/**
+ * Builds sealed models from class names and dependency edges for analyzer tests.
+ */
+final class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * A model of the given classes, where {@code edges[i]} holds the indices of the classes
+     * that the class at index {@code i} depends on. Class IDs are the indices.
+     */
+    static ProjectModel model(List<String> classNames, int[][] edges) {
+        ProjectModel model = new ProjectModel();
+        for (int i = 0; i < classNames.size(); i++) {
+            String fullName = classNames.get(i);
+            ClassInfo classInfo = new ClassInfo(fullName.substring(fullName.lastIndexOf('.') + 1), fullName,
+                                                Visibility.PUBLIC, ClassType.CLASS);
+            // Classes are numbered in source file order
+            classInfo.setSourceFile(String.format("%08d.java", i));
+            PackageInfo packageInfo = model.getPackage(classInfo.getPackageName());
+            if (packageInfo == null) {
+                packageInfo = new PackageInfo(classInfo.getPackageName());
+                model.addPackage(packageInfo);
+            }
+            packageInfo.addClass(classInfo);
+            model.addClass(classInfo);
+        }
+        for (int from = 0; from < edges.length; from++) {
+            for (int to : edges[from]) {
+                model.addDependency(new Dependency(classNames.get(from), classNames.get(to), DependencyType.FIELD,
+                                                   new Location(classNames.get(from), from + 1, 0)));
+            }
+        }
+        model.seal();
+        return model;
+    }
+}
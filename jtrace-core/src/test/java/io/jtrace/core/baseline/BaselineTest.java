@@ -0,0 +1,93 @@
+package io.jtrace.core.baseline;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaselineTest {
+
+    @Test
+    void writesFingerprintsInAscendingHexOrder() throws IOException {
+        Baseline baseline = new Baseline(new long[] {-1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, 0L, 1L});
+        Path directory = Files.createTempDirectory("jtrace-baseline");
+        Path file = directory.resolve("baseline.txt");
+        try {
+            baseline.write(file);
+            List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+
+            assertThat(lines.subList(1, lines.size())).containsExactlyElementsOf(List.of(
+                "0000000000000000",
+                "0000000000000001",
+                "7fffffffffffffff",
+                "8000000000000000",
+                "ffffffffffffffff"));
+            Baseline loaded = Baseline.load(file);
+            assertThat(loaded.size()).isEqualTo(5);
+            for (long fingerprint : new long[] {-1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, 0L}) {
+                assertThat(loaded.contains(fingerprint)).isTrue();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    void loadsAMissingFileAsAnEmptyBaseline() throws IOException {
+        Baseline baseline = Baseline.load(Path.of("does-not-exist", "baseline.txt"));
+
+        assertThat(baseline.size()).isEqualTo(0);
+    }
+
+    @Test
+    void keepsEachFingerprintOnce() {
+        Baseline baseline = new Baseline(new long[] {5L, 5L, -5L, 5L});
+
+        assertThat(baseline.size()).isEqualTo(2);
+    }
+
+    @Test
+    void containsZeroOnlyWhenAdded() {
+        // Zero also marks the empty slots of the hash table
+        assertThat(new Baseline(new long[] {0L}).contains(0L)).isTrue();
+        assertThat(new Baseline(new long[] {1L, 2L}).contains(0L)).isFalse();
+        assertThat(Baseline.EMPTY.contains(0L)).isFalse();
+    }
+
+    @Test
+    void findsFingerprintsThatCollideInTheTable() {
+        // Six entries take a table of 16 slots; these share their low four bits
+        long[] colliding = {0x0fL, 0x1fL, 0x2fL, 0x3fL, -1L, Long.MAX_VALUE};
+        Baseline baseline = new Baseline(colliding);
+
+        for (long fingerprint : colliding) {
+            assertThat(baseline.contains(fingerprint)).isTrue();
+        }
+        // Probing for an absent fingerprint wraps around the end of the table
+        assertThat(baseline.contains(0x4fL)).isFalse();
+        assertThat(baseline.contains(0x10L)).isFalse();
+    }
+
+    @Test
+    void retainAllKeepsTheEntriesInBothBaselines() {
+        Baseline recorded = new Baseline(new long[] {-1L, 1L, Long.MIN_VALUE, 42L, 0L});
+        Baseline current = new Baseline(new long[] {Long.MIN_VALUE, -1L, 7L, 0L});
+
+        Baseline retained = recorded.retainAll(current);
+
+        assertThat(retained.size()).isEqualTo(3);
+        assertThat(retained.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(retained.contains(-1L)).isTrue();
+        assertThat(retained.contains(0L)).isTrue();
+        assertThat(retained.contains(1L)).isFalse();
+        assertThat(retained.contains(42L)).isFalse();
+        assertThat(retained.contains(7L)).isFalse();
+        assertThat(recorded.retainAll(Baseline.EMPTY).size()).isEqualTo(0);
+    }
+}
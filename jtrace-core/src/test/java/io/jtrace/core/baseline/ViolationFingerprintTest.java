@@ -0,0 +1,59 @@
+package io.jtrace.core.baseline;
+
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViolationFingerprintTest {
+
+    @Test
+    void normalizeCollapsesWhitespace() {
+        assertThat(ViolationFingerprint.normalize("  Class \t com.acme.A\n\nuses  B  ")).isEqualTo("Class com.acme.A uses B");
+    }
+
+    @Test
+    void normalizeReplacesStandaloneNumbers() {
+        assertThat(ViolationFingerprint.normalize("Cycle of 12 classes in 3 packages")).isEqualTo("Cycle of # classes in # packages");
+        assertThat(ViolationFingerprint.normalize("42 methods, limit 40")).isEqualTo("# methods, limit #");
+        assertThat(ViolationFingerprint.normalize("depth (7)")).isEqualTo("depth (#)");
+    }
+
+    @Test
+    void normalizeKeepsDigitsInsideNames() {
+        assertThat(ViolationFingerprint.normalize("Log4jAdapter uses com.acme.v2.Http2Client"))
+            .isEqualTo("Log4jAdapter uses com.acme.v2.Http2Client");
+        assertThat(ViolationFingerprint.normalize("field _1 of Base64")).isEqualTo("field _1 of Base64");
+    }
+
+    @Test
+    void normalizeTurnsNullIntoAnEmptyMessage() {
+        assertThat(ViolationFingerprint.normalize(null)).isEqualTo("");
+    }
+
+    @Test
+    void fingerprintIgnoresFileLineAndCounts() {
+        Violation before = new Violation("no-cycles", "Cycle of 3 classes", Severity.ERROR,
+                                         new Location(Path.of("src/A.java"), 10, "com.acme.A"));
+        Violation after = new Violation("no-cycles", "Cycle of  4 classes", Severity.WARNING,
+                                        new Location(Path.of("src/moved/A.java"), 250, "com.acme.A"));
+
+        assertThat(ViolationFingerprint.of(after)).isEqualTo(ViolationFingerprint.of(before));
+    }
+
+    @Test
+    void fingerprintDependsOnRuleSymbolAndMessage() {
+        long fingerprint = ViolationFingerprint.of("rule", "com.acme.A", "message");
+
+        assertThat(ViolationFingerprint.of("other", "com.acme.A", "message")).isNotEqualTo(fingerprint);
+        assertThat(ViolationFingerprint.of("rule", "com.acme.B", "message")).isNotEqualTo(fingerprint);
+        assertThat(ViolationFingerprint.of("rule", "com.acme.A", "other message")).isNotEqualTo(fingerprint);
+        // Fields are separated, so text cannot move from one field to the next
+        assertThat(ViolationFingerprint.of("rulecom.acme.A", "", "message")).isNotEqualTo(fingerprint);
+        assertThat(ViolationFingerprint.of("rule", null, "message")).isNotEqualTo(fingerprint);
+    }
+}
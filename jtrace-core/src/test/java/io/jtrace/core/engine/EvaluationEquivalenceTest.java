@@ -0,0 +1,132 @@
+package io.jtrace.core.engine;
+
+import io.jtrace.core.config.JTraceConfig;
+import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.ClassType;
+import io.jtrace.core.importer.ProjectModel.Dependency;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import io.jtrace.core.importer.ProjectModel.FieldInfo;
+import io.jtrace.core.importer.ProjectModel.MethodInfo;
+import io.jtrace.core.importer.ProjectModel.Visibility;
+import io.jtrace.core.model.CycleRule;
+import io.jtrace.core.model.ForbiddenDependencyRule;
+import io.jtrace.core.model.LayeringRule;
+import io.jtrace.core.model.RequireAnnotationRule;
+import io.jtrace.core.model.Rule;
+import io.jtrace.core.model.Violation;
+import io.jtrace.core.model.VisibilityRule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fused and per-rule evaluation must report the same violations in the same order.
+ */
+class EvaluationEquivalenceTest {
+    private static final String[] PACKAGES = {"app.web", "app.svc", "app.repo", "app.web.api", "lib.util", "lib"};
+
+    private final RuleEngine engine = new RuleEngine();
+
+    @AfterEach
+    void shutdown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void fusedAndPerRuleReportTheSameViolationsInTheSameOrder() {
+        for (long seed = 1; seed <= 5; seed++) {
+            List<String> fused = describe(engine.analyze(config(JTraceConfig.Evaluation.FUSED), model(seed, 3000)));
+            List<String> perRule = describe(engine.analyze(config(JTraceConfig.Evaluation.PER_RULE), model(seed, 3000)));
+
+            assertThat(fused).isNotEmpty();
+            assertThat(fused).containsExactlyElementsOf(perRule);
+        }
+    }
+
+    @Test
+    void fusedAndPerRuleKeepTheSameViolationsUnderACap() {
+        for (long seed = 1; seed <= 3; seed++) {
+            List<String> fused = describe(engine.analyze(config(JTraceConfig.Evaluation.FUSED, 7), model(seed, 3000)));
+            List<String> perRule = describe(engine.analyze(config(JTraceConfig.Evaluation.PER_RULE, 7), model(seed, 3000)));
+
+            assertThat(fused).isNotEmpty();
+            assertThat(fused).containsExactlyElementsOf(perRule);
+        }
+    }
+
+    private static List<String> describe(List<Violation> violations) {
+        return violations.stream()
+            .map(violation -> violation.getRuleId() + " | " + violation.getMessage() + " | " + violation.getLocation())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * A random model whose classes have several members, so that many violations share a file
+     * and line.
+     */
+    private static ProjectModel model(long seed, int classCount) {
+        Random random = new Random(seed);
+        Visibility[] visibilities = Visibility.values();
+        ProjectModel model = new ProjectModel();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < classCount; i++) {
+            String packageName = PACKAGES[random.nextInt(PACKAGES.length)];
+            String name = "C" + i;
+            ClassInfo classInfo = new ClassInfo(name, packageName + "." + name, packageName,
+                                                visibilities[random.nextInt(visibilities.length)], ClassType.CLASS);
+            classInfo.setSourceFile(name + ".java");
+            if (random.nextBoolean()) {
+                classInfo.addAnnotation("Service");
+            }
+            for (int m = 0; m < 6; m++) {
+                classInfo.addMethod(new MethodInfo("m" + m, "void", visibilities[random.nextInt(visibilities.length)],
+                                                   List.of(), random.nextBoolean() ? List.of("Tx") : List.of()));
+                classInfo.addField(new FieldInfo("f" + m, "int", visibilities[random.nextInt(visibilities.length)],
+                                                 random.nextBoolean() ? List.of("Inject") : List.of()));
+            }
+            model.addClass(classInfo);
+            names.add(packageName + "." + name);
+        }
+        DependencyType[] types = DependencyType.values();
+        for (int i = 0; i < classCount * 4; i++) {
+            model.addDependency(new Dependency(names.get(random.nextInt(classCount)), names.get(random.nextInt(classCount)),
+                                               types[random.nextInt(types.length)], null));
+        }
+        return model;
+    }
+
+    private static JTraceConfig config(JTraceConfig.Evaluation evaluation) {
+        return config(evaluation, 0);
+    }
+
+    private static JTraceConfig config(JTraceConfig.Evaluation evaluation, int maxViolationsPerRule) {
+        List<Rule> rules = new ArrayList<>();
+        rules.add(ForbiddenDependencyRule.builder().id("web-to-repo").from("app.web..*").to("app.repo..*").build());
+        rules.add(RequireAnnotationRule.builder().id("service").in("app.svc.*")
+                      .target(RequireAnnotationRule.Target.CLASS).annotation("Service").build());
+        rules.add(RequireAnnotationRule.builder().id("transactional").in("app..*")
+                      .target(RequireAnnotationRule.Target.METHOD).annotation("Tx").build());
+        rules.add(VisibilityRule.builder().id("public-classes").in("app.*.*")
+                      .target(VisibilityRule.Target.CLASS).mustBe(VisibilityRule.Visibility.PUBLIC).build());
+        rules.add(VisibilityRule.builder().id("private-fields").in("lib..*")
+                      .target(VisibilityRule.Target.FIELD).mustBe(VisibilityRule.Visibility.PRIVATE).build());
+        rules.add(LayeringRule.builder().id("layers")
+                      .layers(List.of(new LayeringRule.Layer("web", List.of("app.web..*")),
+                                      new LayeringRule.Layer("svc", List.of("app.svc")),
+                                      new LayeringRule.Layer("repo", List.of("app.repo"))))
+                      .allowedDependencies(List.of(new LayeringRule.AllowedDependency("web", "svc"),
+                                                   new LayeringRule.AllowedDependency("svc", "repo")))
+                      .build());
+        rules.add(CycleRule.builder().id("class-cycles").build());
+        rules.add(CycleRule.builder().id("package-cycles").in("app..*").level(CycleRule.Level.PACKAGE).build());
+        return JTraceConfig.builder().basePackage("app").evaluation(evaluation)
+            .maxViolationsPerRule(maxViolationsPerRule).rules(rules).build();
+    }
+}
@@ -0,0 +1,136 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importing the compiled fixtures must name classes like the source import does and find the
+ * dependencies it finds, on top of those held in method bodies.
+ */
+class BytecodeImporterTest {
+    private static final Path FIXTURES = Paths.get("src/test/resources/scanner");
+    // Dependency types both importers read from declarations
+    private static final Set<DependencyType> DECLARATIONS =
+        EnumSet.of(DependencyType.EXTENDS, DependencyType.IMPLEMENTS, DependencyType.FIELD);
+
+    private Path classes;
+
+    @AfterEach
+    void deleteClasses() throws IOException {
+        if (classes != null) {
+            try (Stream<Path> files = Files.walk(classes)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void importsTheClassesOfTheSourceImport() throws IOException {
+        ProjectModel bytecode = importClasses();
+        ProjectModel source = importSources();
+
+        assertThat(classNames(source)).isNotEmpty();
+        assertThat(classNames(bytecode)).containsExactlyElementsOf(classNames(source));
+    }
+
+    @Test
+    void findsTheDependenciesOfTheSourceImport() throws IOException {
+        ProjectModel bytecode = importClasses();
+        ProjectModel source = importSources();
+
+        assertThat(edges(source, null)).isNotEmpty();
+        assertThat(edges(bytecode, null)).containsAll(edges(source, null));
+        assertThat(edges(bytecode, DECLARATIONS)).containsExactlyElementsOf(edges(source, DECLARATIONS));
+    }
+
+    @Test
+    void namesNestedClassesFromTheInnerClassesAttribute() throws IOException {
+        ProjectModel model = importClasses();
+
+        assertThat(model.getClass("fixtures.scan.Locals.InAnonymous").getEnclosingClass())
+            .isEqualTo("fixtures.scan.Locals");
+        assertThat(model.getClass("fixtures.scan.Operation.Difference").getEnclosingClass())
+            .isEqualTo("fixtures.scan.Operation");
+        assertThat(model.getClass("fixtures.scan.Generated$Proxy")).isNotNull();
+        assertThat(model.getClass("fixtures.scan.Generated.Proxy")).isNull();
+        assertThat(ModelDescription.dependencies(model))
+            .contains("fixtures.scan.Generated$Proxy -> fixtures.scan.Shapes.Point FIELD");
+    }
+
+    @Test
+    void dependenciesOfAnonymousClassesGoToTheNearestNamedClass() throws IOException {
+        ProjectModel model = importClasses();
+
+        // The anonymous Comparator in Locals.comparators() instantiates the local class
+        assertThat(ModelDescription.dependencies(model))
+            .contains("fixtures.scan.Locals -> fixtures.scan.Locals.InAnonymousMethod CONSTRUCTOR_CALL");
+        for (ProjectModel.Dependency dependency : model.getDependencies()) {
+            if (dependency.getTo().startsWith("fixtures.scan.")) {
+                assertThat(model.getClass(dependency.getTo())).isNotNull();
+            }
+            assertThat(model.getClass(dependency.getFrom())).isNotNull();
+        }
+    }
+
+    private ProjectModel importClasses() throws IOException {
+        classes = Files.createTempDirectory("jtrace-classes");
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString()));
+        for (Path file : new SourceDiscovery().discover(List.of(FIXTURES), 1)) {
+            arguments.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertThat(compiler.run(null, null, null, arguments.toArray(new String[0]))).isEqualTo(0);
+        return new BytecodeImporter().importClasses(List.of(classes));
+    }
+
+    private static ProjectModel importSources() {
+        return new SourceImporter().importSources(new SourceDiscovery(), List.of(FIXTURES));
+    }
+
+    private static List<String> classNames(ProjectModel model) {
+        return model.getAllClasses().stream()
+            .map(classInfo -> classInfo.getFullName() + " in " + classInfo.getEnclosingClass())
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The graph's edges as sorted {@code from -> to} lines, limited to edges with one of the
+     * given types, or all edges if they are null.
+     */
+    private static List<String> edges(ProjectModel model, Set<DependencyType> types) {
+        Set<String> edges = new TreeSet<>();
+        DependencyGraph graph = model.getDependencyGraph();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                int current = edge;
+                if (types == null || types.stream().anyMatch(type -> graph.hasType(current, type))) {
+                    ClassInfo from = model.getClassById(node);
+                    edges.add(from.getFullName() + " -> " + model.getClassById(graph.target(edge)).getFullName());
+                }
+            }
+        }
+        return new ArrayList<>(edges);
+    }
+}
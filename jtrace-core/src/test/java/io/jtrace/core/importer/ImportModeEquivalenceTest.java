@@ -0,0 +1,65 @@
+package io.jtrace.core.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The signature scan must build the same model as the full parse, apart from annotations, which
+ * it does not record.
+ */
+class ImportModeEquivalenceTest {
+    private static final Path EXAMPLES = Paths.get("../jtrace-examples/src/main/java");
+    private static final Path FIXTURES = Paths.get("src/test/resources/scanner");
+
+    @Test
+    void fixturesAreScannedWithoutFallingBackToTheFullParse() throws IOException {
+        for (Path file : new SourceDiscovery().discover(List.of(FIXTURES), 1)) {
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            ParsedSource parsed = new SignatureScanner(source).scan(file);
+
+            assertThat(parsed.classes).isNotEmpty();
+        }
+    }
+
+    @Test
+    void signatureScanBuildsTheSameModelAsTheFullParse() {
+        assertSameModel(FIXTURES);
+    }
+
+    @Test
+    void signatureScanBuildsTheSameModelForTheExamples() {
+        assertSameModel(EXAMPLES);
+    }
+
+    @Test
+    void localAndAnonymousMemberClassesAreNamedAfterTheEnclosingClass() {
+        ProjectModel model = importSources(FIXTURES, ImportMode.SIGNATURES);
+
+        for (String name : List.of("Locals.InFieldLambda", "Locals.InStaticInitializer", "Locals.InAnonymous",
+                                   "Locals.InAnonymousMethod", "Locals.LocalRecord", "Locals.InMethodLambda", "Operation.Difference")) {
+            assertThat(model.getClass("fixtures.scan." + name)).isNotNull();
+        }
+        assertThat(model.getClass("fixtures.scan.Fake")).isNull();
+        assertThat(model.getClass("fixtures.scan.NotAClass")).isNull();
+    }
+
+    private static void assertSameModel(Path root) {
+        List<String> full = ModelDescription.describe(importSources(root, ImportMode.FULL), false);
+        List<String> signatures = ModelDescription.describe(importSources(root, ImportMode.SIGNATURES), false);
+
+        assertThat(full).isNotEmpty();
+        assertThat(signatures).containsExactlyElementsOf(full);
+    }
+
+    private static ProjectModel importSources(Path root, ImportMode mode) {
+        return new SourceImporter(1, null, mode).importSources(new SourceDiscovery(), List.of(root));
+    }
+}
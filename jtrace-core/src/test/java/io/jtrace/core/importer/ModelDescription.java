@@ -0,0 +1,89 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.Dependency;
+import io.jtrace.core.importer.ProjectModel.FieldInfo;
+import io.jtrace.core.importer.ProjectModel.MethodInfo;
+import io.jtrace.core.importer.ProjectModel.PackageInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a sealed model as lines of text, so that tests can compare two models and see where
+ * they differ.
+ */
+final class ModelDescription {
+
+    private ModelDescription() {
+    }
+
+    /**
+     * Every class in ID order with its members in ID order, then the dependency graph's edges
+     * per class.
+     */
+    static List<String> describe(ProjectModel model) {
+        return describe(model, true);
+    }
+
+    /**
+     * Like {@link #describe(ProjectModel)}, optionally leaving out annotations, which signature
+     * scans do not record.
+     */
+    static List<String> describe(ProjectModel model, boolean annotations) {
+        List<String> lines = new ArrayList<>();
+        for (ClassInfo classInfo : model.getAllClasses()) {
+            lines.add("class " + classInfo.getId() + " " + classInfo.getFullName() + " name=" + classInfo.getName()
+                      + " package=" + classInfo.getPackageName() + " " + classInfo.getVisibility()
+                      + " " + classInfo.getClassType() + " enclosing=" + classInfo.getEnclosingClass()
+                      + (annotations ? " annotations=" + new TreeSet<>(classInfo.getAnnotations()) : ""));
+            for (MethodInfo method : classInfo.getMethods()) {
+                lines.add("  method " + method.getId() + " " + method.getName() + "("
+                          + method.getParameters().stream()
+                              .map(parameter -> parameter.getType() + " " + parameter.getName())
+                              .collect(Collectors.joining(", "))
+                          + ") " + method.getReturnType() + " " + method.getVisibility()
+                          + (annotations ? " annotations=" + method.getAnnotations() : ""));
+            }
+            for (FieldInfo field : classInfo.getFields()) {
+                lines.add("  field " + field.getId() + " " + field.getName() + " " + field.getType()
+                          + " " + field.getVisibility()
+                          + (annotations ? " annotations=" + field.getAnnotations() : ""));
+            }
+        }
+        for (PackageInfo packageInfo : model.getPackages()) {
+            lines.add("package " + packageInfo.getName() + " imports=" + new TreeSet<>(packageInfo.getImports()));
+        }
+        lines.addAll(edges(model));
+        return lines;
+    }
+
+    /**
+     * The dependency graph's edges in class order, with their types and reference counts.
+     */
+    static List<String> edges(ProjectModel model) {
+        List<String> lines = new ArrayList<>();
+        DependencyGraph graph = model.getDependencyGraph();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                lines.add("edge " + model.getClassById(node).getFullName() + " -> "
+                          + model.getClassById(graph.target(edge)).getFullName()
+                          + " types=" + graph.types(edge) + " line=" + graph.line(edge)
+                          + " weight=" + graph.weight(edge));
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * The model's dependencies as sorted {@code from -> to type} lines, without locations.
+     */
+    static List<String> dependencies(ProjectModel model) {
+        return model.getDependencies().stream()
+            .map(dependency -> dependency.getFrom() + " -> " + dependency.getTo() + " " + dependency.getType())
+            .sorted()
+            .collect(Collectors.toList());
+    }
+}
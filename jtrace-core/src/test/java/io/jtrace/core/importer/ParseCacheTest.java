@@ -0,0 +1,224 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import io.jtrace.core.importer.ProjectModel.ClassType;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import io.jtrace.core.importer.ProjectModel.FieldInfo;
+import io.jtrace.core.importer.ProjectModel.MethodInfo;
+import io.jtrace.core.importer.ProjectModel.Visibility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParseCacheTest {
+    private static final List<Path> ROOTS = List.of(Paths.get("src/test/resources/scanner"),
+                                                    Paths.get("../jtrace-examples/src/main/java"));
+
+    private Path directory;
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void loadsWhatWasStored() throws IOException {
+        ParseCache cache = new ParseCache(createDirectory(), 0);
+        SourceImporter importer = new SourceImporter(1, null, ImportMode.FULL);
+
+        List<Path> files = new SourceDiscovery().discover(ROOTS, 1);
+        for (Path file : files) {
+            byte[] content = Files.readAllBytes(file);
+            ParsedSource parsed = importer.parseSource(file, content);
+            String key = cache.keyFor(content, ImportMode.FULL);
+            cache.store(key, parsed);
+
+            ParsedSource loaded = cache.load(key, file);
+
+            assertThat(describe(parsed)).isNotEmpty();
+            assertThat(describe(loaded)).containsExactlyElementsOf(describe(parsed));
+        }
+        assertThat(cache.getHits()).isEqualTo(files.size());
+        assertThat(cache.getMisses()).isEqualTo(0);
+    }
+
+    @Test
+    void keepsNullsAndTheDefaultPackage() throws IOException {
+        ParseCache cache = new ParseCache(createDirectory(), 0);
+        ParsedSource source = new ParsedSource("", new HashSet<>(List.of("java.util")));
+        source.onDemandImports.add("java.util");
+        ClassInfo classInfo = new ClassInfo("Top", "Top", "", Visibility.PACKAGE_PRIVATE,
+                                            ClassType.INTERFACE);
+        classInfo.setSourceFile("Top.java");
+        source.classes.add(classInfo);
+        source.references.add(new TypeReference(classInfo, "List<Map<String, Top>>",
+                                                DependencyType.METHOD_SIGNATURE, 300));
+
+        cache.store("00ff", source);
+        ParsedSource loaded = cache.load("00ff", Paths.get("Top.java"));
+
+        assertThat(loaded.classes.get(0).getEnclosingClass()).isNull();
+        assertThat(describe(loaded)).containsExactlyElementsOf(describe(source));
+    }
+
+    @Test
+    void missingEntryIsAMiss() throws IOException {
+        ParseCache cache = new ParseCache(createDirectory(), 0);
+
+        assertThat(cache.load(cache.keyFor(new byte[0], ImportMode.FULL), Paths.get("A.java"))).isNull();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void truncatedEntryIsAMissAndDeleted() throws IOException {
+        ParseCache cache = new ParseCache(createDirectory(), 0);
+        String key = storeFixture(cache);
+        Path entry = onlyEntry();
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThat(cache.load(key, Paths.get("Shapes.java"))).isNull();
+        assertThat(Files.exists(entry)).isFalse();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void corruptEntryIsAMissAndDeleted() throws IOException {
+        ParseCache cache = new ParseCache(createDirectory(), 0);
+        String key = storeFixture(cache);
+        Path entry = onlyEntry();
+        byte[] bytes = Files.readAllBytes(entry);
+        // An entry written by another format version
+        bytes[4]++;
+        Files.write(entry, bytes);
+
+        assertThat(cache.load(key, Paths.get("Shapes.java"))).isNull();
+        assertThat(Files.exists(entry)).isFalse();
+
+        key = storeFixture(cache);
+        entry = onlyEntry();
+        bytes = Files.readAllBytes(entry);
+        // String indices past the end of the string table
+        for (int i = bytes.length - 8; i < bytes.length; i++) {
+            bytes[i] = 0x7f;
+        }
+        Files.write(entry, bytes);
+
+        assertThat(cache.load(key, Paths.get("Shapes.java"))).isNull();
+        assertThat(Files.exists(entry)).isFalse();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void evictsOldestEntriesDownToNinetyPercentOfTheLimit() throws IOException {
+        Path root = createDirectory();
+        ParseCache cache = new ParseCache(root, 1000);
+        List<Path> entries = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            // Named against their age, so that eviction cannot follow the file names
+            Path entry = root.resolve(String.format("%02x", 11 - i)).resolve("entry.bin");
+            Files.createDirectories(entry.getParent());
+            Files.write(entry, new byte[100]);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(1_000_000L * (i + 1)));
+            entries.add(entry);
+        }
+        Path other = root.resolve("00").resolve("entry.tmp");
+        Files.write(other, new byte[500]);
+
+        cache.evictIfNeeded();
+
+        // 1200 bytes of entries, trimmed to 900
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(Files.exists(entries.get(i))).isEqualTo(i >= 3);
+        }
+        assertThat(Files.exists(other)).isTrue();
+    }
+
+    @Test
+    void keepsEntriesWithinTheLimit() throws IOException {
+        Path root = createDirectory();
+        ParseCache cache = new ParseCache(root, 1000);
+        Path entry = root.resolve("ab").resolve("entry.bin");
+        Files.createDirectories(entry.getParent());
+        Files.write(entry, new byte[1000]);
+
+        cache.evictIfNeeded();
+
+        assertThat(Files.exists(entry)).isTrue();
+    }
+
+    private Path createDirectory() throws IOException {
+        directory = Files.createTempDirectory("jtrace-cache");
+        return directory;
+    }
+
+    private static String storeFixture(ParseCache cache) throws IOException {
+        Path file = Paths.get("src/test/resources/scanner/fixtures/scan/Shapes.java");
+        byte[] content = Files.readAllBytes(file);
+        String key = cache.keyFor(content, ImportMode.FULL);
+        cache.store(key, new SourceImporter(1, null, ImportMode.FULL).parseSource(file, content));
+        return key;
+    }
+
+    private Path onlyEntry() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> entries = files.filter(file -> file.toString().endsWith(".bin")).collect(Collectors.toList());
+            assertThat(entries).hasSize(1);
+            return entries.get(0);
+        }
+    }
+
+    /**
+     * Every field of a parsed source as lines of text, in the order the source holds them.
+     */
+    private static List<String> describe(ParsedSource source) {
+        List<String> lines = new ArrayList<>();
+        lines.add("package " + source.packageName + " imports=" + new TreeSet<>(source.imports)
+                  + " onDemand=" + new TreeSet<>(source.onDemandImports));
+        for (ClassInfo classInfo : source.classes) {
+            lines.add("class " + classInfo.getFullName() + " name=" + classInfo.getName()
+                      + " package=" + classInfo.getPackageName() + " " + classInfo.getVisibility()
+                      + " " + classInfo.getClassType() + " enclosing=" + classInfo.getEnclosingClass()
+                      + " file=" + classInfo.getSourceFile()
+                      + " annotations=" + new TreeSet<>(classInfo.getAnnotations()));
+            for (FieldInfo field : classInfo.getFields()) {
+                lines.add("  field " + field.getName() + " " + field.getType() + " " + field.getVisibility()
+                          + " annotations=" + field.getAnnotations());
+            }
+            for (MethodInfo method : classInfo.getMethods()) {
+                lines.add("  method " + method.getName() + "("
+                          + method.getParameters().stream()
+                              .map(parameter -> parameter.getType() + " " + parameter.getName())
+                              .collect(Collectors.joining(", "))
+                          + ") " + method.getReturnType() + " " + method.getVisibility()
+                          + " annotations=" + method.getAnnotations());
+            }
+        }
+        for (TypeReference reference : source.references) {
+            lines.add("reference " + reference.from.getFullName() + " -> " + reference.typeName + " "
+                      + reference.type + " line=" + reference.line);
+        }
+        return lines;
+    }
+}
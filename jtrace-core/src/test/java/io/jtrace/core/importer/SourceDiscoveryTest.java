@@ -0,0 +1,73 @@
+package io.jtrace.core.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SourceDiscoveryTest {
+    private static final List<String> FILES = List.of(
+        "build/generated/sources/annotationProcessor/Processed.java",
+        "com/acme/generated/Model.java",
+        "com/acme/generated-sources/Nested.java",
+        "generated-sources/Generated.java",
+        "generated-test-sources/GeneratedTest.java",
+        "target/generated-sources/annotations/Annotated.java",
+        "target/generated-test-sources/test-annotations/AnnotatedTest.java");
+
+    private Path root;
+
+    @AfterEach
+    void deleteRoot() throws IOException {
+        if (root != null) {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void skipsGeneratedSourceDirectoriesRelativeToTheRoot() throws IOException {
+        createFiles();
+
+        List<String> found = discover(new SourceDiscovery());
+
+        assertThat(found).containsExactlyElementsOf(List.of(
+            "com/acme/generated-sources/Nested.java",
+            "com/acme/generated/Model.java"));
+    }
+
+    @Test
+    void findsGeneratedSourcesWhenNotSkipped() throws IOException {
+        createFiles();
+
+        List<String> found = discover(new SourceDiscovery(List.of(), List.of(), false));
+
+        assertThat(found).hasSize(FILES.size());
+    }
+
+    private void createFiles() throws IOException {
+        root = Files.createTempDirectory("jtrace-discovery");
+        for (String file : FILES) {
+            Path path = root.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, List.of("class " + path.getFileName().toString().replace(".java", "") + " {}"));
+        }
+    }
+
+    private List<String> discover(SourceDiscovery discovery) {
+        return discovery.discover(List.of(root), 2).stream()
+            .map(file -> root.relativize(file).toString().replace('\\', '/'))
+            .collect(Collectors.toList());
+    }
+}
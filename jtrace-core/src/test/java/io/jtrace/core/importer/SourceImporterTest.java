@@ -0,0 +1,81 @@
+package io.jtrace.core.importer;
+
+import io.jtrace.core.importer.ProjectModel.ClassInfo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importing the same files must build the same sealed model whatever the parallelism, through
+ * the fork-join import as well as through the pipeline the rule engine uses.
+ */
+class SourceImporterTest {
+    // The importer's own sources are enough files for the fork-join pool to split them
+    private static final List<Path> ROOTS = List.of(Paths.get("src/main/java"),
+                                                    Paths.get("src/test/resources/scanner"),
+                                                    Paths.get("../jtrace-examples/src/main/java"));
+    private static final int PARALLELISM = 4;
+
+    @Test
+    void forkJoinImportDoesNotDependOnParallelism() {
+        List<Path> files = new SourceDiscovery().discover(ROOTS, 1);
+        // More than two fork-join slices of files
+        assertThat(files.size() > 32).isTrue();
+
+        for (ImportMode mode : ImportMode.values()) {
+            List<String> sequential = ModelDescription.describe(new SourceImporter(1, null, mode).importSources(files));
+            List<String> parallel = ModelDescription.describe(new SourceImporter(PARALLELISM, null, mode).importSources(files));
+
+            assertThat(sequential).isNotEmpty();
+            assertThat(parallel).containsExactlyElementsOf(sequential);
+        }
+    }
+
+    @Test
+    void pipelineImportDoesNotDependOnParallelism() {
+        for (ImportMode mode : ImportMode.values()) {
+            List<String> sequential = ModelDescription.describe(importThroughPipeline(1, mode));
+            List<String> parallel = ModelDescription.describe(importThroughPipeline(PARALLELISM, mode));
+
+            assertThat(sequential).isNotEmpty();
+            assertThat(parallel).containsExactlyElementsOf(sequential);
+        }
+    }
+
+    @Test
+    void pipelineAndForkJoinImportsBuildTheSameModel() {
+        List<Path> files = new SourceDiscovery().discover(ROOTS, 1);
+
+        for (ImportMode mode : ImportMode.values()) {
+            List<String> forkJoin = ModelDescription.describe(new SourceImporter(1, null, mode).importSources(files));
+            List<String> pipeline = ModelDescription.describe(importThroughPipeline(PARALLELISM, mode));
+
+            assertThat(pipeline).containsExactlyElementsOf(forkJoin);
+        }
+    }
+
+    @Test
+    void pipelinePassesEveryClassOfTheModelToTheListener() {
+        List<String> listened = Collections.synchronizedList(new ArrayList<>());
+        ProjectModel model = new SourceImporter(PARALLELISM)
+            .importSources(new SourceDiscovery(), ROOTS, classInfo -> listened.add(classInfo.getFullName()));
+
+        List<String> classes = model.getAllClasses().stream()
+            .map(ClassInfo::getFullName)
+            .sorted()
+            .collect(Collectors.toList());
+        Collections.sort(listened);
+        assertThat(listened).containsExactlyElementsOf(classes);
+    }
+
+    private static ProjectModel importThroughPipeline(int parallelism, ImportMode mode) {
+        return new SourceImporter(parallelism, null, mode).importSources(new SourceDiscovery(), ROOTS);
+    }
+}
@@ -0,0 +1,115 @@
+package io.jtrace.core.match;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatternSetTest {
+    private static final List<String> PATTERNS = Arrays.asList(
+        // Segment globs held in the trie
+        "*", "*.*", "com.*", "com.*.service", "*.acme.*", "com.acme.*", "com.acme..*", "com.acme", "..*", ".*",
+        "com..*", "com.acme.F..*", "com.acme.F.*",
+        // Globs and regexes matched one by one
+        "com.acme.Foo*", "com.?cme.*", "com.[ab]cme", "*Service", "^com\\.acme\\..*Service$", "^com.*", "Foo$",
+        // An invalid regex, matched exactly
+        "^com.(acme",
+        null);
+
+    private static final List<String> NAMES = Arrays.asList(
+        "", ".", "..", "com", "com.", "com.acme", "com.acme.", "com.acmeutil.X", "com..acme", "com.acme.Foo",
+        "com.acme.FooService", "com.acme.service", "com.acme.Foo.Bar", "com.acme.service.Service",
+        "com.bcme", "org.acme.Foo", "Foo", "^com.(acme", "com.x.service");
+
+    @Test
+    void matchesLikeEachPatternForEdgeCaseNames() {
+        PatternSet set = set(PATTERNS);
+
+        for (String name : NAMES) {
+            assertThat(set.match(name)).isEqualTo(expected(set, name));
+        }
+    }
+
+    @Test
+    void matchesLikeEachPatternForRandomNames() {
+        PatternSet set = set(PATTERNS);
+        String[] segments = {"", "com", "acme", "acmeutil", "F", "Foo", "FooService", "service", "x"};
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder name = new StringBuilder(segments[random.nextInt(segments.length)]);
+            int more = random.nextInt(5);
+            for (int s = 0; s < more; s++) {
+                name.append('.').append(segments[random.nextInt(segments.length)]);
+            }
+            assertThat(set.match(name.toString())).isEqualTo(expected(set, name.toString()));
+        }
+    }
+
+    @Test
+    void matchesRandomPatternsLikeEachPattern() {
+        String[] segments = {"", "com", "acme", "a", "*", "*cme", "?cme"};
+        String[] endings = {"", ".*", "..*"};
+        Random random = new Random(7);
+
+        for (int round = 0; round < 200; round++) {
+            List<String> patterns = new ArrayList<>();
+            for (int p = 0; p < 10; p++) {
+                StringBuilder pattern = new StringBuilder(segments[random.nextInt(segments.length)]);
+                int more = random.nextInt(3);
+                for (int s = 0; s < more; s++) {
+                    pattern.append('.').append(segments[random.nextInt(segments.length)]);
+                }
+                patterns.add(pattern.append(endings[random.nextInt(endings.length)]).toString());
+            }
+            PatternSet set = set(patterns);
+            for (String name : NAMES) {
+                assertThat(set.match(name)).isEqualTo(expected(set, name));
+            }
+        }
+    }
+
+    @Test
+    void keepsBitsAlreadySet() {
+        PatternSet set = set(Arrays.asList("com.acme", "org..*"));
+        BitSet result = new BitSet();
+        result.set(1);
+
+        set.match("com.acme", result);
+
+        assertThat(result).isEqualTo(bits(0, 1));
+    }
+
+    @Test
+    void matchesNothingForNull() {
+        assertThat(set(PATTERNS).match(null)).isEqualTo(new BitSet());
+    }
+
+    private static PatternSet set(List<String> patterns) {
+        return new PatternSet(patterns.stream().map(CompiledPattern::compile).collect(Collectors.toList()));
+    }
+
+    private static BitSet expected(PatternSet set, String name) {
+        BitSet expected = new BitSet();
+        for (int i = 0; i < set.size(); i++) {
+            if (set.get(i).matches(name)) {
+                expected.set(i);
+            }
+        }
+        return expected;
+    }
+
+    private static BitSet bits(int... indices) {
+        BitSet bits = new BitSet();
+        for (int index : indices) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
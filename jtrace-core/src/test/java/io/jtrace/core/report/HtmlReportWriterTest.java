@@ -0,0 +1,67 @@
+package io.jtrace.core.report;
+
+import io.jtrace.core.model.LayeringRule;
+import io.jtrace.core.model.Location;
+import io.jtrace.core.model.Severity;
+import io.jtrace.core.model.Violation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HtmlReportWriterTest {
+    private Path directory;
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Test
+    void groupsViolationsByThePackageOfTheirClass() throws IOException {
+        directory = Files.createTempDirectory("jtrace-report");
+        LayeringRule layers = LayeringRule.builder()
+            .id("layers")
+            .layers(List.of(new LayeringRule.Layer("web", List.of("org.Acme.web..*")),
+                            new LayeringRule.Layer("util", List.of("com.acme.util..*"))))
+            .allowedDependencies(List.of())
+            .build();
+
+        try (HtmlReportWriter writer = new HtmlReportWriter(directory, List.of(layers))) {
+            // Neither package can be told from the symbol alone
+            writer.accept(violation("org.Acme.web.Controller", "org.Acme.web"));
+            writer.accept(violation("com.acme.util.helpers.cache", "com.acme.util"));
+            writer.accept(violation("Main", ""));
+            writer.accept(violation("Layer dependencies", null));
+        }
+        String summary = new String(Files.readAllBytes(directory.resolve("summary.json")), StandardCharsets.UTF_8);
+
+        assertThat(summary.contains("\"name\":\"org.Acme.web\"")).isTrue();
+        assertThat(summary.contains("\"name\":\"com.acme.util\"")).isTrue();
+        assertThat(summary.contains("\"name\":\"(no package)\",\"found\":2")).isTrue();
+        assertThat(summary.contains("\"name\":\"org\"")).isFalse();
+        assertThat(summary.contains("\"name\":\"com.acme.util.helpers\"")).isFalse();
+        assertThat(summary.contains("\"layers / util\":1")).isTrue();
+        assertThat(summary.contains("\"layers / web\":1")).isTrue();
+    }
+
+    private static Violation violation(String symbol, String packageName) {
+        return new Violation("layers", "message", Severity.ERROR,
+                             new Location(Path.of("A.java"), 1, symbol, packageName));
+    }
+}
@@ -0,0 +1,8 @@
+package fixtures.scan;
+
+/**
+ * A top-level class with a dollar sign in its name, as code generators like to emit.
+ */
+final class Generated$Proxy {
+    private Shapes.Point target;
+}
@@ -0,0 +1,66 @@
+package fixtures.scan;
+
+import java.util.Comparator;
+import java.util.function.Supplier;
+
+/**
+ * Local and anonymous classes inside lambdas, initializers and method bodies.
+ */
+public class Locals {
+    private final Runnable task = () -> {
+        class InFieldLambda {
+            int count;
+        }
+        new InFieldLambda().count++;
+    };
+
+    static {
+        class InStaticInitializer implements Runnable {
+            @Override
+            public void run() {
+            }
+        }
+        new InStaticInitializer().run();
+    }
+
+    {
+        Object anonymous = new Object() {
+            class InAnonymous {
+                String name;
+            }
+
+            int size() {
+                return 0;
+            }
+        };
+    }
+
+    Supplier<Comparator<String>> comparators() {
+        return () -> new Comparator<String>() {
+            @Override
+            public int compare(String left, String right) {
+                class InAnonymousMethod {
+                    int weight(String value) {
+                        return value.length();
+                    }
+                }
+                return new InAnonymousMethod().weight(left) - new InAnonymousMethod().weight(right);
+            }
+        };
+    }
+
+    void declarations() {
+        record LocalRecord(String name, Locals owner) {
+        }
+        Class<?> literal = int.class;
+        Class<?> other = Locals.class;
+        Runnable nested = () -> {
+            final class InMethodLambda extends Thread {
+            }
+        };
+    }
+
+    private static abstract class Member<T> implements Comparable<Member<T>> {
+        protected T value;
+    }
+}
@@ -0,0 +1,48 @@
+package fixtures.scan;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Enum constants with arguments and bodies, and members after the constants.
+ */
+public enum Operation implements IntBinaryOperator {
+    PLUS("+") {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left + right;
+        }
+    },
+    MINUS("-") {
+        private int negate(int value) {
+            return -value;
+        }
+
+        @Override
+        public int applyAsInt(int left, int right) {
+            class Difference {
+                int of(int a, int b) {
+                    return a + negate(b);
+                }
+            }
+            return new Difference().of(left, right);
+        }
+    },
+    TIMES("*", new int[] {1, 2}) {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left * right;
+        }
+    };
+
+    private final String symbol;
+    protected int[] weights;
+
+    Operation(String symbol, int... weights) {
+        this.symbol = symbol;
+        this.weights = weights;
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+}
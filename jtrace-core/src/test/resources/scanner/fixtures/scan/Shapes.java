@@ -0,0 +1,36 @@
+package fixtures.scan;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records, with compact constructors, generic components and nested records.
+ */
+public record Shapes(List<Point> points, Map<String, List<Map<Integer, Point>>> byName) implements Comparable<Shapes> {
+
+    public Shapes {
+        points = List.copyOf(points);
+    }
+
+    public record Point(int x, int y) {
+        static final Point ORIGIN = new Point(0, 0);
+
+        public Point {
+            if (x < 0) {
+                throw new IllegalArgumentException("x");
+            }
+        }
+
+        Point translate(Point by) {
+            return new Point(x + by.x, y + by.y);
+        }
+    }
+
+    record Pair<A, B extends Comparable<B>>(A first, B second) {
+    }
+
+    @Override
+    public int compareTo(Shapes other) {
+        return Integer.compare(points.size(), other.points.size());
+    }
+}
@@ -0,0 +1,25 @@
+package fixtures.scan;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation type with array, class and nested annotation defaults.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Tags {
+    String[] value() default {"a", "b"};
+
+    Class<?>[] types() default {};
+
+    int priority() default 1;
+
+    Target target() default @Target({ElementType.FIELD});
+
+    String NAME = "tags";
+
+    enum Level { LOW, HIGH }
+}
@@ -0,0 +1,37 @@
+package fixtures.scan;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Text blocks and string literals that look like code, and nested generics ending in {@code >>}.
+ */
+class Templates<K extends Comparable<K>, V> {
+    static final String CLASS_TEMPLATE = """
+        public class Fake { void broken( { "quoted \""" } }
+        record Other(int x) {}
+        """;
+    private static final String BRACES = "}{ class NotAClass {";
+    private static final char QUOTE = '"';
+
+    Map<String, List<Map<Integer, Set<String>>>> index = new HashMap<String, List<Map<Integer, Set<String>>>>();
+    ConcurrentMap<K, List<? extends V>> cache;
+    List<List<String>>[] buckets, spare[];
+    int counter = 1, limit = counter > 0 ? 2 : 3;
+
+    public <T extends Comparable<? super T>> Map<K, List<T>> group(Collection<? extends T> values,
+                                                                    Map<? super K, List<List<V>>> into) {
+        String inline = """
+            { not a block
+            """;
+        return new TreeMap<K, List<T>>();
+    }
+
+    protected List<Map<K, V>>[] table() {
+        return null;
+    }
+
+    Class<?> type() {
+        return Templates.class;
+    }
+}
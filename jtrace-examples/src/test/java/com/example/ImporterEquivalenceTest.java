@@ -0,0 +1,78 @@
+package com.example;
+
+import io.jtrace.core.importer.BytecodeImporter;
+import io.jtrace.core.importer.DependencyGraph;
+import io.jtrace.core.importer.ProjectModel;
+import io.jtrace.core.importer.ProjectModel.DependencyType;
+import io.jtrace.core.importer.SourceDiscovery;
+import io.jtrace.core.importer.SourceImporter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importing the example classes from bytecode must find the classes and dependencies that the
+ * source import finds.
+ */
+public class ImporterEquivalenceTest {
+    private static final Path SOURCES = Paths.get("src/main/java");
+    private static final Path CLASSES = Paths.get("target/classes");
+    // Dependency types both importers read from declarations
+    private static final Set<DependencyType> DECLARATIONS =
+        EnumSet.of(DependencyType.EXTENDS, DependencyType.IMPLEMENTS, DependencyType.FIELD);
+
+    @Test
+    public void bytecodeImportFindsTheClassesOfTheSourceImport() throws IOException {
+        ProjectModel bytecode = new BytecodeImporter().importClasses(List.of(CLASSES));
+        ProjectModel source = new SourceImporter().importSources(new SourceDiscovery(), List.of(SOURCES));
+
+        assertThat(classNames(source)).isNotEmpty();
+        assertThat(classNames(bytecode)).containsExactlyElementsOf(classNames(source));
+    }
+
+    @Test
+    public void bytecodeImportFindsTheDependenciesOfTheSourceImport() throws IOException {
+        ProjectModel bytecode = new BytecodeImporter().importClasses(List.of(CLASSES));
+        ProjectModel source = new SourceImporter().importSources(new SourceDiscovery(), List.of(SOURCES));
+
+        assertThat(edges(source, null)).isNotEmpty();
+        assertThat(edges(bytecode, null)).containsAll(edges(source, null));
+        assertThat(edges(bytecode, DECLARATIONS)).containsExactlyElementsOf(edges(source, DECLARATIONS));
+    }
+
+    private static List<String> classNames(ProjectModel model) {
+        return model.getAllClasses().stream()
+            .map(classInfo -> classInfo.getFullName() + " in " + classInfo.getEnclosingClass())
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * The graph's edges as sorted {@code from -> to} lines, limited to edges with one of the
+     * given types, or all edges if they are null.
+     */
+    private static List<String> edges(ProjectModel model, Set<DependencyType> types) {
+        Set<String> edges = new TreeSet<>();
+        DependencyGraph graph = model.getDependencyGraph();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            for (int edge = graph.outStart(node); edge < graph.outEnd(node); edge++) {
+                int current = edge;
+                if (types == null || types.stream().anyMatch(type -> graph.hasType(current, type))) {
+                    edges.add(model.getClassById(node).getFullName() + " -> "
+                              + model.getClassById(graph.target(edge)).getFullName());
+                }
+            }
+        }
+        return new ArrayList<>(edges);
+    }
+}
@@ -3,6 +3,8 @@ package io.jtrace.maven;
 import io.jtrace.core.config.JTraceConfig;
 import io.jtrace.core.config.JTraceConfigLoader;
 import io.jtrace.core.engine.RuleEngine;
+import io.jtrace.core.importer.BytecodeImporter;
+import io.jtrace.core.importer.ProjectModel;
 import io.jtrace.core.model.Violation;
 import io.jtrace.core.model.Severity;
 import org.apache.maven.plugin.AbstractMojo;
@@ -37,6 +39,30 @@ public class JTraceMojo extends AbstractMojo {
     @Parameter(property = "jtrace.sourceDirectory", defaultValue = "${project.build.sourceDirectory}")
     private String sourceDirectory;
 
+    /**
+     * Number of parser workers; overrides {@code analysis.parallelism} from the configuration.
+     * Zero uses one worker per available processor.
+     */
+    @Parameter(property = "jtrace.parallelism")
+    private Integer parallelism;
+
+    /**
+     * Directory of the persistent parse cache; overrides {@code cache.directory} from the
+     * configuration and enables caching. Point several modules at the same directory to share it.
+     */
+    @Parameter(property = "jtrace.cacheDirectory")
+    private String cacheDirectory;
+
+    /**
+     * Importer used to build the project model: {@code source} parses the source directory,
+     * {@code bytecode} reads the compiled classes for post-compile verification.
+     */
+    @Parameter(property = "jtrace.importer", defaultValue = "source")
+    private String importer;
+
+    @Parameter(property = "jtrace.classesDirectory", defaultValue = "${project.build.outputDirectory}")
+    private String classesDirectory;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (skip) {
@@ -51,14 +77,29 @@ public class JTraceMojo extends AbstractMojo {
             JTraceConfigLoader loader = new JTraceConfigLoader();
             Path configPath = Paths.get(project.getBasedir().getAbsolutePath(), configFile);
             JTraceConfig config = loader.loadFromFile(configPath);
-
-            // Find source files
-            Path sourcePath = Paths.get(sourceDirectory);
-            List<Path> sourcePaths = List.of(sourcePath);
+            if (parallelism != null) {
+                config = config.toBuilder().parallelism(parallelism).build();
+            }
+            config = resolveCacheDirectory(config);
+            config = resolveBaselineFile(config);
 
             // Run analysis
             RuleEngine engine = new RuleEngine();
-            List<Violation> violations = engine.run(config, sourcePaths);
+            List<Violation> violations;
+            try {
+                if ("bytecode".equalsIgnoreCase(importer)) {
+                    ProjectModel projectModel = new BytecodeImporter(config.getParallelism())
+                        .importClasses(List.of(Paths.get(classesDirectory)));
+                    violations = engine.analyze(config, projectModel);
+                } else if ("source".equalsIgnoreCase(importer)) {
+                    Path sourcePath = Paths.get(sourceDirectory);
+                    violations = engine.run(config, List.of(sourcePath));
+                } else {
+                    throw new MojoExecutionException("Unknown importer '" + importer + "', expected source or bytecode");
+                }
+            } finally {
+                engine.shutdown();
+            }
 
             // Report results
             reportViolations(violations);
@@ -77,6 +118,25 @@ public class JTraceMojo extends AbstractMojo {
         }
     }
 
+    private JTraceConfig resolveCacheDirectory(JTraceConfig config) {
+        Path cachePath = cacheDirectory != null ? Paths.get(cacheDirectory) : config.getCacheDirectory();
+        if (cachePath == null) {
+            return config;
+        }
+        if (!cachePath.isAbsolute()) {
+            cachePath = project.getBasedir().toPath().resolve(cachePath);
+        }
+        return config.toBuilder().cacheDirectory(cachePath).build();
+    }
+
+    private JTraceConfig resolveBaselineFile(JTraceConfig config) {
+        Path baselinePath = config.getBaselineFile();
+        if (baselinePath == null || baselinePath.isAbsolute()) {
+            return config;
+        }
+        return config.toBuilder().baselineFile(project.getBasedir().toPath().resolve(baselinePath)).build();
+    }
+
     private void reportViolations(List<Violation> violations) {
         if (violations.isEmpty()) {
             getLog().info("No architecture violations found");